@@ -0,0 +1,56 @@
+package com.coderank.api.config;
+
+import com.coderank.api.domain.ArchivedSubmission;
+import com.coderank.api.domain.CodeBlob;
+import com.coderank.api.domain.CodeSubmission;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+
+import java.util.List;
+
+/**
+ * Creates the indexes declared on the documents. Unlike Spring Data's auto-index-creation this
+ * runs in the background once the application is up, so startup does not wait for MongoDB and an
+ * unreachable server only costs a warning.
+ */
+@Configuration
+@Slf4j
+public class MongoIndexConfig {
+
+    private static final List<Class<?>> INDEXED_DOCUMENTS = List.of(CodeSubmission.class, CodeBlob.class,
+        ArchivedSubmission.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${execution.submissions.create-indexes:true}")
+    private boolean createIndexes;
+
+    @EventListener(ApplicationReadyEvent.class)
+    void ensureIndexes() {
+        if (!createIndexes) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            MongoPersistentEntityIndexResolver resolver =
+                new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+            for (Class<?> document : INDEXED_DOCUMENTS) {
+                try {
+                    IndexOperations indexes = mongoTemplate.indexOps(document);
+                    resolver.resolveIndexFor(document).forEach(indexes::createIndex);
+                } catch (RuntimeException e) {
+                    log.warn("Could not create indexes for {}: {}", document.getSimpleName(), e.getMessage());
+                }
+            }
+        }, "mongo-indexes");
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
@@ -15,7 +15,7 @@ public class WebConfig implements WebMvcConfigurer {
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(rateLimitInterceptor)
-            .addPathPatterns("/api/execute", "/api/submissions/**")
+            .addPathPatterns("/api/execute", "/api/execute/batch", "/api/submissions/**")
             .excludePathPatterns("/api/auth/**", "/api/health");
     }
 }
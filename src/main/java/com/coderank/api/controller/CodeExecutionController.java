@@ -1,16 +1,33 @@
 package com.coderank.api.controller;
 
+import com.coderank.api.dto.BatchExecutionRequest;
 import com.coderank.api.dto.CodeExecutionRequest;
 import com.coderank.api.dto.CodeExecutionResponse;
+import com.coderank.api.dto.SubmissionCursorPage;
+import com.coderank.api.dto.SubmissionSummary;
 import com.coderank.api.service.CodeExecutionService;
+import com.coderank.api.service.OutputStorage;
+import com.coderank.api.service.SubmissionResponseCache;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api")
@@ -24,17 +41,102 @@ public class CodeExecutionController {
         return ResponseEntity.ok(codeExecutionService.executeCode(request));
     }
 
+    @PostMapping("/execute/batch")
+    public ResponseEntity<CodeExecutionResponse> executeBatch(@Valid @RequestBody BatchExecutionRequest request) {
+        return ResponseEntity.ok(codeExecutionService.executeBatch(request));
+    }
+
+    /**
+     * Finished submissions carry a strong ETag; a matching {@code If-None-Match} is answered with
+     * 304 by Spring before the body is written.
+     */
     @GetMapping("/submissions/{id}")
     public ResponseEntity<CodeExecutionResponse> getSubmission(@PathVariable String id) {
-        return ResponseEntity.ok(codeExecutionService.getSubmission(id));
+        SubmissionResponseCache.Entry submission = codeExecutionService.getSubmission(id);
+        if (submission.etag() == null) {
+            return ResponseEntity.ok(submission.response());
+        }
+        return ResponseEntity.ok()
+            .eTag(submission.etag())
+            .cacheControl(CacheControl.noCache().cachePrivate())
+            .body(submission.response());
+    }
+
+    @GetMapping(value = "/submissions/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSubmission(@PathVariable String id) {
+        return codeExecutionService.streamSubmission(id);
+    }
+
+    @GetMapping("/submissions/{id}/output")
+    public ResponseEntity<StreamingResponseBody> getSubmissionOutput(@PathVariable String id,
+            @RequestParam(name = "case", required = false) Integer testCase, @RequestHeader HttpHeaders headers) {
+        return download(codeExecutionService.getSubmissionOutput(id, testCase, OutputStorage.Stream.OUTPUT), headers);
+    }
+
+    @GetMapping("/submissions/{id}/error")
+    public ResponseEntity<StreamingResponseBody> getSubmissionError(@PathVariable String id,
+            @RequestParam(name = "case", required = false) Integer testCase, @RequestHeader HttpHeaders headers) {
+        return download(codeExecutionService.getSubmissionOutput(id, testCase, OutputStorage.Stream.ERROR), headers);
+    }
+
+    /**
+     * Serves the text, or the one byte range asked for. Several ranges get the whole text.
+     */
+    private static ResponseEntity<StreamingResponseBody> download(OutputStorage.Blob blob, HttpHeaders headers) {
+        long size = blob.size();
+        List<HttpRange> ranges;
+        try {
+            ranges = headers.getRange();
+        } catch (IllegalArgumentException e) {
+            ranges = List.of();
+        }
+
+        long start = 0;
+        long end = size - 1;
+        HttpStatus status = HttpStatus.OK;
+        if (ranges.size() == 1) {
+            try {
+                start = ranges.get(0).getRangeStart(size);
+                end = ranges.get(0).getRangeEnd(size);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                    .build();
+            }
+            status = HttpStatus.PARTIAL_CONTENT;
+        }
+
+        long first = start;
+        long last = end;
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status)
+            .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+            .contentLength(last - first + 1)
+            .header(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (status == HttpStatus.PARTIAL_CONTENT) {
+            response.header(HttpHeaders.CONTENT_RANGE, "bytes " + first + "-" + last + "/" + size);
+        }
+        return response.body(out -> {
+            if (last >= first) {
+                try (InputStream in = blob.open()) {
+                    StreamUtils.copyRange(in, out, first, last);
+                }
+            }
+        });
     }
 
     @GetMapping("/submissions")
-    public ResponseEntity<Page<CodeExecutionResponse>> getUserSubmissions(
+    public ResponseEntity<Page<SubmissionSummary>> getUserSubmissions(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
         return ResponseEntity.ok(codeExecutionService.getUserSubmissions(pageable));
     }
+
+    @GetMapping(value = "/submissions", params = "after")
+    public ResponseEntity<SubmissionCursorPage> getUserSubmissionsAfter(
+            @RequestParam(defaultValue = "") String after,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(codeExecutionService.getUserSubmissionsAfter(after, size));
+    }
 }
 
@@ -0,0 +1,108 @@
+package com.coderank.api.controller;
+
+import com.coderank.api.execution.CodeValidator;
+import com.coderank.api.execution.CompileCache;
+import com.coderank.api.execution.CompileStage;
+import com.coderank.api.execution.CppToolchain;
+import com.coderank.api.execution.ExecutionScheduler;
+import com.coderank.api.execution.JavaLauncher;
+import com.coderank.api.execution.ProcessTreeManager;
+import com.coderank.api.execution.ResultCache;
+import com.coderank.api.execution.RuntimeRegistry;
+import com.coderank.api.execution.WorkspacePool;
+import com.coderank.api.repository.CodeSubmissionWriteBuffer;
+import com.coderank.api.service.CodeStore;
+import com.coderank.api.service.ExecutionJobQueue;
+import com.coderank.api.service.OutputStorage;
+import com.coderank.api.service.SubmissionArchive;
+import com.coderank.api.service.SubmissionResponseCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/execution")
+public class ExecutionStatsController {
+
+    @Autowired
+    private CodeValidator codeValidator;
+
+    @Autowired
+    private CompileCache compileCache;
+
+    @Autowired
+    private RuntimeRegistry runtimeRegistry;
+
+    @Autowired
+    private CompileStage compileStage;
+
+    @Autowired
+    private CppToolchain cppToolchain;
+
+    @Autowired
+    private JavaLauncher javaLauncher;
+
+    @Autowired
+    private ExecutionScheduler executionScheduler;
+
+    @Autowired
+    private WorkspacePool workspacePool;
+
+    @Autowired
+    private ResultCache resultCache;
+
+    @Autowired
+    private ExecutionJobQueue jobQueue;
+
+    @Autowired
+    private ProcessTreeManager processTreeManager;
+
+    @Autowired
+    private OutputStorage outputStorage;
+
+    @Autowired
+    private CodeStore codeStore;
+
+    @Autowired
+    private SubmissionArchive submissionArchive;
+
+    @Autowired
+    private SubmissionResponseCache submissionResponseCache;
+
+    @Autowired
+    private CodeSubmissionWriteBuffer writeBuffer;
+
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> stats() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("scheduler", executionScheduler.getStats());
+        response.put("validator", codeValidator.getStats());
+        response.put("compileStage", compileStage.getStats());
+        response.put("cppToolchain", cppToolchain.getStats());
+        response.put("javaLauncher", javaLauncher.getStats());
+        response.put("compileCache", compileCache.getStats());
+        response.put("workspaces", workspacePool.getStats());
+        response.put("resultCache", resultCache.getStats());
+        response.put("jobQueue", jobQueue.getStats());
+        response.put("processes", processTreeManager.getStats());
+        response.put("outputStorage", outputStorage.getStats());
+        response.put("codeStore", codeStore.getStats());
+        response.put("archive", submissionArchive.getStats());
+        response.put("submissionResponses", submissionResponseCache.getStats());
+        response.put("writeBehind", writeBuffer.getStats());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/runtimes")
+    public ResponseEntity<Collection<RuntimeRegistry.LanguageRuntime>> runtimes() {
+        return ResponseEntity.ok(runtimeRegistry.getRuntimes());
+    }
+}
@@ -0,0 +1,38 @@
+package com.coderank.api.domain;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * A finished submission moved out of {@code code_submissions}, written once and never updated.
+ * The whole submission document is kept as gzipped BSON; only what lookups and the code blob
+ * collection need is stored alongside it.
+ */
+@Document(collection = "code_submissions_archive")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchivedSubmission {
+
+    // The submission's id
+    @Id
+    private String id;
+
+    private String userId;
+
+    // Keeps the code blob referenced while the submission is archived
+    @Indexed(sparse = true)
+    private String codeHash;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime archivedAt;
+
+    private byte[] data;
+}
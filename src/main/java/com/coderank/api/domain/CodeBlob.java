@@ -0,0 +1,33 @@
+package com.coderank.api.domain;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Source code shared by every submission of it, keyed by the SHA-256 of its UTF-8 bytes.
+ */
+@Document(collection = "code_blobs")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CodeBlob {
+
+    @Id
+    private String id;
+
+    private String code;
+
+    private Integer size;
+
+    private Instant createdAt;
+
+    // When the blob was last known to be referenced, by a new submission or a collection pass
+    @Indexed
+    private Instant referencedAt;
+}
@@ -2,16 +2,21 @@ package com.coderank.api.domain;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Document(collection = "code_submissions")
+// Serves a user's history, newest first, including the keyset continuation on (createdAt, _id)
+@CompoundIndex(name = "userId_createdAt", def = "{'userId': 1, 'createdAt': -1, '_id': -1}")
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class CodeSubmission {
 
     @Id
@@ -21,22 +26,53 @@ public class CodeSubmission {
 
     private Language language;
 
+    // Only on submissions from before code was stored in code_blobs
     private String code;
 
+    // SHA-256 of the code, the id of its CodeBlob
+    @Indexed(sparse = true)
+    private String codeHash;
+
+    @Indexed
     private SubmissionStatus status = SubmissionStatus.PENDING;
 
     private String output;
 
     private String errorMessage;
 
+    // Output or error above the offload threshold is kept in GridFS and only previewed above;
+    // sizes are of the full text in UTF-8 bytes
+    private Long outputSize;
+
+    private String outputFileId;
+
+    private Long errorSize;
+
+    private String errorFileId;
+
+    private Boolean outputTruncated;
+
+    private Boolean cached;
+
     private Long executionTimeMs;
 
+    private Long compileTimeMs;
+
     private Long memoryUsedKb;
 
+    private Long cpuTimeMs;
+
+    private List<TestCaseResult> testCaseResults;
+
+    private Integer passedTestCases;
+
     private LocalDateTime createdAt;
 
     private LocalDateTime completedAt;
 
+    // Set once the submission is copied to the archive; a TTL index then removes it from here
+    private LocalDateTime archivedAt;
+
     public void onCreate() {
         createdAt = LocalDateTime.now();
     }
@@ -0,0 +1,52 @@
+package com.coderank.api.domain;
+
+import com.coderank.api.dto.BatchExecutionRequest;
+import com.coderank.api.dto.CodeExecutionRequest;
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * A submission waiting for, or leased to, an executor node. Unclaimed jobs have no owner and a
+ * lease that expired at the epoch; the job is deleted once its submission has been finished.
+ */
+@Document(collection = "execution_jobs")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExecutionJob {
+
+    @Id
+    private String id;
+
+    private String submissionId;
+
+    private Language language;
+
+    // Exactly one of the two is set
+    private CodeExecutionRequest request;
+
+    private BatchExecutionRequest batchRequest;
+
+    private String cacheKey;
+
+    // The submission's owner, createdAt and code hash, so its result can be reported without reading it back
+    private String userId;
+
+    private LocalDateTime submittedAt;
+
+    private String codeHash;
+
+    private String owner;
+
+    private Instant leaseExpiresAt;
+
+    private int attempts;
+
+    private LocalDateTime createdAt;
+}
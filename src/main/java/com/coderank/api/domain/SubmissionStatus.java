@@ -6,6 +6,12 @@ public enum SubmissionStatus {
     COMPLETED,
     FAILED,
     TIMEOUT,
-    SECURITY_VIOLATION
+    CPU_LIMIT_EXCEEDED,
+    MEMORY_LIMIT_EXCEEDED,
+    SECURITY_VIOLATION;
+
+    public boolean isTerminal() {
+        return this != PENDING && this != RUNNING;
+    }
 }
 
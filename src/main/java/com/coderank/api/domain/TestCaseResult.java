@@ -0,0 +1,40 @@
+package com.coderank.api.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TestCaseResult {
+
+    private int index;
+
+    private TestCaseVerdict verdict;
+
+    private String output;
+
+    private String errorMessage;
+
+    private Boolean outputTruncated;
+
+    // As on CodeSubmission, output or error above the offload threshold is kept in GridFS;
+    // clients read it through the submission's output endpoints, not by file id
+    private Long outputSize;
+
+    @JsonIgnore
+    private String outputFileId;
+
+    private Long errorSize;
+
+    @JsonIgnore
+    private String errorFileId;
+
+    private Long executionTimeMs;
+
+    private Long cpuTimeMs;
+
+    private Long memoryUsedKb;
+}
@@ -0,0 +1,11 @@
+package com.coderank.api.domain;
+
+public enum TestCaseVerdict {
+    PASSED,
+    WRONG_ANSWER,
+    RUNTIME_ERROR,
+    TIMEOUT,
+    CPU_LIMIT_EXCEEDED,
+    MEMORY_LIMIT_EXCEEDED,
+    SKIPPED
+}
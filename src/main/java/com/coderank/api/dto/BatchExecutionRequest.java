@@ -0,0 +1,30 @@
+package com.coderank.api.dto;
+
+import com.coderank.api.domain.Language;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchExecutionRequest {
+    @NotNull(message = "Language is required")
+    private Language language;
+
+    @NotBlank(message = "Code is required")
+    private String code;
+
+    @NotEmpty(message = "At least one test case is required")
+    @Size(max = 100, message = "At most 100 test cases are allowed")
+    private List<@Valid TestCase> testCases;
+
+    private boolean stopOnFirstFailure;
+}
@@ -2,9 +2,11 @@ package com.coderank.api.dto;
 
 import com.coderank.api.domain.Language;
 import com.coderank.api.domain.SubmissionStatus;
+import com.coderank.api.domain.TestCaseResult;
 import lombok.*;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Getter
 @Setter
@@ -14,11 +16,21 @@ import java.time.LocalDateTime;
 public class CodeExecutionResponse {
     private String submissionId;
     private Language language;
+    private String codeHash;
     private SubmissionStatus status;
     private String output;
     private String errorMessage;
+    // Set when output or errorMessage is only a preview of a larger text, see GET /api/submissions/{id}/output
+    private Long outputSize;
+    private Long errorSize;
+    private Boolean outputTruncated;
+    private Boolean cached;
     private Long executionTimeMs;
+    private Long compileTimeMs;
     private Long memoryUsedKb;
+    private Long cpuTimeMs;
+    private List<TestCaseResult> testCaseResults;
+    private Integer passedTestCases;
     private LocalDateTime createdAt;
     private LocalDateTime completedAt;
 }
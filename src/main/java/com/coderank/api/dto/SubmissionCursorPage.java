@@ -0,0 +1,19 @@
+package com.coderank.api.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * One page of a user's history, newest first. {@code nextCursor} is passed as {@code after} to
+ * get the next page and is {@code null} on the last one.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SubmissionCursorPage {
+    private List<SubmissionSummary> items;
+    private String nextCursor;
+}
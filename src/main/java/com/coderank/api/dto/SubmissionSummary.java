@@ -0,0 +1,32 @@
+package com.coderank.api.dto;
+
+import com.coderank.api.domain.Language;
+import com.coderank.api.domain.SubmissionStatus;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A submission in a history list: everything but the code, output, error and test case results,
+ * which {@code GET /api/submissions/{id}} returns.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SubmissionSummary {
+    private String submissionId;
+    private Language language;
+    private String codeHash;
+    private SubmissionStatus status;
+    private Boolean outputTruncated;
+    private Boolean cached;
+    private Long executionTimeMs;
+    private Long compileTimeMs;
+    private Long memoryUsedKb;
+    private Long cpuTimeMs;
+    private Integer passedTestCases;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,14 @@
+package com.coderank.api.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TestCase {
+    private String input; // Optional stdin input
+
+    private String expectedOutput; // Optional, compared ignoring trailing whitespace
+}
@@ -0,0 +1,14 @@
+package com.coderank.api.exception;
+
+public class ExecutionQueueFullException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public ExecutionQueueFullException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
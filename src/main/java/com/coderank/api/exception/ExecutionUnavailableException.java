@@ -0,0 +1,7 @@
+package com.coderank.api.exception;
+
+public class ExecutionUnavailableException extends RuntimeException {
+    public ExecutionUnavailableException(String message) {
+        super(message);
+    }
+}
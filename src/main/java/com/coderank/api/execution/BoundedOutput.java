@@ -0,0 +1,102 @@
+package com.coderank.api.execution;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Byte sink that keeps the first and the last bytes written to it and drops the middle once
+ * more than {@code capacity} bytes have been written. Memory is allocated as output arrives.
+ */
+class BoundedOutput {
+
+    private final int headCapacity;
+    private final int tailCapacity;
+    private final ByteArrayOutputStream head = new ByteArrayOutputStream();
+    private byte[] tail;
+    private long tailWritten;
+    private long total;
+
+    BoundedOutput(int capacity) {
+        this.headCapacity = capacity / 2;
+        this.tailCapacity = capacity - headCapacity;
+    }
+
+    synchronized void write(byte[] bytes, int offset, int length) {
+        total += length;
+
+        int toHead = Math.min(length, headCapacity - head.size());
+        if (toHead > 0) {
+            head.write(bytes, offset, toHead);
+            offset += toHead;
+            length -= toHead;
+        }
+        if (length == 0 || tailCapacity == 0) {
+            return;
+        }
+
+        if (tail == null) {
+            tail = new byte[tailCapacity];
+        }
+        if (length > tailCapacity) {
+            tailWritten += length - tailCapacity;
+            offset += length - tailCapacity;
+            length = tailCapacity;
+        }
+        while (length > 0) {
+            int position = (int) (tailWritten % tailCapacity);
+            int chunk = Math.min(length, tailCapacity - position);
+            System.arraycopy(bytes, offset, tail, position, chunk);
+            tailWritten += chunk;
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    /**
+     * Copies {@code length} bytes from the stream into this buffer.
+     */
+    void readFrom(InputStream in, long length) throws IOException {
+        byte[] buffer = new byte[8192];
+        while (length > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, length));
+            if (read == -1) {
+                throw new IOException("Stream ended " + length + " bytes early");
+            }
+            write(buffer, 0, read);
+            length -= read;
+        }
+    }
+
+    synchronized long getTotalBytes() {
+        return total;
+    }
+
+    synchronized boolean isTruncated() {
+        return total > headCapacity + tailCapacity;
+    }
+
+    @Override
+    public synchronized String toString() {
+        String start = head.toString(StandardCharsets.UTF_8);
+        if (tail == null) {
+            return start;
+        }
+
+        int kept = (int) Math.min(tailWritten, tailCapacity);
+        byte[] end = new byte[kept];
+        int position = (int) (tailWritten % tailCapacity);
+        if (tailWritten <= tailCapacity) {
+            System.arraycopy(tail, 0, end, 0, kept);
+        } else {
+            System.arraycopy(tail, position, end, 0, tailCapacity - position);
+            System.arraycopy(tail, 0, end, tailCapacity - position, position);
+        }
+
+        String separator = isTruncated()
+            ? "\n... [" + (total - headCapacity - tailCapacity) + " bytes truncated] ...\n"
+            : "";
+        return start + separator + new String(end, StandardCharsets.UTF_8);
+    }
+}
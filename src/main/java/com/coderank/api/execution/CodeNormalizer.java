@@ -0,0 +1,87 @@
+package com.coderank.api.execution;
+
+import com.coderank.api.domain.Language;
+
+/**
+ * Rewrites source code into a canonical form so that submissions which differ only in comments or
+ * trailing whitespace compare equal. Literals, as told apart by {@link SourceLexer}, are copied
+ * untouched, and line breaks are always kept so line numbers in diagnostics still match.
+ */
+final class CodeNormalizer {
+
+    private CodeNormalizer() {
+    }
+
+    static String normalize(Language language, String code, boolean stripComments, boolean stripTrailingWhitespace) {
+        StringBuilder out = new StringBuilder(code.length());
+        StringBuilder pending = new StringBuilder(); // whitespace not yet known to be trailing
+
+        SourceLexer.lex(language, code, new SourceLexer.Listener() {
+            @Override
+            public void code(int index) {
+                char c = code.charAt(index);
+                if (c == ' ' || c == '\t' || c == '\r') {
+                    pending.append(c);
+                } else if (c == '\n') {
+                    endLine(out, pending, stripTrailingWhitespace);
+                } else {
+                    out.append(pending).append(c);
+                    pending.setLength(0);
+                }
+            }
+
+            @Override
+            public void comment(int start, int end) {
+                boolean block = code.startsWith("/*", start);
+                if (!stripComments && block) {
+                    copy(start, end);
+                } else if (!stripComments) {
+                    int text = end;
+                    while (text > start && Character.isWhitespace(code.charAt(text - 1))) {
+                        text--;
+                    }
+                    copy(start, text);
+                    pending.append(code, text, end);
+                } else if (block) {
+                    // A comment still separates tokens; its line breaks are kept
+                    for (int j = start; j < end; j++) {
+                        if (code.charAt(j) == '\n') {
+                            endLine(out, pending, stripTrailingWhitespace);
+                        }
+                    }
+                    pending.append(' ');
+                }
+            }
+
+            @Override
+            public void literal(int start, int end) {
+                copy(start, end);
+            }
+
+            @Override
+            public void unclear(int start, int end) {
+                copy(start, end);
+            }
+
+            private void copy(int start, int end) {
+                out.append(pending).append(code, start, end);
+                pending.setLength(0);
+            }
+        });
+
+        if (!stripTrailingWhitespace) {
+            out.append(pending);
+        }
+        return out.toString();
+    }
+
+    private static void endLine(StringBuilder out, StringBuilder pending, boolean stripTrailingWhitespace) {
+        // Whitespace after a line-continuation backslash is significant (it is an error in Python)
+        boolean continuation = !out.isEmpty() && out.charAt(out.length() - 1) == '\\';
+        if (!stripTrailingWhitespace || continuation) {
+            out.append(pending);
+        }
+        pending.setLength(0);
+        out.append('\n');
+    }
+}
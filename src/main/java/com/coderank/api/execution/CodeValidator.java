@@ -1,83 +1,398 @@
 package com.coderank.api.execution;
 
+import com.coderank.api.domain.Language;
 import com.coderank.api.exception.SecurityViolationException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
-import java.util.regex.Pattern;
 
+/**
+ * Rejects code that uses forbidden operations. Each language's patterns are compiled into one
+ * Aho-Corasick automaton that {@link SourceLexer} feeds in a single pass over the code, skipping
+ * comments and literals (except the module name passed to a JAVASCRIPT {@code require}) and
+ * collapsing whitespace, so the patterns only have to match a single space where they allow any.
+ * Text the lexer cannot place is scanned as it stands. Verdicts of recently seen code are cached
+ * by hash.
+ */
 @Component
 public class CodeValidator {
 
-    // Dangerous patterns that should be blocked
-    private static final Map<String, List<Pattern>> DANGEROUS_PATTERNS = new HashMap<>();
+    private static final int MAX_LENGTH = 10000;
+    // Stands in for a skipped string literal, so tokens on either side of it never join up
+    private static final char SKIPPED_STRING = '"';
+
+    // Dangerous patterns that should be blocked. Only \s*, \s+, escaped characters and ['"]
+    // are supported, see Automaton#expand.
+    private static final Map<Language, List<String>> DANGEROUS_PATTERNS = new EnumMap<>(Language.class);
 
     static {
         // Python dangerous patterns
-        DANGEROUS_PATTERNS.put("PYTHON", Arrays.asList(
-            Pattern.compile("import\\s+os"),
-            Pattern.compile("import\\s+subprocess"),
-            Pattern.compile("import\\s+socket"),
-            Pattern.compile("import\\s+requests"),
-            Pattern.compile("__import__"),
-            Pattern.compile("exec\\s*\\("),
-            Pattern.compile("eval\\s*\\("),
-            Pattern.compile("compile\\s*\\("),
-            Pattern.compile("open\\s*\\(")
+        DANGEROUS_PATTERNS.put(Language.PYTHON, List.of(
+            "import\\s+os",
+            "import\\s+subprocess",
+            "import\\s+socket",
+            "import\\s+requests",
+            "__import__",
+            "exec\\s*\\(",
+            "eval\\s*\\(",
+            "compile\\s*\\(",
+            "open\\s*\\("
         ));
 
         // Java dangerous patterns
-        DANGEROUS_PATTERNS.put("JAVA", Arrays.asList(
-            Pattern.compile("import\\s+java\\.io\\.File"),
-            Pattern.compile("import\\s+java\\.lang\\.Runtime"),
-            Pattern.compile("import\\s+java\\.lang\\.Process"),
-            Pattern.compile("import\\s+java\\.net"),
-            Pattern.compile("Runtime\\.getRuntime"),
-            Pattern.compile("ProcessBuilder"),
-            Pattern.compile("System\\.exit")
+        DANGEROUS_PATTERNS.put(Language.JAVA, List.of(
+            "import\\s+java\\.io\\.File",
+            "import\\s+java\\.lang\\.Runtime",
+            "import\\s+java\\.lang\\.Process",
+            "import\\s+java\\.net",
+            "Runtime\\.getRuntime",
+            "ProcessBuilder",
+            "System\\.exit"
         ));
 
         // JavaScript dangerous patterns
-        DANGEROUS_PATTERNS.put("JAVASCRIPT", Arrays.asList(
-            Pattern.compile("require\\s*\\(\\s*['\"]fs['\"]"),
-            Pattern.compile("require\\s*\\(\\s*['\"]child_process['\"]"),
-            Pattern.compile("require\\s*\\(\\s*['\"]net['\"]"),
-            Pattern.compile("require\\s*\\(\\s*['\"]http['\"]"),
-            Pattern.compile("eval\\s*\\("),
-            Pattern.compile("Function\\s*\\(")
+        DANGEROUS_PATTERNS.put(Language.JAVASCRIPT, List.of(
+            "require\\s*\\(\\s*['\"]fs['\"]",
+            "require\\s*\\(\\s*['\"]child_process['\"]",
+            "require\\s*\\(\\s*['\"]net['\"]",
+            "require\\s*\\(\\s*['\"]http['\"]",
+            "eval\\s*\\(",
+            "Function\\s*\\("
         ));
 
         // C++ dangerous patterns
-        DANGEROUS_PATTERNS.put("CPP", Arrays.asList(
-            Pattern.compile("#include\\s*<fstream>"),
-            Pattern.compile("#include\\s*<filesystem>"),
-            Pattern.compile("system\\s*\\("),
-            Pattern.compile("popen\\s*\\("),
-            Pattern.compile("fork\\s*\\(")
+        DANGEROUS_PATTERNS.put(Language.CPP, List.of(
+            "#include\\s*<fstream>",
+            "#include\\s*<filesystem>",
+            "system\\s*\\(",
+            "popen\\s*\\(",
+            "fork\\s*\\("
         ));
     }
 
-    public void validate(String code, String language) {
+    private static final Map<Language, Automaton> AUTOMATA = new EnumMap<>(Language.class);
+
+    static {
+        DANGEROUS_PATTERNS.forEach((language, patterns) -> AUTOMATA.put(language, new Automaton(patterns)));
+    }
+
+    @Value("${execution.validator.cache-size:10000}")
+    private long cacheSize;
+
+    // Code hash to the violated pattern, or "" when the code is clean
+    private Cache<String, String> verdicts;
+
+    @PostConstruct
+    void init() {
+        verdicts = Caffeine.newBuilder()
+            .maximumSize(cacheSize)
+            .recordStats()
+            .build();
+    }
+
+    public void validate(String code, Language language) {
         if (code == null || code.trim().isEmpty()) {
             throw new SecurityViolationException("Code cannot be empty");
         }
 
         // Check code length (prevent DOS)
-        if (code.length() > 10000) {
-            throw new SecurityViolationException("Code exceeds maximum length of 10000 characters");
+        if (code.length() > MAX_LENGTH) {
+            throw new SecurityViolationException("Code exceeds maximum length of " + MAX_LENGTH + " characters");
         }
 
         // Check for dangerous patterns
-        List<Pattern> patterns = DANGEROUS_PATTERNS.get(language.toUpperCase());
-        if (patterns != null) {
-            for (Pattern pattern : patterns) {
-                if (pattern.matcher(code).find()) {
-                    throw new SecurityViolationException(
-                        "Code contains forbidden operation: " + pattern.pattern()
-                    );
+        String violation = verdicts.get(key(language, code), key -> findViolation(code, language));
+        if (!violation.isEmpty()) {
+            throw new SecurityViolationException("Code contains forbidden operation: " + violation);
+        }
+    }
+
+    /**
+     * Returns the first forbidden pattern found in the code, or "" when there is none.
+     */
+    static String findViolation(String code, Language language) {
+        Automaton automaton = AUTOMATA.get(language);
+        if (automaton == null) {
+            return "";
+        }
+        // Java reads unicode escapes before anything else, so they may even close a string or comment
+        String source = language == Language.JAVA ? unicodeEscapes(code) : code;
+        Automaton.Scan scan = automaton.new Scan();
+
+        SourceLexer.lex(language, source, new SourceLexer.Listener() {
+            @Override
+            public void code(int index) {
+                char c = source.charAt(index);
+                if (Character.isWhitespace(c)) {
+                    scan.space();
+                } else {
+                    scan.feed(c);
+                }
+            }
+
+            @Override
+            public void comment(int start, int end) {
+                scan.space();
+            }
+
+            @Override
+            public void literal(int start, int end) {
+                char quote = source.charAt(start);
+                if (language == Language.JAVASCRIPT && quote != '/' && scan.afterRequire()) {
+                    // The module name is what the require patterns look for, under a single quote style
+                    int close = end > start + 1 && source.charAt(end - 1) == quote ? end - 1 : end;
+                    scan.feed('\'');
+                    for (int j = start + 1; j < close && !scan.matched(); j++) {
+                        scan.feed(source.charAt(j));
+                    }
+                    scan.feed('\'');
+                } else {
+                    scan.feed(SKIPPED_STRING);
                 }
             }
+
+            @Override
+            public void unclear(int start, int end) {
+                // Read as code, with quotes in the one style the patterns use
+                for (int j = start; j < end && !scan.matched(); j++) {
+                    char c = source.charAt(j);
+                    if (Character.isWhitespace(c)) {
+                        scan.space();
+                    } else {
+                        scan.feed(c == '"' || c == '`' ? '\'' : c);
+                    }
+                }
+            }
+
+            @Override
+            public boolean done() {
+                return scan.matched();
+            }
+        });
+        return scan.matched() ? DANGEROUS_PATTERNS.get(language).get(scan.match) : "";
+    }
+
+    /**
+     * Translates Java's unicode escapes into the characters they stand for.
+     */
+    private static String unicodeEscapes(String code) {
+        if (!code.contains("\\u")) {
+            return code;
         }
+        StringBuilder out = new StringBuilder(code.length());
+        int i = 0;
+        while (i < code.length()) {
+            char c = code.charAt(i);
+            if (c == '\\' && code.startsWith("\\", i + 1)) {
+                // An escaped backslash never starts an escape
+                out.append("\\\\");
+                i += 2;
+                continue;
+            } else if (c == '\\' && code.startsWith("u", i + 1)) {
+                int digits = i + 1;
+                while (digits < code.length() && code.charAt(digits) == 'u') {
+                    digits++;
+                }
+                if (digits + 4 <= code.length()
+                        && code.substring(digits, digits + 4).chars().allMatch(CodeValidator::isHex)) {
+                    out.append((char) Integer.parseInt(code.substring(digits, digits + 4), 16));
+                    i = digits + 4;
+                    continue;
+                }
+            }
+            out.append(c);
+            i++;
+        }
+        return out.toString();
+    }
+
+    private static boolean isHex(int c) {
+        return Character.digit(c, 16) >= 0;
+    }
+
+    private static String key(Language language, String code) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(language.name().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(code.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", verdicts.estimatedSize());
+        stats.put("hitRate", verdicts.stats().hitRate());
+        return stats;
     }
-}
 
+    /**
+     * Aho-Corasick automaton over ASCII for the literal forms of a list of patterns, with the
+     * failure links folded into a full transition table. No pattern contains anything else, so
+     * any other character sends the scan back to the root.
+     */
+    private static final class Automaton {
+        private static final int ALPHABET = 128;
+
+        private final int[][] next;
+        // Index of the pattern that ends in each state, -1 for none
+        private final int[] matches;
+
+        Automaton(List<String> patterns) {
+            List<int[]> transitions = new ArrayList<>();
+            List<Integer> ends = new ArrayList<>();
+            transitions.add(newState());
+            ends.add(-1);
+
+            for (int index = 0; index < patterns.size(); index++) {
+                for (String literal : expand(patterns.get(index))) {
+                    int state = 0;
+                    for (char c : literal.toCharArray()) {
+                        if (transitions.get(state)[c] <= 0) {
+                            transitions.get(state)[c] = transitions.size();
+                            transitions.add(newState());
+                            ends.add(-1);
+                        }
+                        state = transitions.get(state)[c];
+                    }
+                    if (ends.get(state) < 0) {
+                        ends.set(state, index);
+                    }
+                }
+            }
+
+            next = transitions.toArray(new int[0][]);
+            matches = ends.stream().mapToInt(Integer::intValue).toArray();
+            int[] failure = new int[next.length];
+            Deque<Integer> queue = new ArrayDeque<>();
+            for (int c = 0; c < ALPHABET; c++) {
+                if (next[0][c] > 0) {
+                    queue.add(next[0][c]);
+                } else {
+                    next[0][c] = 0;
+                }
+            }
+            // Breadth first, so every failure target is complete before it is used
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                if (matches[state] < 0) {
+                    matches[state] = matches[failure[state]];
+                }
+                for (int c = 0; c < ALPHABET; c++) {
+                    int child = next[state][c];
+                    if (child > 0) {
+                        failure[child] = next[failure[state]][c];
+                        queue.add(child);
+                    } else {
+                        next[state][c] = next[failure[state]][c];
+                    }
+                }
+            }
+        }
+
+        private static int[] newState() {
+            int[] state = new int[ALPHABET];
+            Arrays.fill(state, -1);
+            return state;
+        }
+
+        /**
+         * The literal forms of a pattern on whitespace-collapsed code: {@code \s*} becomes nothing
+         * or a space, {@code \s+} a space and {@code ['"]} a single quote.
+         */
+        private static List<String> expand(String pattern) {
+            List<String> literals = List.of("");
+            int i = 0;
+            while (i < pattern.length()) {
+                List<String> options;
+                if (pattern.startsWith("\\s*", i)) {
+                    options = List.of("", " ");
+                    i += 3;
+                } else if (pattern.startsWith("\\s+", i)) {
+                    options = List.of(" ");
+                    i += 3;
+                } else if (pattern.startsWith("['\"]", i)) {
+                    options = List.of("'");
+                    i += 4;
+                } else if (pattern.charAt(i) == '\\') {
+                    options = List.of(String.valueOf(pattern.charAt(i + 1)));
+                    i += 2;
+                } else {
+                    options = List.of(String.valueOf(pattern.charAt(i)));
+                    i++;
+                }
+                List<String> expanded = new ArrayList<>();
+                for (String literal : literals) {
+                    for (String option : options) {
+                        expanded.add(literal + option);
+                    }
+                }
+                literals = expanded;
+            }
+            return literals;
+        }
+
+        /**
+         * One pass over normalized code.
+         */
+        final class Scan {
+            private int state;
+            private int match = -1;
+            private char last = ' ';
+            // Last few characters fed, to tell whether a string is the argument of require
+            private final char[] recent = new char[10];
+            private int fed;
+
+            void feed(char c) {
+                state = c < ALPHABET ? next[state][c] : 0;
+                if (matches[state] >= 0 && match < 0) {
+                    match = matches[state];
+                }
+                last = c;
+                recent[fed++ % recent.length] = c;
+            }
+
+            /**
+             * Whitespace, or a comment, which separates tokens just the same.
+             */
+            void space() {
+                if (last != ' ') {
+                    feed(' ');
+                }
+            }
+
+            boolean matched() {
+                return match >= 0;
+            }
+
+            boolean afterRequire() {
+                int i = fed - 1;
+                i = charAt(i) == ' ' ? i - 1 : i;
+                if (charAt(i) != '(') {
+                    return false;
+                }
+                i = charAt(i - 1) == ' ' ? i - 2 : i - 1;
+                for (int j = "require".length() - 1; j >= 0; j--, i--) {
+                    if (charAt(i) != "require".charAt(j)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            private char charAt(int index) {
+                return index < 0 || index <= fed - 1 - recent.length ? 0 : recent[index % recent.length];
+            }
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.coderank.api.execution;
+
+import com.coderank.api.domain.Language;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Disk-backed cache of compiled artifacts ({@code .class} files or native binaries), keyed by a
+ * hash of language, compiler version, flags and source. Entries are published with an atomic
+ * rename and are immutable afterwards; concurrent requests for the same key share one compile.
+ * Eviction is LRU bounded by total size and never removes an entry that is currently leased.
+ */
+@Component
+@Slf4j
+public class CompileCache {
+
+    @Value("${execution.compile-cache.dir:${java.io.tmpdir}/coderank-compile-cache}")
+    private Path root;
+
+    @Value("${execution.compile-cache.max-size-mb:256}")
+    private long maxSizeMb;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<Outcome>> inFlight = new ConcurrentHashMap<>();
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @FunctionalInterface
+    public interface Compiler {
+        /**
+         * Compiles the source into {@code outputDir}. Returns {@code null} on success or the
+         * compiler diagnostics on failure.
+         */
+        CompileFailure compile(Path outputDir) throws IOException, InterruptedException;
+    }
+
+    public record CompileFailure(int exitCode, String diagnostics) {
+    }
+
+    @PostConstruct
+    void load() throws IOException {
+        Files.createDirectories(root);
+        deleteRecursively(root.resolve("staging"));
+
+        List<Path> existing;
+        try (Stream<Path> dirs = Files.list(root)) {
+            existing = dirs.filter(Files::isDirectory)
+                .filter(dir -> dir.getFileName().toString().matches("[0-9a-f]{64}"))
+                .sorted(Comparator.comparingLong(CompileCache::lastModified))
+                .toList();
+        }
+        synchronized (this) {
+            for (Path dir : existing) {
+                Entry entry = new Entry(dir, sizeOf(dir));
+                entries.put(dir.getFileName().toString(), entry);
+                totalBytes += entry.size;
+            }
+            evict();
+        }
+        log.info("Compile cache at {} holds {} entries ({} bytes)", root, existing.size(), totalBytes);
+    }
+
+    public static String key(Language language, String compilerVersion, List<String> flags, String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : List.of(language.name(), compilerVersion, String.join(" ", flags), source)) {
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns a lease on the artifact for {@code key}, compiling it first on a miss. The lease must
+     * be closed once the caller is done with the files so the entry becomes evictable again.
+     */
+    public Outcome getOrCompile(String key, Compiler compiler) throws IOException, InterruptedException {
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits.incrementAndGet();
+                entry.leases++;
+                return new Outcome(new Lease(key, entry.dir), null);
+            }
+        }
+
+        CompletableFuture<Outcome> mine = new CompletableFuture<>();
+        CompletableFuture<Outcome> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            // Someone else is compiling the same source; wait for them and take our own lease
+            Outcome shared = join(existing);
+            return shared.failure() != null ? shared : getOrCompile(key, compiler);
+        }
+
+        misses.incrementAndGet();
+        try {
+            Outcome outcome = compileAndPublish(key, compiler);
+            mine.complete(outcome.failure() != null ? outcome : new Outcome(null, null));
+            return outcome;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private Outcome compileAndPublish(String key, Compiler compiler) throws IOException, InterruptedException {
+        Path staging = root.resolve("staging").resolve(UUID.randomUUID().toString());
+        Files.createDirectories(staging);
+        try {
+            CompileFailure failure = compiler.compile(staging);
+            if (failure != null) {
+                return new Outcome(null, failure);
+            }
+
+            Path target = root.resolve(key);
+            try {
+                Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileSystemException e) {
+                // Left over from a previous run that wasn't indexed; replace it
+                deleteRecursively(target);
+                Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+
+            synchronized (this) {
+                Entry entry = new Entry(target, sizeOf(target));
+                entry.leases++;
+                entries.put(key, entry);
+                totalBytes += entry.size;
+                evict();
+            }
+            return new Outcome(new Lease(key, target), null);
+        } finally {
+            deleteRecursively(staging);
+        }
+    }
+
+    private void evict() {
+        long maxBytes = maxSizeMb * 1024 * 1024;
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Entry entry = it.next().getValue();
+            if (entry.leases > 0) {
+                continue;
+            }
+            it.remove();
+            totalBytes -= entry.size;
+            evictions.incrementAndGet();
+            deleteRecursively(entry.dir);
+        }
+    }
+
+    private synchronized void release(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.leases > 0) {
+            entry.leases--;
+            evict();
+        }
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        stats.put("entries", entries.size());
+        stats.put("sizeBytes", totalBytes);
+        return stats;
+    }
+
+    private static Outcome join(CompletableFuture<Outcome> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Shared compile failed", e.getCause());
+        }
+    }
+
+    private static long sizeOf(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    private static long lastModified(Path path) {
+        return path.toFile().lastModified();
+    }
+
+    private static void deleteRecursively(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    log.warn("Failed to delete: " + path, e);
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Failed to delete: " + dir, e);
+        }
+    }
+
+    private static final class Entry {
+        private final Path dir;
+        private final long size;
+        private int leases;
+
+        private Entry(Path dir, long size) {
+            this.dir = dir;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Result of {@link #getOrCompile}: either a lease on the compiled artifact or the compiler's
+     * failure output.
+     */
+    public record Outcome(Lease lease, CompileFailure failure) {
+    }
+
+    public final class Lease implements AutoCloseable {
+        private final String key;
+        private final Path dir;
+        private boolean closed;
+
+        private Lease(String key, Path dir) {
+            this.key = key;
+            this.dir = dir;
+        }
+
+        public Path getDir() {
+            return dir;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.coderank.api.execution;
+
+import com.coderank.api.exception.ExecutionTimeoutException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The compile stage of the pipeline: cache misses of JAVA and CPP are compiled on a small pool of
+ * their own, so however many compiles pile up, at most {@code workers} of them compete with runs
+ * for CPU. A compile has its own timeout, counted from submission to the stage, and is never
+ * charged against the run timeout.
+ */
+@Component
+public class CompileStage {
+
+    @Value("${execution.compile.workers:2}")
+    private int workers;
+
+    @Value("${execution.compile.timeout:30}")
+    private long timeoutSeconds;
+
+    private final AtomicLong compiles = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong totalCompileMs = new AtomicLong();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threads = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "execution-compile-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    /**
+     * Runs {@code compiler} on the stage and waits for it. On timeout the compile is interrupted,
+     * which kills its process tree.
+     *
+     * @throws ExecutionTimeoutException when the compile, including its wait for a worker, takes
+     *                                   longer than the compile timeout
+     */
+    CompileCache.CompileFailure compile(Compilation compiler) throws IOException, InterruptedException {
+        Future<CompileCache.CompileFailure> future = executor.submit(() -> {
+            long startTime = System.currentTimeMillis();
+            try {
+                return compiler.compile(timeoutSeconds * 1000);
+            } finally {
+                compiles.incrementAndGet();
+                totalCompileMs.addAndGet(System.currentTimeMillis() - startTime);
+            }
+        });
+
+        try {
+            return future.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeouts.incrementAndGet();
+            throw new ExecutionTimeoutException("Compilation exceeded timeout of " + timeoutSeconds + " seconds");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            } else if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long count = compiles.get();
+        stats.put("workers", workers);
+        stats.put("active", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("compiles", count);
+        stats.put("timeouts", timeouts.get());
+        stats.put("averageCompileMs", count == 0 ? 0 : totalCompileMs.get() / count);
+        return stats;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * One compile, given how long it may take.
+     */
+    @FunctionalInterface
+    interface Compilation {
+        CompileCache.CompileFailure compile(long timeoutMs) throws IOException, InterruptedException;
+    }
+}
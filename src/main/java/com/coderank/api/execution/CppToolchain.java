@@ -0,0 +1,311 @@
+package com.coderank.api.execution;
+
+import com.coderank.api.domain.Language;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Builds the commands that compile a CPP submission and maintains precompiled headers for them.
+ * <p>
+ * For every configured header, e.g. {@code bits/stdc++.h}, a directory put first on the include
+ * path holds a {@code .gch} built with the exact compiler version and flags in use, next to a stub
+ * of the same name that {@code #include_next}s the real header. g++ picks up the {@code .gch}
+ * when the submission includes that header first; when it cannot use it, the stub falls through
+ * to the real header, so a stale or missing PCH only costs time. PCHs are built in the background
+ * and rebuilt whenever the compiler version or flags change.
+ * <p>
+ * Optionally compiles through {@code ccache}, splitting compile and link because ccache only
+ * caches the former.
+ */
+@Component
+@Slf4j
+public class CppToolchain {
+
+    private static final long PCH_BUILD_TIMEOUT_SECONDS = 120;
+
+    @Autowired
+    private RuntimeRegistry runtimeRegistry;
+
+    @Value("${execution.compile.cpp-flags:}")
+    private String[] flags;
+
+    @Value("${execution.compile.pch.enabled:true}")
+    private boolean pchEnabled;
+
+    @Value("${execution.compile.pch.headers:bits/stdc++.h}")
+    private String[] pchHeaders;
+
+    @Value("${execution.compile.pch.dir:${java.io.tmpdir}/coderank-pch}")
+    private Path pchRoot;
+
+    @Value("${execution.compile.ccache:false}")
+    private boolean ccacheEnabled;
+
+    private final Map<String, Path> readyPch = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> building = new ConcurrentHashMap<>();
+    private final AtomicLong pchBuilds = new AtomicLong();
+    private final AtomicLong pchBuildMs = new AtomicLong();
+    private final AtomicLong compilesWithPch = new AtomicLong();
+    private final AtomicLong compilesWithoutPch = new AtomicLong();
+
+    private ExecutorService builder;
+    private String ccache;
+
+    @PostConstruct
+    void start() {
+        builder = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pch-builder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (ccacheEnabled) {
+            ccache = findOnPath("ccache");
+            if (ccache == null) {
+                log.warn("execution.compile.ccache is set but ccache was not found in PATH");
+            }
+        }
+        RuntimeRegistry.LanguageRuntime runtime = runtimeRegistry.get(Language.CPP);
+        if (runtime != null && runtime.available()) {
+            pchDirectory(runtime);
+        }
+    }
+
+    List<String> getFlags() {
+        return List.of(flags);
+    }
+
+    /**
+     * The commands, run in order, that compile {@code source} into {@code binary}.
+     */
+    List<List<String>> commands(RuntimeRegistry.LanguageRuntime runtime, Path source, Path binary) {
+        List<String> compile = new ArrayList<>();
+        Optional<Path> pch = pchDirectory(runtime);
+        if (ccache != null) {
+            compile.add(ccache);
+        }
+        compile.add(runtime.compiler());
+        compile.addAll(List.of(flags));
+        if (pch.isPresent()) {
+            compile.addAll(List.of("-I", pch.get().toString()));
+            if (ccache != null) {
+                // Lets ccache hash the source rather than give up on the PCH
+                compile.add("-fpch-preprocess");
+            }
+            compilesWithPch.incrementAndGet();
+        } else {
+            compilesWithoutPch.incrementAndGet();
+        }
+
+        if (ccache == null) {
+            compile.addAll(List.of("-o", binary.toString(), source.toString()));
+            return List.of(compile);
+        }
+        Path object = source.resolveSibling("program.o");
+        compile.addAll(List.of("-c", "-o", object.toString(), source.toString()));
+        List<String> link = new ArrayList<>();
+        link.add(runtime.compiler());
+        link.addAll(List.of(flags));
+        link.addAll(List.of("-o", binary.toString(), object.toString()));
+        return List.of(compile, link);
+    }
+
+    /**
+     * Environment for the compile commands.
+     */
+    Map<String, String> environment() {
+        return ccache == null ? Map.of() : Map.of("CCACHE_SLOPPINESS", "pch_defines,time_macros,include_file_mtime");
+    }
+
+    /**
+     * The PCH include directory for the runtime's compiler and the configured flags, once built.
+     * Schedules the build on first use.
+     */
+    private Optional<Path> pchDirectory(RuntimeRegistry.LanguageRuntime runtime) {
+        if (!pchEnabled || pchHeaders.length == 0) {
+            return Optional.empty();
+        }
+        String key = pchKey(runtime);
+        Path ready = readyPch.get(key);
+        if (ready != null) {
+            return Optional.of(ready);
+        }
+
+        Path dir = pchRoot.resolve(key);
+        if (isComplete(dir)) {
+            // Built by an earlier run of the application
+            readyPch.put(key, dir);
+            return Optional.of(dir);
+        }
+        if (building.putIfAbsent(key, true) == null) {
+            builder.execute(() -> {
+                try {
+                    build(runtime, dir);
+                    readyPch.put(key, dir);
+                } catch (IOException e) {
+                    log.warn("Could not build precompiled headers: {}", e.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    building.remove(key);
+                }
+            });
+        }
+        return Optional.empty();
+    }
+
+    private boolean isComplete(Path dir) {
+        for (String header : pchHeaders) {
+            if (!Files.isRegularFile(dir.resolve(header + ".gch"))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Builds every header's stub and {@code .gch} in a staging directory and moves it into place.
+     */
+    private void build(RuntimeRegistry.LanguageRuntime runtime, Path dir) throws IOException, InterruptedException {
+        long startTime = System.currentTimeMillis();
+        Path staging = pchRoot.resolve("staging-" + UUID.randomUUID());
+        Files.createDirectories(staging);
+        try {
+            for (String header : pchHeaders) {
+                Path stub = staging.resolve(header);
+                Files.createDirectories(stub.getParent());
+                Files.writeString(stub, "#include_next <" + header + ">\n", StandardCharsets.UTF_8);
+
+                List<String> command = new ArrayList<>();
+                command.add(runtime.compiler());
+                command.addAll(List.of(flags));
+                command.addAll(List.of("-x", "c++-header", stub.toString(), "-o", stub + ".gch"));
+                Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+                if (!process.waitFor(PCH_BUILD_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                    throw new IOException("building the PCH for " + header + " timed out");
+                }
+                if (process.exitValue() != 0) {
+                    throw new IOException("g++ failed to precompile " + header);
+                }
+            }
+
+            try {
+                Files.move(staging, dir, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException | AtomicMoveNotSupportedException e) {
+                deleteRecursively(dir);
+                Files.move(staging, dir);
+            }
+            pruneExcept(dir);
+            pchBuilds.incrementAndGet();
+            pchBuildMs.addAndGet(System.currentTimeMillis() - startTime);
+            log.info("Precompiled {} for {} in {}ms", List.of(pchHeaders), runtime.version(),
+                System.currentTimeMillis() - startTime);
+        } finally {
+            deleteRecursively(staging);
+        }
+    }
+
+    /**
+     * Removes PCHs of earlier compiler versions or flags, about 100MB each.
+     */
+    private void pruneExcept(Path current) {
+        try (Stream<Path> dirs = Files.list(pchRoot)) {
+            dirs.filter(dir -> !dir.equals(current) && !dir.getFileName().toString().startsWith("staging-"))
+                .filter(dir -> !readyPch.containsValue(dir))
+                .forEach(CppToolchain::deleteRecursively);
+        } catch (IOException e) {
+            log.debug("Failed to prune {}", pchRoot, e);
+        }
+    }
+
+    private String pchKey(RuntimeRegistry.LanguageRuntime runtime) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(runtime.version()).getBytes(StandardCharsets.UTF_8));
+            for (String part : flags) {
+                digest.update((byte) 0);
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+            }
+            for (String header : pchHeaders) {
+                digest.update((byte) 1);
+                digest.update(header.getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String findOnPath(String name) {
+        String path = System.getenv("PATH");
+        if (path != null) {
+            for (String dir : path.split(File.pathSeparator)) {
+                Path candidate = Path.of(dir, name);
+                if (!dir.isEmpty() && Files.isExecutable(candidate)) {
+                    return candidate.toString();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void deleteRecursively(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.debug("Failed to delete {}", dir, e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pchEnabled", pchEnabled);
+        stats.put("pchReady", readyPch.size());
+        stats.put("pchBuilds", pchBuilds.get());
+        stats.put("pchBuildMs", pchBuildMs.get());
+        stats.put("compilesWithPch", compilesWithPch.get());
+        stats.put("compilesWithoutPch", compilesWithoutPch.get());
+        stats.put("ccache", ccache != null);
+        return stats;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        builder.shutdownNow();
+    }
+}
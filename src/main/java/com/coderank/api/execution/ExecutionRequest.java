@@ -12,5 +12,7 @@ public class ExecutionRequest {
     private Language language;
     private String code;
     private String input;
+    // Optional, receives output while a cold process runs
+    private OutputListener outputListener;
 }
 
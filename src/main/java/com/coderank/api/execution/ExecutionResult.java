@@ -11,8 +11,12 @@ public class ExecutionResult {
     private String output;
     private String error;
     private long executionTimeMs;
+    private long compileTimeMs;
     private long memoryUsedKb;
+    private long cpuTimeMs;
     private boolean timeout;
     private int exitCode;
+    private boolean outputTruncated;
+    private ResourceMonitor.Limit limitExceeded;
 }
 
@@ -0,0 +1,259 @@
+package com.coderank.api.execution;
+
+import com.coderank.api.domain.Language;
+import com.coderank.api.exception.ExecutionQueueFullException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs submissions on a dedicated thread pool with a concurrency limit per language and a bounded
+ * number of waiting submissions. Work is admitted up front so callers can turn a full queue into
+ * a rejection before they persist anything.
+ * <p>
+ * With adaptive limits enabled, a lane halves its limit whenever a run takes longer than the
+ * latency target and grows it back by one per run that finishes in time, never exceeding the
+ * configured limit.
+ * <p>
+ * With {@code spring.threads.virtual.enabled} each run gets its own virtual thread.
+ */
+@Component
+@Slf4j
+public class ExecutionScheduler {
+
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    @Value("${execution.scheduler.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${execution.scheduler.limits.python:4}")
+    private int pythonLimit;
+
+    @Value("${execution.scheduler.limits.javascript:4}")
+    private int javascriptLimit;
+
+    @Value("${execution.scheduler.limits.java:2}")
+    private int javaLimit;
+
+    @Value("${execution.scheduler.limits.cpp:2}")
+    private int cppLimit;
+
+    @Value("${execution.scheduler.adaptive.enabled:false}")
+    private boolean adaptive;
+
+    @Value("${execution.scheduler.adaptive.latency-target-ms:5000}")
+    private long latencyTargetMs;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final Map<Language, Lane> lanes = new EnumMap<>(Language.class);
+    private int waiting; // admitted but not yet running, guarded by this
+    private long rejected; // guarded by this
+    private double averageLatencyMs = 1000; // guarded by this
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        lanes.put(Language.PYTHON, new Lane(pythonLimit));
+        lanes.put(Language.JAVASCRIPT, new Lane(javascriptLimit));
+        lanes.put(Language.JAVA, new Lane(javaLimit));
+        lanes.put(Language.CPP, new Lane(cppLimit));
+
+        if (virtualThreads) {
+            executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("execution-", 1).factory());
+        } else {
+            AtomicInteger threads = new AtomicInteger();
+            executor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "execution-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Reserves a queue slot for a submission in {@code language}.
+     *
+     * @throws ExecutionQueueFullException when {@code queue-capacity} submissions are already waiting
+     */
+    public synchronized Admission admit(Language language) {
+        if (waiting >= queueCapacity) {
+            rejected++;
+            throw new ExecutionQueueFullException(
+                "Execution queue is full, please retry later", retryAfterSeconds());
+        }
+        waiting++;
+        return new Admission(lanes.get(language));
+    }
+
+    /**
+     * Languages whose lane could start another run right now, i.e. nothing is waiting in it and
+     * it is below its limit.
+     */
+    public synchronized Set<Language> idleLanguages() {
+        Set<Language> idle = EnumSet.noneOf(Language.class);
+        lanes.forEach((language, lane) -> {
+            if (lane.pending.isEmpty() && lane.running < lane.limit) {
+                idle.add(language);
+            }
+        });
+        return idle;
+    }
+
+    /**
+     * Takes up to {@code wanted} extra run slots in the lane of {@code language} for work that
+     * already runs under an admitted slot, such as further test cases of a batch. Only slots
+     * nothing waiting in the lane could use are taken, so the lane's limit, adaptive or not,
+     * still caps what runs. Each slot must be given back with {@link #release}.
+     *
+     * @return the number of slots taken, possibly 0
+     */
+    public synchronized int borrow(Language language, int wanted) {
+        Lane lane = lanes.get(language);
+        int granted = lane.pending.isEmpty() ? Math.max(0, Math.min(wanted, lane.limit - lane.running)) : 0;
+        lane.running += granted;
+        return granted;
+    }
+
+    /**
+     * Gives back a slot taken with {@link #borrow}.
+     */
+    public synchronized void release(Language language) {
+        Lane lane = lanes.get(language);
+        lane.running--;
+        dispatch(lane);
+    }
+
+    /**
+     * Estimates how long the current backlog takes to drain, from the average run latency.
+     */
+    private long retryAfterSeconds() {
+        int slots = lanes.values().stream().mapToInt(lane -> lane.limit).sum();
+        double drainMs = Math.ceil((double) waiting / Math.max(1, slots)) * averageLatencyMs;
+        return Math.max(1, (long) Math.ceil(drainMs / 1000));
+    }
+
+    private synchronized void enqueue(Lane lane, Runnable task) {
+        lane.pending.add(task);
+        dispatch(lane);
+    }
+
+    private synchronized void cancel() {
+        waiting--;
+    }
+
+    private void dispatch(Lane lane) {
+        while (lane.running < lane.limit && !lane.pending.isEmpty()) {
+            Runnable task = lane.pending.poll();
+            waiting--;
+            lane.running++;
+            executor.execute(() -> run(lane, task));
+        }
+    }
+
+    private void run(Lane lane, Runnable task) {
+        long startTime = System.currentTimeMillis();
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            log.error("Scheduled execution failed", e);
+        } finally {
+            complete(lane, System.currentTimeMillis() - startTime);
+        }
+    }
+
+    private synchronized void complete(Lane lane, long latencyMs) {
+        lane.running--;
+        lane.completed++;
+        averageLatencyMs += LATENCY_SMOOTHING * (latencyMs - averageLatencyMs);
+
+        if (adaptive) {
+            if (latencyMs > latencyTargetMs) {
+                lane.limit = Math.max(1, lane.limit / 2);
+            } else if (lane.limit < lane.maxLimit) {
+                lane.limit++;
+            }
+        }
+        dispatch(lane);
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("waiting", waiting);
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("rejected", rejected);
+        stats.put("averageLatencyMs", Math.round(averageLatencyMs));
+        lanes.forEach((language, lane) -> {
+            Map<String, Object> laneStats = new LinkedHashMap<>();
+            laneStats.put("limit", lane.limit);
+            laneStats.put("running", lane.running);
+            laneStats.put("pending", lane.pending.size());
+            laneStats.put("completed", lane.completed);
+            stats.put(language.name().toLowerCase(), laneStats);
+        });
+        return stats;
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * A reserved queue slot. Exactly one of {@link #start} or {@link #cancel} should be called.
+     */
+    public final class Admission {
+        private final Lane lane;
+        private boolean done;
+
+        private Admission(Lane lane) {
+            this.lane = lane;
+        }
+
+        public void start(Runnable task) {
+            if (!done) {
+                done = true;
+                enqueue(lane, task);
+            }
+        }
+
+        public void cancel() {
+            if (!done) {
+                done = true;
+                ExecutionScheduler.this.cancel();
+            }
+        }
+    }
+
+    private static final class Lane {
+        private final int maxLimit;
+        private final Deque<Runnable> pending = new ArrayDeque<>();
+        private int limit;
+        private int running;
+        private long completed;
+
+        private Lane(int maxLimit) {
+            this.maxLimit = Math.max(1, maxLimit);
+            this.limit = this.maxLimit;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.coderank.api.execution;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles JAVA submissions with the JDK's {@link JavaCompiler} inside the application JVM,
+ * keeping sources and class files in memory instead of forking {@code javac}. Only available
+ * when the application runs on a JDK (the {@code jdk.compiler} module is not part of a JRE).
+ * <p>
+ * javac does not answer interrupts, so a compile that overruns cannot be stopped, only abandoned:
+ * in-process compiles are limited to small sources and a short timeout, and while an abandoned one
+ * still runs, every source goes to the external {@code javac} instead.
+ * <p>
+ * The class path is empty rather than the application's, so submissions compile against the JDK
+ * alone, as they do with the external {@code javac} and as they run.
+ */
+@Slf4j
+@Component
+public class InMemoryJavaCompiler {
+
+    private static final List<String> OPTIONS = List.of("-proc:none", "-encoding", "UTF-8");
+    private static final Pattern MAJOR_VERSION = Pattern.compile("(?:1\\.)?(\\d+)");
+
+    @Value("${execution.compile.in-process.max-source-chars:5000}")
+    private int maxSourceChars;
+
+    @Value("${execution.compile.in-process.timeout-ms:5000}")
+    private long timeoutMs;
+
+    private final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    // Compiles that overran their timeout and are still running
+    private final AtomicInteger abandoned = new AtomicInteger();
+    private final AtomicInteger threads = new AtomicInteger();
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "javac-in-process-" + threads.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Reusing file managers keeps the JDK's class index open between compiles; each is used by one compile at a time
+    private final Queue<StandardJavaFileManager> fileManagers = new ConcurrentLinkedQueue<>();
+
+    public boolean isAvailable() {
+        return compiler != null;
+    }
+
+    /**
+     * Whether {@code source} may be compiled in process right now, rather than by the external
+     * {@code javac}.
+     */
+    public boolean accepts(String source) {
+        return isAvailable() && source.length() <= maxSourceChars && abandoned.get() == 0;
+    }
+
+    /**
+     * Identifies this compiler in compile cache keys.
+     */
+    public String getVersion() {
+        return "in-process javac " + Runtime.version();
+    }
+
+    /**
+     * The {@code javac} options needed for class files to load on the given runtime, which may be
+     * an older JDK than the one the application runs on.
+     */
+    public List<String> targetOptions(RuntimeRegistry.LanguageRuntime runtime) {
+        Matcher matcher = MAJOR_VERSION.matcher(String.valueOf(runtime.version()));
+        if (matcher.find() && Integer.parseInt(matcher.group(1)) < Runtime.version().feature()) {
+            return List.of("--release", matcher.group(1));
+        }
+        return List.of();
+    }
+
+    /**
+     * Compiles {@code source} (declaring {@code className}) and writes the resulting class files to
+     * {@code outputDir}. Returns {@code null} on success or javac-style diagnostics on failure.
+     *
+     * @throws TimeoutException when javac is still running after the in-process timeout or
+     *                          {@code budgetMs}, whichever is shorter; the compile is abandoned and
+     *                          writes nothing
+     */
+    public CompileCache.CompileFailure compile(String className, String source, List<String> targetOptions,
+                                               Path outputDir, long budgetMs)
+            throws IOException, InterruptedException, TimeoutException {
+        Map<String, ByteArrayOutputStream> classes = new TreeMap<>();
+        // Claimed by whichever comes first, the end of the compile or the caller giving up on it
+        AtomicBoolean settled = new AtomicBoolean();
+        Future<CompileCache.CompileFailure> future = executor.submit(() -> {
+            try {
+                return compile(className, source, targetOptions, classes);
+            } finally {
+                if (!settled.compareAndSet(false, true)) {
+                    abandoned.decrementAndGet();
+                }
+            }
+        });
+
+        try {
+            CompileCache.CompileFailure failure = future.get(Math.min(timeoutMs, budgetMs), TimeUnit.MILLISECONDS);
+            if (failure != null) {
+                return failure;
+            }
+        } catch (TimeoutException | InterruptedException e) {
+            // Not interrupted: javac would ignore it, or worse, close the shared file manager's channels
+            abandoned.incrementAndGet();
+            if (settled.compareAndSet(false, true)) {
+                log.warn("Abandoned an in-process compile of {} chars still running after {}ms",
+                    source.length(), Math.min(timeoutMs, budgetMs));
+            } else {
+                abandoned.decrementAndGet();
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(cause);
+        }
+
+        for (Map.Entry<String, ByteArrayOutputStream> entry : classes.entrySet()) {
+            Path classFile = outputDir.resolve(entry.getKey().replace('.', '/') + ".class");
+            Files.createDirectories(classFile.getParent());
+            Files.write(classFile, entry.getValue().toByteArray());
+        }
+        return null;
+    }
+
+    private CompileCache.CompileFailure compile(String className, String source, List<String> targetOptions,
+                                                Map<String, ByteArrayOutputStream> classes) {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        List<String> options = new ArrayList<>(OPTIONS);
+        options.addAll(targetOptions);
+
+        StandardJavaFileManager standard = fileManagers.poll();
+        if (standard == null) {
+            standard = newFileManager();
+        }
+        try {
+            JavaFileObject unit = new SourceFile(className, source);
+            boolean success = compiler.getTask(null, new MemoryFileManager(standard, classes), diagnostics, options,
+                null, List.of(unit)).call();
+            return success ? null : new CompileCache.CompileFailure(1, format(diagnostics.getDiagnostics(), source));
+        } finally {
+            fileManagers.offer(standard);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private StandardJavaFileManager newFileManager() {
+        StandardJavaFileManager standard = compiler.getStandardFileManager(null, Locale.ROOT, StandardCharsets.UTF_8);
+        try {
+            standard.setLocation(StandardLocation.CLASS_PATH, List.of());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return standard;
+    }
+
+    /**
+     * Renders diagnostics the way the {@code javac} command line does, so users see the same
+     * messages as before.
+     */
+    private static String format(List<Diagnostic<? extends JavaFileObject>> diagnostics, String source) {
+        String[] lines = source.split("\n", -1);
+        StringBuilder out = new StringBuilder();
+        int errors = 0;
+        int warnings = 0;
+
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics) {
+            String kind = switch (diagnostic.getKind()) {
+                case ERROR -> "error";
+                case WARNING, MANDATORY_WARNING -> "warning";
+                default -> null;
+            };
+            String message = diagnostic.getMessage(Locale.ROOT);
+            if (kind == null) {
+                out.append("Note: ").append(message).append('\n');
+                continue;
+            }
+            if (kind.equals("error")) {
+                errors++;
+            } else {
+                warnings++;
+            }
+
+            long line = diagnostic.getLineNumber();
+            if (diagnostic.getSource() != null && line > 0) {
+                out.append(diagnostic.getSource().getName()).append(':').append(line).append(": ");
+            }
+            out.append(kind).append(": ").append(message).append('\n');
+
+            if (line > 0 && line <= lines.length && diagnostic.getColumnNumber() > 0) {
+                String text = lines[(int) line - 1].stripTrailing();
+                out.append(text).append('\n');
+                out.append(" ".repeat((int) Math.min(diagnostic.getColumnNumber() - 1, text.length()))).append("^\n");
+            }
+        }
+
+        if (errors > 0) {
+            out.append(errors).append(errors == 1 ? " error\n" : " errors\n");
+        }
+        if (warnings > 0) {
+            out.append(warnings).append(warnings == 1 ? " warning\n" : " warnings\n");
+        }
+        return out.toString();
+    }
+
+    private static final class SourceFile extends SimpleJavaFileObject {
+        private final String source;
+
+        private SourceFile(String className, String source) {
+            super(URI.create("string:///" + className + Kind.SOURCE.extension), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public String getName() {
+            return toUri().getPath().substring(1);
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+
+    private static final class ClassFile extends SimpleJavaFileObject {
+        private final ByteArrayOutputStream bytes;
+
+        private ClassFile(String className, ByteArrayOutputStream bytes) {
+            super(URI.create("bytes:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+            this.bytes = bytes;
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return bytes;
+        }
+    }
+
+    private static final class MemoryFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+        private final Map<String, ByteArrayOutputStream> classes;
+
+        private MemoryFileManager(JavaFileManager delegate, Map<String, ByteArrayOutputStream> classes) {
+            super(delegate);
+            this.classes = classes;
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                                                   FileObject sibling) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            classes.put(className, bytes);
+            return new ClassFile(className, bytes);
+        }
+    }
+}
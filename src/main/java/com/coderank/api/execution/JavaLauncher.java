@@ -0,0 +1,349 @@
+package com.coderank.api.execution;
+
+import com.coderank.api.domain.Language;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Builds the command that launches a compiled JAVA submission in a fresh JVM: a startup-oriented
+ * flag profile plus a class-data-sharing archive of the JDK classes submissions typically load.
+ * <p>
+ * The archive is dumped from the class list of a training program ({@code cds/CdsTraining.java})
+ * run on the submission JDK, with the same flags, and is keyed by that JDK's installation and the
+ * flags, so a JDK upgrade or a flag change builds a new one. It only holds JDK classes and is
+ * dumped without an application class path, which keeps it valid for any submission's class
+ * path. It is mapped with {@code -Xshare:auto}, so an archive the JVM rejects just costs time.
+ * <p>
+ * Each launch logs the JVM's own startup time to its working directory, from which
+ * {@link #getStats()} reports the average.
+ */
+@Component
+@Slf4j
+public class JavaLauncher {
+
+    private static final String TRAINING_CLASS = "CdsTraining";
+    private static final String ARCHIVE_NAME = "classes.jsa";
+    private static final String STARTUP_LOG = ".jvm-startup.log";
+    private static final long ARCHIVE_BUILD_TIMEOUT_SECONDS = 60;
+    private static final Pattern GC_OPTION = Pattern.compile("-XX:[+-]Use\\w+GC");
+
+    @Autowired
+    private RuntimeRegistry runtimeRegistry;
+
+    @Value("${execution.java.options:-XX:TieredStopAtLevel=1,-XX:+UseSerialGC,-XX:-UsePerfData,-Xmx256m}")
+    private String[] options;
+
+    @Value("${execution.java.cds.enabled:true}")
+    private boolean cdsEnabled;
+
+    @Value("${execution.java.cds.dir:${java.io.tmpdir}/coderank-cds}")
+    private Path cdsRoot;
+
+    @Value("${execution.java.measure-startup:true}")
+    private boolean measureStartup;
+
+    private final Map<String, Path> readyArchives = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> building = new ConcurrentHashMap<>();
+    private final AtomicLong archiveBuilds = new AtomicLong();
+    private final AtomicLong archiveBuildMs = new AtomicLong();
+    private final AtomicLong launches = new AtomicLong();
+    private final AtomicLong archiveLaunches = new AtomicLong();
+    private final AtomicLong measured = new AtomicLong();
+    private final AtomicLong totalStartupMicros = new AtomicLong();
+    private final AtomicLong measuredWithArchive = new AtomicLong();
+    private final AtomicLong totalStartupMicrosWithArchive = new AtomicLong();
+
+    private ExecutorService builder;
+
+    @PostConstruct
+    void start() {
+        builder = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cds-builder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        RuntimeRegistry.LanguageRuntime runtime = runtimeRegistry.get(Language.JAVA);
+        if (runtime != null && runtime.available()) {
+            archive(runtime);
+        }
+    }
+
+    /**
+     * The command that runs {@code className} from {@code classesDir} with {@code workDir} as the
+     * working directory.
+     */
+    Launch launch(RuntimeRegistry.LanguageRuntime runtime, Path classesDir, String className, Path workDir) {
+        List<String> command = new ArrayList<>();
+        command.add(runtime.executable());
+        command.addAll(List.of(options));
+        Optional<Path> archive = archive(runtime);
+        archive.ifPresent(path -> command.addAll(List.of("-XX:SharedArchiveFile=" + path, "-Xshare:auto")));
+        Path startupLog = null;
+        if (measureStartup) {
+            startupLog = workDir.resolve(STARTUP_LOG);
+            command.add("-Xlog:startuptime:file=" + startupLog + ":none");
+        }
+        command.addAll(List.of("-cp", classesDir.toString(), className));
+
+        launches.incrementAndGet();
+        if (archive.isPresent()) {
+            archiveLaunches.incrementAndGet();
+        }
+        return new Launch(command, startupLog, archive.isPresent());
+    }
+
+    List<String> getOptions() {
+        return List.of(options);
+    }
+
+    /**
+     * Records how long the JVM of a finished launch took to start, as it logged it.
+     */
+    void recordStartup(Launch launch) {
+        if (launch.startupLog() == null) {
+            return;
+        }
+        try (Stream<String> lines = Files.lines(launch.startupLog())) {
+            // e.g. "Create VM, 0.0318398 secs"
+            lines.filter(line -> line.startsWith("Create VM, "))
+                .findFirst()
+                .ifPresent(line -> {
+                    long micros = Math.round(Double.parseDouble(line.split(" ")[2]) * 1_000_000);
+                    measured.incrementAndGet();
+                    totalStartupMicros.addAndGet(micros);
+                    if (launch.archived()) {
+                        measuredWithArchive.incrementAndGet();
+                        totalStartupMicrosWithArchive.addAndGet(micros);
+                    }
+                });
+        } catch (IOException | RuntimeException e) {
+            // Killed before it got that far, or the submission deleted the log
+            log.debug("No startup time for {}", launch.startupLog(), e);
+        }
+    }
+
+    /**
+     * The archive for the runtime's JDK and the configured flags, once built. Schedules the
+     * build on first use.
+     */
+    private Optional<Path> archive(RuntimeRegistry.LanguageRuntime runtime) {
+        if (!cdsEnabled) {
+            return Optional.empty();
+        }
+        String key = archiveKey(runtime);
+        Path ready = readyArchives.get(key);
+        if (ready != null) {
+            return Optional.of(ready);
+        }
+
+        Path dir = cdsRoot.resolve(key);
+        if (Files.isRegularFile(dir.resolve(ARCHIVE_NAME))) {
+            // Built by an earlier run of the application
+            readyArchives.put(key, dir.resolve(ARCHIVE_NAME));
+            return Optional.of(dir.resolve(ARCHIVE_NAME));
+        }
+        if (building.putIfAbsent(key, true) == null) {
+            builder.execute(() -> {
+                try {
+                    build(runtime, dir);
+                    readyArchives.put(key, dir.resolve(ARCHIVE_NAME));
+                } catch (IOException e) {
+                    log.warn("Could not build the class-data-sharing archive: {}", e.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    building.remove(key);
+                }
+            });
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Compiles and runs the training program to collect its class list, then dumps the JDK
+     * classes in it, all in a staging directory that is moved into place when done.
+     */
+    private void build(RuntimeRegistry.LanguageRuntime runtime, Path dir) throws IOException, InterruptedException {
+        long startTime = System.currentTimeMillis();
+        Path staging = cdsRoot.resolve("staging-" + UUID.randomUUID());
+        Files.createDirectories(staging);
+        try {
+            Path source = staging.resolve(TRAINING_CLASS + ".java");
+            try (InputStream in = JavaLauncher.class.getResourceAsStream("/cds/" + TRAINING_CLASS + ".java")) {
+                if (in == null) {
+                    throw new IOException("Missing training program /cds/" + TRAINING_CLASS + ".java");
+                }
+                Files.write(source, in.readAllBytes());
+            }
+            Path classes = staging.resolve("classes");
+            exec(staging, List.of(runtime.compiler(), "-d", classes.toString(), source.toString()));
+
+            Path classList = staging.resolve("classes.lst");
+            List<String> training = new ArrayList<>();
+            training.add(runtime.executable());
+            training.addAll(List.of(options));
+            training.addAll(List.of("-Xshare:off", "-XX:DumpLoadedClassList=" + classList,
+                "-cp", classes.toString(), TRAINING_CLASS));
+            exec(staging, training);
+
+            // Only JDK classes, which resolve without a class path
+            Path jdkClassList = staging.resolve("jdk.lst");
+            try (Stream<String> lines = Files.lines(classList)) {
+                Files.write(jdkClassList, lines.filter(line -> !line.contains(TRAINING_CLASS)).toList());
+            }
+            // Archived heap objects, which include the module graph, can only be dumped with G1;
+            // JVMs on other collectors map them anyway where the JDK supports it
+            List<String> dump = new ArrayList<>();
+            dump.add(runtime.executable());
+            dump.addAll(Stream.of(options).filter(option -> !GC_OPTION.matcher(option).matches()).toList());
+            dump.addAll(List.of("-XX:+UseG1GC", "-Xshare:dump", "-XX:SharedClassListFile=" + jdkClassList,
+                "-XX:SharedArchiveFile=" + staging.resolve(ARCHIVE_NAME)));
+            exec(staging, dump);
+
+            for (String leftover : List.of(TRAINING_CLASS + ".java", "classes.lst", "jdk.lst")) {
+                Files.deleteIfExists(staging.resolve(leftover));
+            }
+            deleteRecursively(classes);
+            try {
+                Files.move(staging, dir, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException | AtomicMoveNotSupportedException e) {
+                deleteRecursively(dir);
+                Files.move(staging, dir);
+            }
+            pruneExcept(dir);
+            long elapsed = System.currentTimeMillis() - startTime;
+            archiveBuilds.incrementAndGet();
+            archiveBuildMs.addAndGet(elapsed);
+            log.info("Built class-data-sharing archive for {} in {}ms", runtime.version(), elapsed);
+        } finally {
+            deleteRecursively(staging);
+        }
+    }
+
+    private static void exec(Path dir, List<String> command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command)
+            .directory(dir.toFile())
+            .redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .start();
+        process.getOutputStream().close();
+        if (!process.waitFor(ARCHIVE_BUILD_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            throw new IOException(command.get(0) + " timed out");
+        }
+        if (process.exitValue() != 0) {
+            throw new IOException(String.join(" ", command) + " exited with " + process.exitValue());
+        }
+    }
+
+    /**
+     * Removes archives of earlier JDKs or flags.
+     */
+    private void pruneExcept(Path current) {
+        try (Stream<Path> dirs = Files.list(cdsRoot)) {
+            dirs.filter(dir -> !dir.equals(current) && !dir.getFileName().toString().startsWith("staging-"))
+                .filter(dir -> !readyArchives.containsValue(dir.resolve(ARCHIVE_NAME)))
+                .forEach(JavaLauncher::deleteRecursively);
+        } catch (IOException e) {
+            log.debug("Failed to prune {}", cdsRoot, e);
+        }
+    }
+
+    /**
+     * Hashes what the archive depends on: the JDK installation, down to when its module image
+     * was last replaced, and the flags.
+     */
+    private String archiveKey(RuntimeRegistry.LanguageRuntime runtime) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            Path executable = Path.of(runtime.executable());
+            try {
+                executable = executable.toRealPath();
+                Path home = executable.getParent() == null ? null : executable.getParent().getParent();
+                if (home != null && Files.exists(home.resolve("lib/modules"))) {
+                    digest.update(Files.getLastModifiedTime(home.resolve("lib/modules")).toString()
+                        .getBytes(StandardCharsets.UTF_8));
+                }
+            } catch (IOException e) {
+                // Falls back to the path and version alone
+            }
+            digest.update(executable.toString().getBytes(StandardCharsets.UTF_8));
+            digest.update(String.valueOf(runtime.version()).getBytes(StandardCharsets.UTF_8));
+            for (String option : options) {
+                digest.update((byte) 0);
+                digest.update(option.getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteRecursively(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.debug("Failed to delete {}", dir, e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long count = measured.get();
+        long countWithArchive = measuredWithArchive.get();
+        stats.put("cdsEnabled", cdsEnabled);
+        stats.put("archiveReady", readyArchives.size());
+        stats.put("archiveBuilds", archiveBuilds.get());
+        stats.put("archiveBuildMs", archiveBuildMs.get());
+        stats.put("launches", launches.get());
+        stats.put("archiveLaunches", archiveLaunches.get());
+        stats.put("averageStartupMs", count == 0 ? 0 : totalStartupMicros.get() / 1000.0 / count);
+        stats.put("averageStartupMsWithArchive",
+            countWithArchive == 0 ? 0 : totalStartupMicrosWithArchive.get() / 1000.0 / countWithArchive);
+        return stats;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        builder.shutdownNow();
+    }
+
+    /**
+     * One JVM launch: its command and where its startup time gets logged, if anywhere.
+     */
+    record Launch(List<String> command, Path startupLog, boolean archived) {
+    }
+}
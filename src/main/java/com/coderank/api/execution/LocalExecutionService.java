@@ -2,15 +2,29 @@ package com.coderank.api.execution;
 
 import com.coderank.api.domain.Language;
 import com.coderank.api.exception.ExecutionTimeoutException;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -18,130 +32,519 @@ import java.util.regex.Pattern;
 @Slf4j
 public class LocalExecutionService {
 
+    private static final String BINARY_NAME =
+        System.getProperty("os.name").toLowerCase().startsWith("windows") ? "program.exe" : "program";
+    private static final long STREAM_DRAIN_TIMEOUT_MS = 1000;
+    // Stays well below the kernel's 128KB limit on a single argument, whatever the encoding
+    private static final int MAX_INLINE_SOURCE_CHARS = 32 * 1024;
+    // A submission that exits the JVM takes a pooled JAVA worker down with it, so code that looks like it
+    // might runs unpooled; the worker still answers for what slips through, e.g. an exit by reflection
+    private static final Pattern JVM_EXIT = Pattern.compile("\\b(exit|halt)\\s*\\(|::\\s*(exit|halt)\\b|\"(exit|halt)\"");
+
     @Value("${execution.timeout:10}")
     private long executionTimeout;
 
+    @Value("${execution.workspace.inline-source:false}")
+    private boolean inlineSource;
+
+    @Value("${execution.output.buffer-bytes:65536}")
+    private int outputBufferBytes;
+
+    @Value("${execution.output.max-bytes:4194304}")
+    private long maxOutputBytes;
+
+    @Autowired
+    private WorkerPool workerPool;
+
+    @Autowired
+    private CppToolchain cppToolchain;
+
+    @Autowired
+    private JavaLauncher javaLauncher;
+
+    @Autowired
+    private CompileCache compileCache;
+
+    @Autowired
+    private RuntimeRegistry runtimeRegistry;
+
+    @Autowired
+    private InMemoryJavaCompiler javaCompiler;
+
+    @Autowired
+    private ResourceMonitor resourceMonitor;
+
+    @Autowired
+    private WorkspacePool workspacePool;
+
+    @Autowired
+    private ProcessTreeManager processTreeManager;
+
+    @Autowired
+    private CompileStage compileStage;
+
+    @Autowired
+    private ExecutionScheduler executionScheduler;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // Pipe reads block the carrier of a virtual thread, so stream draining stays on platform threads
+    private final ExecutorService streamExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "execution-io");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ExecutorService caseExecutor;
+
+    @PostConstruct
+    void start() {
+        caseExecutor = virtualThreads
+            ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("execution-case-", 1).factory())
+            : Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "execution-case");
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    /**
+     * Outcome of {@link #executeBatch}: either the compile failure or one result per input.
+     */
+    public record BatchResult(ExecutionResult failure, List<ExecutionResult> cases, long compileTimeMs) {
+    }
+
+    /**
+     * Compiles the request when needed, then runs it. The run timeout starts once compiling is
+     * done; the compile stage has a timeout of its own.
+     */
     public ExecutionResult execute(ExecutionRequest request) {
         long startTime = System.currentTimeMillis();
-        Path tempDir = null;
 
+        try (Program program = prepare(request, startTime)) {
+            if (program.failure != null) {
+                return program.failure;
+            }
+            ExecutionResult result = run(program, request.getInput(), System.currentTimeMillis());
+            result.setCompileTimeMs(program.compileTimeMs);
+            return result;
+
+        } catch (ExecutionTimeoutException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error executing code", e);
+            return failed(e, startTime);
+        }
+    }
+
+    /**
+     * Compiles the request once and runs it against every input, up to {@code parallelism} inputs
+     * at a time. The batch itself holds one slot of its language's scheduler lane; every further
+     * input running alongside takes another, so a batch only runs in parallel as far as the lane
+     * has slots free once compiling is done. Each run gets the full execution timeout. Once {@code stopAfter} accepts the
+     * result for an input (by index), inputs that have not started yet are skipped and left
+     * {@code null} in the result.
+     */
+    public BatchResult executeBatch(ExecutionRequest request, List<String> inputs, int parallelism,
+                                    BiPredicate<Integer, ExecutionResult> stopAfter) {
+        long startTime = System.currentTimeMillis();
+
+        try (Program program = prepare(request, startTime)) {
+            if (program.failure != null) {
+                return new BatchResult(program.failure, List.of(), program.compileTimeMs);
+            }
+
+            ExecutionResult[] results = new ExecutionResult[inputs.size()];
+            AtomicInteger next = new AtomicInteger();
+            AtomicBoolean stopped = new AtomicBoolean();
+            Runnable runner = () -> {
+                int index;
+                while (!stopped.get() && (index = next.getAndIncrement()) < inputs.size()) {
+                    ExecutionResult result = runCase(program, inputs.get(index));
+                    results[index] = result;
+                    if (stopAfter.test(index, result)) {
+                        stopped.set(true);
+                    }
+                }
+            };
+
+            // This thread is one of the runners, on the lane slot the batch was admitted with
+            Language language = request.getLanguage();
+            int slots = executionScheduler.borrow(language, Math.min(parallelism, inputs.size()) - 1);
+            List<Future<?>> helpers = new ArrayList<>();
+            for (int i = 0; i < slots; i++) {
+                helpers.add(caseExecutor.submit(() -> {
+                    try {
+                        runner.run();
+                    } finally {
+                        executionScheduler.release(language);
+                    }
+                }));
+            }
+            runner.run();
+            for (Future<?> helper : helpers) {
+                helper.get();
+            }
+            return new BatchResult(null, Arrays.asList(results), program.compileTimeMs);
+
+        } catch (ExecutionTimeoutException e) {
+            return new BatchResult(ExecutionResult.builder()
+                .output("")
+                .error(e.getMessage())
+                .executionTimeMs(System.currentTimeMillis() - startTime)
+                .timeout(true)
+                .exitCode(-1)
+                .build(), List.of(), 0);
+        } catch (Exception e) {
+            log.error("Error executing batch", e);
+            return new BatchResult(failed(e, startTime), List.of(), 0);
+        }
+    }
+
+    private ExecutionResult runCase(Program program, String input) {
+        long startTime = System.currentTimeMillis();
         try {
-            // Check if language runtime is available
-            String runtimeCheck = checkLanguageRuntime(request.getLanguage());
-            if (runtimeCheck != null) {
-                return ExecutionResult.builder()
+            return run(program, input, startTime);
+        } catch (ExecutionTimeoutException e) {
+            return ExecutionResult.builder()
+                .output("")
+                .error(e.getMessage())
+                .executionTimeMs(System.currentTimeMillis() - startTime)
+                .timeout(true)
+                .exitCode(-1)
+                .build();
+        } catch (Exception e) {
+            log.error("Error executing test case", e);
+            return failed(e, startTime);
+        }
+    }
+
+    /**
+     * Checks the runtime and compiles the source when the language needs it. The returned
+     * program holds the compiled artifact until closed.
+     */
+    private Program prepare(ExecutionRequest request, long startTime) throws IOException, InterruptedException {
+        Program program = new Program(request);
+
+        // Fail fast if the language runtime was not found
+        if (!program.runtime.available()) {
+            program.failure = ExecutionResult.builder()
+                .output("")
+                .error(getInstallationMessage(request.getLanguage()))
+                .executionTimeMs(System.currentTimeMillis() - startTime)
+                .memoryUsedKb(0)
+                .timeout(false)
+                .exitCode(-1)
+                .build();
+            return program;
+        }
+
+        // Compiled languages are built into the compile cache and run from there
+        if (isCompiled(request.getLanguage())) {
+            CompileCache.Outcome compiled = compile(program.runtime, program.fileName, request.getCode());
+            program.compileTimeMs = System.currentTimeMillis() - startTime;
+            if (compiled.failure() != null) {
+                program.failure = ExecutionResult.builder()
                     .output("")
-                    .error(runtimeCheck)
-                    .executionTimeMs(System.currentTimeMillis() - startTime)
+                    .error(compiled.failure().diagnostics())
+                    .compileTimeMs(program.compileTimeMs)
                     .memoryUsedKb(0)
                     .timeout(false)
-                    .exitCode(-1)
+                    .exitCode(compiled.failure().exitCode())
                     .build();
+                return program;
             }
+            program.artifact = compiled.lease();
+        }
+        return program;
+    }
 
-            // Create temporary directory and file
-            tempDir = Files.createTempDirectory("coderank_");
-            String fileName = getFileName(request.getLanguage(), request.getCode());
-            Path codeFile = tempDir.resolve(fileName);
-            Files.writeString(codeFile, request.getCode());
+    private ExecutionResult run(Program program, String input, long startTime) throws IOException, InterruptedException {
+        Language language = program.runtime.language();
+        String code = program.code;
 
-            // Get execution command based on language
-            String[] command = getExecutionCommand(request.getLanguage(), fileName, tempDir);
+        // Hand the program to a warm worker when one is idle; compiled JAVA classes are loaded into a warm JVM
+        if (!isCompiled(language)) {
+            Optional<ExecutionResult> pooled = runPooled(language, code, input, startTime);
+            if (pooled.isPresent()) {
+                return replayOutput(program, pooled.get());
+            }
+        } else if (language == Language.JAVA && !JVM_EXIT.matcher(code).find()) {
+            String payload = program.artifact.getDir() + "\n" + program.fileName.replace(".java", "");
+            Optional<ExecutionResult> pooled = runPooled(Language.JAVA, payload, input, startTime);
+            if (pooled.isPresent()) {
+                return replayOutput(program, pooled.get());
+            }
+        }
 
-            // Execute the process
-            ProcessBuilder processBuilder = new ProcessBuilder(command);
-            processBuilder.directory(tempDir.toFile());
-            processBuilder.redirectErrorStream(false);
+        // Take a recycled working directory; sources are only written where a file is needed
+        try (WorkspacePool.Workspace workspace = workspacePool.acquire()) {
+            Path workDir = workspace.getDir();
 
-            Process process = processBuilder.start();
+            // A single-use worker takes the place of the process launched below
+            Optional<Process> handedOff = workerPool.handOff(language, code, workDir);
+            JavaLauncher.Launch launch = null;
+            long runStartTime;
+            Process process;
+            if (handedOff.isPresent()) {
+                runStartTime = System.currentTimeMillis();
+                process = handedOff.get();
+            } else {
+                boolean inline = inlineSource && !isCompiled(language) && code.length() <= MAX_INLINE_SOURCE_CHARS;
+                if (!isCompiled(language) && !inline) {
+                    Files.writeString(workDir.resolve(program.fileName), code);
+                }
 
-            // Handle input if provided
-            if (request.getInput() != null && !request.getInput().isEmpty()) {
-                process.getOutputStream().write(request.getInput().getBytes());
-                process.getOutputStream().flush();
-                process.getOutputStream().close();
-            }
+                // Get execution command based on language
+                String[] command;
+                if (inline) {
+                    command = getInlineCommand(program.runtime, code);
+                } else if (language == Language.JAVA) {
+                    launch = javaLauncher.launch(program.runtime, program.artifact.getDir(),
+                        program.fileName.replace(".java", ""), workDir);
+                    command = launch.command().toArray(String[]::new);
+                } else {
+                    command = getExecutionCommand(program.runtime, program.fileName,
+                        program.artifact != null ? program.artifact.getDir() : workDir);
+                }
 
-            // Wait for completion with timeout
-            boolean finished = process.waitFor(executionTimeout, TimeUnit.SECONDS);
-            long executionTime = System.currentTimeMillis() - startTime;
+                // Execute the process
+                ProcessBuilder processBuilder = new ProcessBuilder(command);
+                processBuilder.directory(workDir.toFile());
+                processBuilder.redirectErrorStream(false);
 
-            if (!finished) {
-                process.destroyForcibly();
-                throw new ExecutionTimeoutException("Execution exceeded timeout of " + executionTimeout + " seconds");
+                runStartTime = System.currentTimeMillis();
+                process = processBuilder.start();
             }
+            // The worker's own boot does not count against the program
+            ResourceMonitor.Watch usage = resourceMonitor.watch(process.toHandle(), handedOff.isPresent());
+            OutputCapture capture;
+            long executionTime;
 
-            // Read output and error streams
-            StringBuilder output = new StringBuilder();
-            StringBuilder error = new StringBuilder();
+            // Whatever is left of the process tree is killed when this block exits
+            try (ProcessTreeManager.Tree tree = processTreeManager.track(process)) {
+                // Drain output concurrently and feed input while the process runs
+                capture = OutputCapture.start(process, input, outputBufferBytes, maxOutputBytes,
+                    program.outputListener, streamExecutor);
 
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    output.append(line).append("\n");
-                }
-            }
+                // Wait for completion with timeout
+                boolean finished = awaitExit(process, remainingMillis(startTime));
+                executionTime = System.currentTimeMillis() - runStartTime;
+                usage.stop();
 
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getErrorStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    error.append(line).append("\n");
+                if (!finished) {
+                    tree.kill();
+                    throw new ExecutionTimeoutException("Execution exceeded timeout of " + executionTimeout + " seconds");
                 }
             }
 
+            capture.await(STREAM_DRAIN_TIMEOUT_MS);
             int exitCode = process.exitValue();
+            if (launch != null) {
+                javaLauncher.recordStartup(launch);
+            }
+
+            String error = capture.getError();
+            if (usage.getExceeded() != null) {
+                error += "\n" + resourceMonitor.describe(usage.getExceeded()) + "\n";
+            }
 
             return ExecutionResult.builder()
-                .output(output.toString())
-                .error(error.toString())
+                .output(capture.getOutput())
+                .error(error)
                 .executionTimeMs(executionTime)
-                .memoryUsedKb(0) // Not measuring memory in local execution
+                .memoryUsedKb(usage.getPeakMemoryKb())
+                .cpuTimeMs(usage.getCpuTimeMs())
                 .timeout(false)
                 .exitCode(exitCode)
+                .outputTruncated(capture.isTruncated())
+                .limitExceeded(usage.getExceeded())
                 .build();
+        }
+    }
 
-        } catch (ExecutionTimeoutException e) {
-            throw e;
-        } catch (Exception e) {
-            log.error("Error executing code", e);
-            return ExecutionResult.builder()
-                .output("")
-                .error("Execution failed: " + e.getMessage())
-                .executionTimeMs(System.currentTimeMillis() - startTime)
-                .memoryUsedKb(0)
-                .timeout(false)
-                .exitCode(-1)
-                .build();
-        } finally {
-            // Cleanup temporary files
-            if (tempDir != null) {
-                try {
-                    Files.walk(tempDir)
-                        .sorted((a, b) -> -a.compareTo(b))
-                        .forEach(path -> {
-                            try {
-                                Files.deleteIfExists(path);
-                            } catch (Exception e) {
-                                log.warn("Failed to delete: " + path, e);
-                            }
-                        });
-                } catch (Exception e) {
-                    log.error("Failed to cleanup temp directory", e);
-                }
+    /**
+     * Warm workers answer with the complete output, so a listener gets it in one chunk per stream
+     * once the run is over.
+     */
+    private static ExecutionResult replayOutput(Program program, ExecutionResult result) {
+        if (program.outputListener != null) {
+            if (!result.getOutput().isEmpty()) {
+                program.outputListener.onOutput("stdout", result.getOutput());
+            }
+            if (!result.getError().isEmpty()) {
+                program.outputListener.onOutput("stderr", result.getError());
             }
         }
+        return result;
     }
 
-    private String[] getExecutionCommand(Language language, String fileName, Path workDir) {
-        return switch (language) {
-            case PYTHON -> new String[]{"python", fileName};
-            case JAVA -> {
-                String className = fileName.replace(".java", "");
-                yield new String[]{"cmd", "/c", "javac " + fileName + " && java " + className};
+    private ExecutionResult failed(Exception e, long startTime) {
+        return ExecutionResult.builder()
+            .output("")
+            .error("Execution failed: " + e.getMessage())
+            .executionTimeMs(System.currentTimeMillis() - startTime)
+            .memoryUsedKb(0)
+            .timeout(false)
+            .exitCode(-1)
+            .build();
+    }
+
+    private Optional<ExecutionResult> runPooled(Language language, String payload, String input, long startTime) {
+        try {
+            return workerPool.execute(language, payload, input, remainingMillis(startTime));
+        } catch (TimeoutException e) {
+            throw new ExecutionTimeoutException("Execution exceeded timeout of " + executionTimeout + " seconds");
+        }
+    }
+
+    private String[] getExecutionCommand(RuntimeRegistry.LanguageRuntime runtime, String fileName, Path workDir) {
+        return switch (runtime.language()) {
+            case PYTHON, JAVASCRIPT -> new String[]{runtime.executable(), fileName};
+            case JAVA -> throw new IllegalArgumentException("JAVA is launched by the JavaLauncher");
+            case CPP -> new String[]{workDir.resolve(BINARY_NAME).toString()};
+        };
+    }
+
+    /**
+     * Passes the source as an argument so that no file is written at all.
+     */
+    private String[] getInlineCommand(RuntimeRegistry.LanguageRuntime runtime, String code) {
+        return switch (runtime.language()) {
+            case PYTHON -> new String[]{runtime.executable(), "-c", code};
+            case JAVASCRIPT -> new String[]{runtime.executable(), "-e", code};
+            default -> throw new IllegalArgumentException(runtime.language() + " cannot run inline");
+        };
+    }
+
+    private boolean isCompiled(Language language) {
+        return language == Language.JAVA || language == Language.CPP;
+    }
+
+    /**
+     * The compiler a compiled language builds with: its identity and flags make up the compile
+     * cache key.
+     */
+    private record Compiler(String version, List<String> flags, boolean inProcess) {
+    }
+
+    private Compiler compiler(RuntimeRegistry.LanguageRuntime runtime) {
+        // JAVA compiles inside this JVM when it runs on a full JDK, saving a javac launch. Sources it
+        // turns away fall back to the runtime's javac, whose class files are just as good under this key
+        if (runtime.language() == Language.JAVA && javaCompiler.isAvailable()) {
+            return new Compiler(javaCompiler.getVersion(), javaCompiler.targetOptions(runtime), true);
+        }
+        List<String> flags = runtime.language() == Language.CPP ? cppToolchain.getFlags() : List.of();
+        return new Compiler(runtime.version(), flags, false);
+    }
+
+    /**
+     * Everything besides the runtime, the code and the input that decides how a submission runs:
+     * the compiler and flags of the compile cache key and, for JAVA, the JVM options in and out
+     * of the pool.
+     */
+    public List<String> runSettings(Language language) {
+        if (!isCompiled(language)) {
+            return List.of();
+        }
+        Compiler compiler = compiler(runtimeRegistry.get(language));
+        List<String> settings = new ArrayList<>(List.of(compiler.version()));
+        settings.addAll(compiler.flags());
+        if (language == Language.JAVA) {
+            settings.addAll(javaLauncher.getOptions());
+            settings.addAll(workerPool.getJavaOptions());
+        }
+        return settings;
+    }
+
+    /**
+     * Looks the source up in the compile cache; misses are compiled on the compile stage.
+     */
+    private CompileCache.Outcome compile(RuntimeRegistry.LanguageRuntime runtime, String fileName, String code)
+            throws IOException, InterruptedException {
+        Language language = runtime.language();
+        Compiler compiler = compiler(runtime);
+        String key = CompileCache.key(language, compiler.version(), compiler.flags(), code);
+
+        return compileCache.getOrCompile(key, outputDir -> compileStage.compile(timeoutMs -> {
+            long startTime = System.currentTimeMillis();
+            if (compiler.inProcess() && javaCompiler.accepts(code)) {
+                try {
+                    return javaCompiler.compile(fileName.replace(".java", ""), code, compiler.flags(), outputDir,
+                        timeoutMs);
+                } catch (TimeoutException e) {
+                    // The external javac can be killed, so it gets the rest of the time
+                    log.info("In-process compile timed out, retrying with {}", runtime.compiler());
+                }
+            }
+            long remainingMs = Math.max(0, timeoutMs - (System.currentTimeMillis() - startTime));
+            try (WorkspacePool.Workspace workspace = workspacePool.acquire()) {
+                return compileExternally(runtime, workspace.getDir().resolve(fileName), code, outputDir, remainingMs);
             }
-            case JAVASCRIPT -> new String[]{"node", fileName};
-            case CPP -> new String[]{"cmd", "/c", "g++ " + fileName + " -o program.exe && program.exe"};
+        }));
+    }
+
+    private CompileCache.CompileFailure compileExternally(RuntimeRegistry.LanguageRuntime runtime, Path sourceFile,
+                                                          String code, Path outputDir, long timeoutMs)
+            throws IOException, InterruptedException {
+        Language language = runtime.language();
+        Files.writeString(sourceFile, code);
+        List<List<String>> commands = switch (language) {
+            case JAVA -> List.of(List.of(runtime.compiler(), "-d", outputDir.toString(), sourceFile.toString()));
+            case CPP -> cppToolchain.commands(runtime, sourceFile, outputDir.resolve(BINARY_NAME));
+            default -> throw new IllegalArgumentException(language + " is not compiled");
         };
+
+        long startTime = System.currentTimeMillis();
+        Path log = sourceFile.resolveSibling("compile.log");
+        for (List<String> command : commands) {
+            ProcessBuilder builder = new ProcessBuilder(command)
+                .directory(sourceFile.getParent().toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile());
+            if (language == Language.CPP) {
+                builder.environment().putAll(cppToolchain.environment());
+            }
+            Process process = builder.start();
+
+            // g++ runs cc1plus, as and ld as children, which have to go down with it
+            try (ProcessTreeManager.Tree tree = processTreeManager.track(process)) {
+                long remainingMs = Math.max(0, timeoutMs - (System.currentTimeMillis() - startTime));
+                if (!awaitExit(process, remainingMs)) {
+                    tree.kill();
+                    throw new ExecutionTimeoutException("Compilation exceeded timeout of " + timeoutMs / 1000 + " seconds");
+                }
+            }
+            if (process.exitValue() != 0) {
+                BoundedOutput diagnostics = new BoundedOutput(outputBufferBytes);
+                try (InputStream in = Files.newInputStream(log)) {
+                    diagnostics.readFrom(in, Files.size(log));
+                }
+                return new CompileCache.CompileFailure(process.exitValue(), diagnostics.toString());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Waits for the process through {@link Process#onExit()}, completed by the JDK's process
+     * reaper. Unlike {@link Process#waitFor(long, TimeUnit)}, which waits on a monitor, this lets a
+     * virtual thread unmount instead of pinning its carrier for the whole run.
+     */
+    private static boolean awaitExit(Process process, long timeoutMs) throws InterruptedException {
+        try {
+            process.onExit().get(timeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Waiting for process exit failed", e.getCause());
+        }
+    }
+
+    private long remainingMillis(long startTime) {
+        return Math.max(0, executionTimeout * 1000 - (System.currentTimeMillis() - startTime));
     }
 
     private String getFileName(Language language, String code) {
@@ -163,32 +566,6 @@ public class LocalExecutionService {
         return "code." + language.getFileExtension();
     }
 
-    private String checkLanguageRuntime(Language language) {
-        try {
-            String[] checkCommand = switch (language) {
-                case PYTHON -> new String[]{"python", "--version"};
-                case JAVA -> new String[]{"javac", "-version"};
-                case JAVASCRIPT -> new String[]{"node", "--version"};
-                case CPP -> new String[]{"g++", "--version"};
-            };
-
-            Process process = new ProcessBuilder(checkCommand)
-                .redirectErrorStream(true)
-                .start();
-
-            boolean finished = process.waitFor(5, TimeUnit.SECONDS);
-
-            if (!finished || process.exitValue() != 0) {
-                return getInstallationMessage(language);
-            }
-
-            return null; // Runtime is available
-
-        } catch (Exception e) {
-            return getInstallationMessage(language);
-        }
-    }
-
     private String getInstallationMessage(Language language) {
         return switch (language) {
             case PYTHON -> """
@@ -231,6 +608,32 @@ public class LocalExecutionService {
                 """;
         };
     }
-}
 
+    /**
+     * A request that is ready to run: its runtime resolved and, for compiled languages, its
+     * artifact leased from the compile cache.
+     */
+    private final class Program implements AutoCloseable {
+        private final RuntimeRegistry.LanguageRuntime runtime;
+        private final String code;
+        private final String fileName;
+        private final OutputListener outputListener;
+        private CompileCache.Lease artifact;
+        private long compileTimeMs;
+        private ExecutionResult failure;
+
+        private Program(ExecutionRequest request) {
+            this.runtime = runtimeRegistry.get(request.getLanguage());
+            this.code = request.getCode();
+            this.fileName = getFileName(request.getLanguage(), request.getCode());
+            this.outputListener = request.getOutputListener();
+        }
 
+        @Override
+        public void close() {
+            if (artifact != null) {
+                artifact.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.coderank.api.execution;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains a process' stdout and stderr while it runs, so a chatty program never blocks on a full
+ * pipe. Each stream keeps only its head and tail; once the two streams together exceed
+ * {@code maxBytes} the process is killed. An optional {@link OutputListener} sees every chunk up
+ * to that limit as soon as it is read.
+ */
+@Slf4j
+class OutputCapture {
+
+    private final Process process;
+    private final long maxBytes;
+    private final OutputListener listener;
+    private final BoundedOutput stdout;
+    private final BoundedOutput stderr;
+    private final AtomicLong produced = new AtomicLong();
+    private final CountDownLatch drained = new CountDownLatch(2);
+    private volatile boolean limitExceeded;
+
+    private OutputCapture(Process process, int bufferBytes, long maxBytes, OutputListener listener) {
+        this.process = process;
+        this.maxBytes = maxBytes;
+        this.listener = listener;
+        this.stdout = new BoundedOutput(bufferBytes);
+        this.stderr = new BoundedOutput(bufferBytes);
+    }
+
+    static OutputCapture start(Process process, String input, int bufferBytes, long maxBytes,
+                               OutputListener listener, Executor executor) {
+        OutputCapture capture = new OutputCapture(process, bufferBytes, maxBytes, listener);
+        executor.execute(() -> capture.drain(process.getInputStream(), capture.stdout, "stdout"));
+        executor.execute(() -> capture.drain(process.getErrorStream(), capture.stderr, "stderr"));
+        executor.execute(() -> capture.feed(process.getOutputStream(), input));
+        return capture;
+    }
+
+    private void drain(InputStream in, BoundedOutput sink, String stream) {
+        byte[] buffer = new byte[8192];
+        ChunkDecoder decoder = listener != null ? new ChunkDecoder(buffer.length) : null;
+        try (in) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                sink.write(buffer, 0, read);
+                if (produced.addAndGet(read) > maxBytes && !limitExceeded) {
+                    limitExceeded = true;
+                    process.destroyForcibly();
+                }
+                if (decoder != null && !limitExceeded) {
+                    publish(stream, decoder.decode(buffer, read, false));
+                }
+            }
+        } catch (IOException e) {
+            // Stream closed underneath us because the process was killed
+        } finally {
+            if (decoder != null && !limitExceeded) {
+                publish(stream, decoder.decode(buffer, 0, true));
+            }
+            drained.countDown();
+        }
+    }
+
+    private void publish(String stream, String text) {
+        if (text.isEmpty()) {
+            return;
+        }
+        try {
+            listener.onOutput(stream, text);
+        } catch (RuntimeException e) {
+            log.debug("Output listener failed", e);
+        }
+    }
+
+    private void feed(OutputStream out, String input) {
+        try (out) {
+            if (input != null && !input.isEmpty()) {
+                out.write(input.getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            // The program exited without reading all of its input
+        }
+    }
+
+    /**
+     * Waits for both streams to reach EOF. Gives up after {@code timeoutMs}, e.g. when a
+     * grandchild still holds the pipe open, and returns whatever was captured so far.
+     */
+    void await(long timeoutMs) throws InterruptedException {
+        if (!drained.await(timeoutMs, TimeUnit.MILLISECONDS)) {
+            log.warn("Output streams still open {}ms after process exit", timeoutMs);
+        }
+    }
+
+    String getOutput() {
+        return stdout.toString();
+    }
+
+    String getError() {
+        String error = stderr.toString();
+        if (limitExceeded) {
+            error += "\nOutput limit of " + maxBytes + " bytes exceeded, process was terminated\n";
+        }
+        return error;
+    }
+
+    boolean isTruncated() {
+        return limitExceeded || stdout.isTruncated() || stderr.isTruncated();
+    }
+
+    boolean isLimitExceeded() {
+        return limitExceeded;
+    }
+
+    /**
+     * Decodes UTF-8 chunk by chunk, holding back a character split across two reads until its
+     * remaining bytes arrive.
+     */
+    private static final class ChunkDecoder {
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final ByteBuffer bytes;
+        private final CharBuffer chars;
+
+        private ChunkDecoder(int chunkBytes) {
+            // Room for a chunk plus the partial character left over from the previous one
+            bytes = ByteBuffer.allocate(chunkBytes + 4);
+            chars = CharBuffer.allocate(chunkBytes + 4);
+        }
+
+        private String decode(byte[] chunk, int length, boolean endOfInput) {
+            bytes.put(chunk, 0, length).flip();
+            decoder.decode(bytes, chars, endOfInput);
+            if (endOfInput) {
+                decoder.flush(chars);
+            }
+            bytes.compact();
+            String text = chars.flip().toString();
+            chars.clear();
+            return text;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.coderank.api.execution;
+
+/**
+ * Receives a running program's output as it is produced. Called from the threads draining the
+ * process, so implementations must be thread-safe and must not block.
+ */
+@FunctionalInterface
+public interface OutputListener {
+
+    /**
+     * @param stream {@code stdout} or {@code stderr}
+     * @param text   the next chunk of that stream, decoded as UTF-8
+     */
+    void onOutput(String stream, String text);
+}
@@ -0,0 +1,252 @@
+package com.coderank.api.execution;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Owns the process trees of running executions. Killing a tree takes down every descendant, not
+ * just the direct child, and descendants are remembered while the root runs, so a process that
+ * outlives its parent (and gets reparented away from it) is still found and killed when the
+ * execution ends.
+ * <p>
+ * A periodic sweep additionally kills any process working inside the workspace root that belongs
+ * to no running execution, which catches whatever escaped tracking. Both kinds of leak are
+ * counted in {@link #getStats()}.
+ */
+@Component
+@Slf4j
+public class ProcessTreeManager {
+
+    private static final Path PROC = Path.of("/proc");
+    // Younger processes may still be on their way into a tree
+    private static final Duration SWEEP_MIN_AGE = Duration.ofSeconds(2);
+
+    @Autowired
+    private WorkspacePool workspacePool;
+
+    @Value("${execution.processes.refresh-interval-ms:100}")
+    private long refreshIntervalMs;
+
+    @Value("${execution.processes.sweep-interval-ms:5000}")
+    private long sweepIntervalMs;
+
+    private final Set<Tree> trees = ConcurrentHashMap.newKeySet();
+    private final AtomicLong tracked = new AtomicLong();
+    private final AtomicLong killedTrees = new AtomicLong();
+    private final AtomicLong leaked = new AtomicLong();
+    private final AtomicLong swept = new AtomicLong();
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "process-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refresh, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+        if (Files.isDirectory(PROC)) {
+            scheduler.scheduleWithFixedDelay(this::sweep, sweepIntervalMs, sweepIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Starts tracking the tree rooted at {@code process}. Closing the returned tree kills
+     * whatever is left of it.
+     */
+    Tree track(Process process) {
+        Tree tree = new Tree(process.toHandle());
+        trees.add(tree);
+        tracked.incrementAndGet();
+        return tree;
+    }
+
+    /**
+     * Kills the descendants of a long-lived process, e.g. whatever a submission forked inside a
+     * pooled worker, and returns how many there were.
+     */
+    int reapDescendants(ProcessHandle parent) {
+        int count = 0;
+        for (ProcessHandle child : parent.descendants().toList()) {
+            if (isRunning(child) && child.destroyForcibly()) {
+                count++;
+            }
+        }
+        if (count > 0) {
+            leaked.addAndGet(count);
+            log.warn("Killed {} processes left behind under pid {}", count, parent.pid());
+        }
+        return count;
+    }
+
+    private void refresh() {
+        for (Tree tree : trees) {
+            tree.remember();
+        }
+    }
+
+    /**
+     * Kills processes whose working directory lies in the workspace root but that are not part
+     * of a tracked tree.
+     */
+    private void sweep() {
+        try {
+            Path root = workspacePool.getRoot();
+            Instant cutoff = Instant.now().minus(SWEEP_MIN_AGE);
+            ProcessHandle.allProcesses()
+                .filter(process -> process.pid() != ProcessHandle.current().pid() && isRunning(process))
+                .filter(process -> process.info().startInstant().map(cutoff::isAfter).orElse(false))
+                .filter(process -> workingDirectory(process).map(dir -> dir.startsWith(root)).orElse(false))
+                .filter(process -> !isTracked(process))
+                .forEach(process -> {
+                    log.warn("Killing leaked process {} ({})", process.pid(), process.info().command().orElse("?"));
+                    process.descendants().forEach(ProcessHandle::destroyForcibly);
+                    if (process.destroyForcibly()) {
+                        swept.incrementAndGet();
+                    }
+                });
+        } catch (RuntimeException e) {
+            log.warn("Process sweep failed", e);
+        }
+    }
+
+    private boolean isTracked(ProcessHandle process) {
+        for (Tree tree : trees) {
+            if (tree.contains(process)) {
+                return true;
+            }
+        }
+        // Spawned since the last refresh
+        for (Optional<ProcessHandle> parent = process.parent(); parent.isPresent(); parent = parent.get().parent()) {
+            ProcessHandle ancestor = parent.get();
+            if (trees.stream().anyMatch(tree -> tree.root.equals(ancestor))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Like {@link ProcessHandle#isAlive()}, but a zombie, which has exited and only waits for its
+     * parent to collect it, does not count.
+     */
+    static boolean isRunning(ProcessHandle process) {
+        if (!process.isAlive()) {
+            return false;
+        }
+        try {
+            String stat = Files.readString(PROC.resolve(process.pid() + "/stat"));
+            return stat.charAt(stat.lastIndexOf(')') + 2) != 'Z';
+        } catch (IOException | RuntimeException e) {
+            // No /proc, or the process is gone
+            return process.isAlive();
+        }
+    }
+
+    private static Optional<Path> workingDirectory(ProcessHandle process) {
+        try {
+            return Optional.of(Files.readSymbolicLink(PROC.resolve(process.pid() + "/cwd")));
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            return Optional.empty();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("running", trees.size());
+        stats.put("tracked", tracked.get());
+        stats.put("killed", killedTrees.get());
+        stats.put("leaked", leaked.get());
+        stats.put("swept", swept.get());
+        return stats;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+        for (Tree tree : trees) {
+            tree.kill();
+            trees.remove(tree);
+        }
+    }
+
+    /**
+     * One execution's process tree, from its root down.
+     */
+    class Tree implements AutoCloseable {
+        private final ProcessHandle root;
+        private final Set<ProcessHandle> descendants = ConcurrentHashMap.newKeySet();
+        private volatile boolean closed;
+
+        private Tree(ProcessHandle root) {
+            this.root = root;
+        }
+
+        private void remember() {
+            if (root.isAlive()) {
+                root.descendants().forEach(descendants::add);
+            }
+        }
+
+        private boolean contains(ProcessHandle process) {
+            return root.equals(process) || descendants.contains(process);
+        }
+
+        /**
+         * Kills the root and every descendant, e.g. on timeout.
+         */
+        void kill() {
+            if (closed) {
+                return;
+            }
+            remember();
+            descendants.forEach(ProcessHandle::destroyForcibly);
+            if (root.destroyForcibly()) {
+                killedTrees.incrementAndGet();
+            }
+        }
+
+        /**
+         * Stops tracking. Descendants that outlived the root are leaks and get killed, as does the
+         * root itself when the execution is abandoned while it is still running.
+         */
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            if (root.isAlive()) {
+                kill();
+            } else {
+                long survivors = descendants.stream().filter(ProcessTreeManager::isRunning).count();
+                if (survivors > 0) {
+                    leaked.addAndGet(survivors);
+                    log.warn("Killing {} processes that outlived pid {}", survivors, root.pid());
+                    descendants.forEach(ProcessHandle::destroyForcibly);
+                }
+            }
+            closed = true;
+            trees.remove(this);
+        }
+    }
+}
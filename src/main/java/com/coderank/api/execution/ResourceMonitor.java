@@ -0,0 +1,208 @@
+package com.coderank.api.execution;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures CPU time and peak resident memory of running submissions by sampling
+ * {@code /proc/<pid>} for the process and all of its descendants, and kills the whole tree once
+ * it passes the configured CPU-time or memory ceiling. On systems without {@code /proc} nothing
+ * is measured or enforced.
+ * <p>
+ * A pooled worker is watched {@linkplain #watch since now}: only what its resident set grows by
+ * during the run counts, plus the whole of any process the run starts. For a JAVA worker that
+ * growth is all the JVM gains while running the submission, which is what the ceiling applies to;
+ * the figure reported for the run is instead the heap it used, as measured by the worker.
+ */
+@Component
+public class ResourceMonitor {
+
+    private static final Path PROC = Path.of("/proc");
+    private static final long CLOCK_TICKS_PER_SECOND = 100; // USER_HZ, fixed on Linux
+
+    @Value("${execution.limits.cpu-time-ms:10000}")
+    private long cpuTimeLimitMs;
+
+    @Value("${execution.limits.memory-mb:512}")
+    private long memoryLimitMb;
+
+    @Value("${execution.limits.sample-interval-ms:10}")
+    private long sampleIntervalMs;
+
+    private final boolean supported = Files.isReadable(PROC.resolve("self/stat"));
+
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "resource-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public enum Limit {
+        CPU_TIME,
+        MEMORY
+    }
+
+    /**
+     * Starts sampling the tree rooted at {@code root}. With {@code sinceNow} the CPU time, resident
+     * memory and memory high-water mark the root accumulated before this call are not counted, so
+     * a long-lived worker can be watched for a single run.
+     */
+    Watch watch(ProcessHandle root, boolean sinceNow) {
+        Watch watch = new Watch(root, sinceNow);
+        if (supported) {
+            watch.baselineCpuTicks = sinceNow ? watch.sample(false) : 0;
+            watch.task = sampler.scheduleAtFixedRate(watch::sampleAndEnforce,
+                sampleIntervalMs, sampleIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        return watch;
+    }
+
+    /**
+     * The message appended to a program's error output when it was stopped for exceeding
+     * {@code limit}.
+     */
+    String describe(Limit limit) {
+        return switch (limit) {
+            case CPU_TIME -> "CPU time limit of " + cpuTimeLimitMs + " ms exceeded, process was terminated";
+            case MEMORY -> "Memory limit of " + memoryLimitMb + " MB exceeded, process was terminated";
+        };
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sampler.shutdownNow();
+    }
+
+    /**
+     * Resource usage of one process tree, updated by the sampler until {@link #stop()}.
+     */
+    class Watch {
+        private final ProcessHandle root;
+        private final boolean sinceNow;
+        private ScheduledFuture<?> task;
+        private long baselineCpuTicks;
+        private long baselineResidentKb;
+        private volatile long cpuTicks;
+        private volatile long peakMemoryKb;
+        private volatile Limit exceeded;
+
+        private Watch(ProcessHandle root, boolean sinceNow) {
+            this.root = root;
+            this.sinceNow = sinceNow;
+        }
+
+        /**
+         * Stops sampling after taking a last sample if the tree is still alive.
+         */
+        void stop() {
+            if (task != null) {
+                task.cancel(false);
+                synchronized (this) {
+                    if (root.isAlive()) {
+                        sample(true);
+                    }
+                }
+            }
+        }
+
+        long getCpuTimeMs() {
+            return Math.max(0, cpuTicks - baselineCpuTicks) * 1000 / CLOCK_TICKS_PER_SECOND;
+        }
+
+        long getPeakMemoryKb() {
+            return peakMemoryKb;
+        }
+
+        /**
+         * The ceiling that got the tree killed, or {@code null}.
+         */
+        Limit getExceeded() {
+            return exceeded;
+        }
+
+        private synchronized void sampleAndEnforce() {
+            if (!root.isAlive() || exceeded != null) {
+                return;
+            }
+            sample(true);
+
+            if (cpuTimeLimitMs > 0 && getCpuTimeMs() > cpuTimeLimitMs) {
+                kill(Limit.CPU_TIME);
+            } else if (memoryLimitMb > 0 && peakMemoryKb > memoryLimitMb * 1024) {
+                kill(Limit.MEMORY);
+            }
+        }
+
+        /**
+         * Reads every process in the tree once. Returns the tree's total CPU ticks, including
+         * children that already exited, and records them together with the peak memory when
+         * {@code record} is set; otherwise takes the root's resident memory as its baseline.
+         */
+        private long sample(boolean record) {
+            long ticks = 0;
+            long residentKb = 0;
+            long highWaterKb = 0;
+            long rootResidentKb = 0;
+
+            List<ProcessHandle> tree = Stream.concat(Stream.of(root), root.descendants()).toList();
+            for (ProcessHandle process : tree) {
+                Path dir = PROC.resolve(Long.toString(process.pid()));
+                try {
+                    ticks += cpuTicks(Files.readString(dir.resolve("stat")));
+                    for (String line : Files.readAllLines(dir.resolve("status"))) {
+                        if (line.startsWith("VmRSS:") && sinceNow && process.equals(root)) {
+                            rootResidentKb = kilobytes(line);
+                            residentKb += Math.max(0, rootResidentKb - baselineResidentKb);
+                        } else if (line.startsWith("VmRSS:")) {
+                            residentKb += kilobytes(line);
+                        } else if (line.startsWith("VmHWM:") && !(sinceNow && process.equals(root))) {
+                            highWaterKb = Math.max(highWaterKb, kilobytes(line));
+                        }
+                    }
+                } catch (IOException | RuntimeException e) {
+                    // The process exited between listing and reading
+                }
+            }
+
+            if (record) {
+                cpuTicks = Math.max(cpuTicks, ticks);
+                peakMemoryKb = Math.max(peakMemoryKb, Math.max(residentKb, highWaterKb));
+            } else {
+                baselineResidentKb = rootResidentKb;
+            }
+            return ticks;
+        }
+
+        private void kill(Limit limit) {
+            exceeded = limit;
+            root.descendants().forEach(ProcessHandle::destroyForcibly);
+            root.destroyForcibly();
+        }
+    }
+
+    /**
+     * Sums utime, stime, cutime and cstime from a {@code /proc/<pid>/stat} line. The command name
+     * may contain spaces, so fields are counted from its closing parenthesis.
+     */
+    private static long cpuTicks(String stat) {
+        String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+        return Long.parseLong(fields[11]) + Long.parseLong(fields[12])
+            + Long.parseLong(fields[13]) + Long.parseLong(fields[14]);
+    }
+
+    private static long kilobytes(String statusLine) {
+        String value = statusLine.substring(statusLine.indexOf(':') + 1).trim();
+        return Long.parseLong(value.substring(0, value.indexOf(' ')));
+    }
+}
@@ -0,0 +1,119 @@
+package com.coderank.api.execution;
+
+import com.coderank.api.domain.Language;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Opt-in cache of execution results for submissions that were already run with the same code and
+ * input on the same runtime, compiler flags and JVM options. Only useful for deterministic
+ * programs, hence disabled by default. Code is normalized first (see {@link CodeNormalizer}) so
+ * trivial edits still hit. Bounded by total output size and by age.
+ */
+@Component
+public class ResultCache {
+
+    @Value("${execution.result-cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${execution.result-cache.max-size-mb:64}")
+    private long maxSizeMb;
+
+    @Value("${execution.result-cache.ttl:10m}")
+    private Duration ttl;
+
+    @Value("${execution.result-cache.normalize.comments:false}")
+    private boolean stripComments;
+
+    @Value("${execution.result-cache.normalize.trailing-whitespace:true}")
+    private boolean stripTrailingWhitespace;
+
+    @Autowired
+    private RuntimeRegistry runtimeRegistry;
+
+    @Autowired
+    private LocalExecutionService executionService;
+
+    private Cache<String, ExecutionResult> results;
+
+    @PostConstruct
+    void init() {
+        results = Caffeine.newBuilder()
+            .maximumWeight(maxSizeMb * 1024 * 1024)
+            .weigher((String key, ExecutionResult result) -> key.length() + 2 * (length(result.getOutput())
+                + length(result.getError())))
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * Returns the cache key for a submission, or {@code null} when caching is disabled.
+     */
+    public String key(Language language, String code, String input) {
+        if (!enabled) {
+            return null;
+        }
+        String normalized = CodeNormalizer.normalize(language, code, stripComments, stripTrailingWhitespace);
+        String version = String.valueOf(runtimeRegistry.get(language).version());
+        List<String> parts = new ArrayList<>(List.of(language.name(), version));
+        parts.addAll(executionService.runSettings(language));
+        parts.add(normalized);
+        parts.add(input == null ? "" : input);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public Optional<ExecutionResult> get(String key) {
+        return key == null ? Optional.empty() : Optional.ofNullable(results.getIfPresent(key));
+    }
+
+    /**
+     * Remembers a result unless it depends on timing or host load: timeouts, resource limit kills
+     * and internal failures are never cached.
+     */
+    public void put(String key, ExecutionResult result) {
+        if (key != null && !result.isTimeout() && result.getLimitExceeded() == null && result.getExitCode() != -1) {
+            results.put(key, result);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = results.stats();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("enabled", enabled);
+        map.put("hits", stats.hitCount());
+        map.put("misses", stats.missCount());
+        map.put("evictions", stats.evictionCount());
+        map.put("entries", results.estimatedSize());
+        return map;
+    }
+
+    private static int length(String text) {
+        return text == null ? 0 : text.length();
+    }
+}
@@ -0,0 +1,159 @@
+package com.coderank.api.execution;
+
+import com.coderank.api.domain.Language;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Resolves the interpreter/compiler for every {@link Language} once at startup and keeps the
+ * result cached, so executions never have to spawn a probe process. Refreshed periodically in
+ * the background to pick up runtimes installed or removed while the application is running.
+ */
+@Component
+@Slf4j
+public class RuntimeRegistry {
+
+    private static final boolean WINDOWS = System.getProperty("os.name").toLowerCase().startsWith("windows");
+    private static final Predicate<String> ANY_VERSION = version -> true;
+
+    private volatile Map<Language, LanguageRuntime> runtimes = new EnumMap<>(Language.class);
+    private String searchPath = System.getenv("PATH");
+
+    private record Tool(String path, String version) {
+    }
+
+    public record LanguageRuntime(Language language, boolean available, String executable, String compiler,
+                                  String version, Instant checkedAt) {
+    }
+
+    @PostConstruct
+    void init() {
+        refresh();
+        runtimes.values().forEach(runtime -> {
+            if (runtime.available()) {
+                log.info("{} runtime: {}", runtime.language(), runtime.version());
+            } else {
+                log.warn("{} runtime not found in PATH", runtime.language());
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${execution.runtime.refresh-interval:300000}",
+        initialDelayString = "${execution.runtime.refresh-interval:300000}")
+    public void refresh() {
+        Map<Language, LanguageRuntime> resolved = new EnumMap<>(Language.class);
+        for (Language language : Language.values()) {
+            resolved.put(language, probe(language));
+        }
+        runtimes = resolved;
+    }
+
+    public LanguageRuntime get(Language language) {
+        return runtimes.get(language);
+    }
+
+    public boolean isAvailable(Language language) {
+        LanguageRuntime runtime = runtimes.get(language);
+        return runtime != null && runtime.available();
+    }
+
+    public Collection<LanguageRuntime> getRuntimes() {
+        return runtimes.values();
+    }
+
+    LanguageRuntime probe(Language language) {
+        Optional<Tool> executable = switch (language) {
+            // The worker and submissions are Python 3; a "python" that is Python 2 does not count
+            case PYTHON -> resolve(language, version -> version.startsWith("Python 3"), "python3", "python");
+            case JAVA -> resolve(language, ANY_VERSION, "java");
+            case JAVASCRIPT -> resolve(language, ANY_VERSION, "node");
+            case CPP -> Optional.empty();
+        };
+        Optional<Tool> compiler = switch (language) {
+            case JAVA -> resolve(language, ANY_VERSION, "javac");
+            case CPP -> resolve(language, ANY_VERSION, "g++");
+            default -> Optional.empty();
+        };
+
+        // Every tool a run needs has to answer; JAVA has a launcher and a compiler, which may differ
+        List<String> versions = new ArrayList<>();
+        executable.map(Tool::version).ifPresent(versions::add);
+        compiler.map(Tool::version).ifPresent(versions::add);
+        boolean compiled = language == Language.JAVA || language == Language.CPP;
+        boolean interpreted = language != Language.CPP;
+        int expected = (compiled ? 1 : 0) + (interpreted ? 1 : 0);
+        boolean available = versions.size() == expected;
+        String version = versions.isEmpty() ? null : String.join("; ", versions);
+        return new LanguageRuntime(language, available, executable.map(Tool::path).orElse(null),
+            compiler.map(Tool::path).orElse(null), version, Instant.now());
+    }
+
+    /**
+     * Finds the first executable, trying the names in order and each through the whole PATH,
+     * whose version probe answers with a version {@code accepted} allows.
+     */
+    private Optional<Tool> resolve(Language language, Predicate<String> accepted, String... names) {
+        String path = searchPath;
+        if (path == null) {
+            return Optional.empty();
+        }
+        for (String name : names) {
+            for (String dir : path.split(File.pathSeparator)) {
+                if (dir.isEmpty()) {
+                    continue;
+                }
+                Path candidate = Path.of(dir, WINDOWS ? name + ".exe" : name);
+                if (!Files.isRegularFile(candidate) || !Files.isExecutable(candidate)) {
+                    continue;
+                }
+                String version = version(candidate.toString(), language);
+                if (version != null && accepted.test(version)) {
+                    return Optional.of(new Tool(candidate.toString(), version));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private String version(String executable, Language language) {
+        String flag = language == Language.JAVA ? "-version" : "--version";
+        Path output = null;
+        try {
+            output = Files.createTempFile("coderank_probe_", ".txt");
+            Process process = new ProcessBuilder(List.of(executable, flag))
+                .redirectErrorStream(true)
+                .redirectOutput(output.toFile())
+                .start();
+            if (!process.waitFor(5, TimeUnit.SECONDS) || process.exitValue() != 0) {
+                process.destroyForcibly();
+                return null;
+            }
+            return Files.readString(output).lines().findFirst().orElse("").trim();
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            if (output != null) {
+                output.toFile().delete();
+            }
+        }
+    }
+}
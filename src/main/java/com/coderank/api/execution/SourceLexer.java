@@ -0,0 +1,386 @@
+package com.coderank.api.execution;
+
+import com.coderank.api.domain.Language;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Single-pass lexer shared by {@link CodeNormalizer} and {@link CodeValidator} that splits source
+ * code into code, comments and literals. Besides plain strings it knows the forms that would
+ * otherwise put it out of step with the compiler: Python f-strings and JAVASCRIPT template literals,
+ * whose replacement fields are code again, JAVASCRIPT regular expressions, C++ raw strings and C++
+ * digit separators. Text it cannot place, an unterminated literal or a JAVASCRIPT slash that may
+ * start a regular expression or not, is reported as unclear, to be read both ways.
+ */
+final class SourceLexer {
+
+    /**
+     * Receives every character of the code exactly once, in order.
+     */
+    interface Listener {
+
+        /** A character outside comments and literals, whitespace included. */
+        void code(int index);
+
+        void comment(int start, int end);
+
+        /** A literal, or the text of an f-string or template literal between its fields. */
+        void literal(int start, int end);
+
+        void unclear(int start, int end);
+
+        /** Ends the pass early once the listener has seen enough. */
+        default boolean done() {
+            return false;
+        }
+    }
+
+    // Deeper nesting of replacement fields is read as unclear
+    private static final int MAX_NESTING = 32;
+    private static final int ABORTED = -1;
+    private static final int NOT_LITERAL = -2;
+
+    private static final Set<String> PYTHON_PREFIXES = Set.of("r", "u", "b", "f", "br", "rb", "fr", "rf");
+    private static final Set<String> CPP_RAW_PREFIXES = Set.of("R", "LR", "uR", "UR", "u8R");
+    private static final Set<String> JS_CONTROL = Set.of("if", "while", "for", "with");
+    private static final Set<String> JS_KEYWORDS = Set.of("return", "typeof", "instanceof", "in", "new", "delete",
+        "void", "throw", "case", "do", "else");
+    // Keywords in some places and plain names in others
+    private static final Set<String> JS_AMBIGUOUS = Set.of("of", "yield", "await");
+
+    /**
+     * The token before a JAVASCRIPT slash, which decides whether it divides or starts a regular
+     * expression.
+     */
+    private enum Token {
+        OPERATOR, OPERAND, KEYWORD, AMBIGUOUS, CONTROL, CONTROL_HEAD, DOT, CLOSING_BRACE
+    }
+
+    private final Language language;
+    private final String code;
+    private final int length;
+    private final Listener listener;
+
+    private SourceLexer(Language language, String code, Listener listener) {
+        this.language = language;
+        this.code = code;
+        this.length = code.length();
+        this.listener = listener;
+    }
+
+    static void lex(Language language, String code, Listener listener) {
+        new SourceLexer(language, code, listener).lexCode(0, 0, "");
+    }
+
+    /**
+     * Lexes code up to the first of {@code stops} outside brackets and returns its index, the
+     * length at the end of the code, or {@link #ABORTED}.
+     */
+    private int lexCode(int start, int depth, String stops) {
+        if (depth > MAX_NESTING) {
+            return unclearRest(start);
+        }
+        boolean python = language == Language.PYTHON;
+        Token previous = Token.OPERATOR;
+        // Whether each open parenthesis follows if, while, for or with
+        Deque<Boolean> parens = new ArrayDeque<>();
+        int open = 0;
+        int i = start;
+
+        while (i < length) {
+            if (listener.done()) {
+                return ABORTED;
+            }
+            char c = code.charAt(i);
+
+            if (open == 0 && stops.indexOf(c) >= 0 && !code.startsWith("!=", i)) {
+                return i;
+            } else if (Character.isWhitespace(c)) {
+                listener.code(i++);
+                continue;
+            } else if (python ? c == '#' : code.startsWith("//", i)) {
+                int end = code.indexOf('\n', i);
+                end = end < 0 ? length : end;
+                listener.comment(i, end);
+                i = end;
+                continue;
+            } else if (!python && code.startsWith("/*", i)) {
+                int end = code.indexOf("*/", i + 2);
+                end = end < 0 ? length : end + 2;
+                listener.comment(i, end);
+                i = end;
+                continue;
+            }
+
+            int end = lexLiteral(i, depth, previous);
+            if (end == ABORTED) {
+                return ABORTED;
+            } else if (end != NOT_LITERAL) {
+                previous = Token.OPERAND;
+                i = end;
+                continue;
+            }
+
+            if (isWordPart(c)) {
+                int word = i;
+                boolean number = Character.isDigit(c);
+                while (i < length && (isWordPart(code.charAt(i))
+                        || number && (code.charAt(i) == '.' || language == Language.CPP && code.charAt(i) == '\''))) {
+                    listener.code(i++);
+                }
+                previous = language != Language.JAVASCRIPT || previous == Token.DOT
+                    ? Token.OPERAND : word(code.substring(word, i));
+                continue;
+            }
+
+            listener.code(i++);
+            switch (c) {
+                case '(' -> {
+                    parens.push(previous == Token.CONTROL);
+                    open++;
+                    previous = Token.OPERATOR;
+                }
+                case ')' -> {
+                    previous = !parens.isEmpty() && parens.pop() ? Token.CONTROL_HEAD : Token.OPERAND;
+                    open = Math.max(0, open - 1);
+                }
+                case '[', '{' -> {
+                    open++;
+                    previous = Token.OPERATOR;
+                }
+                case ']' -> {
+                    open = Math.max(0, open - 1);
+                    previous = Token.OPERAND;
+                }
+                case '}' -> {
+                    open = Math.max(0, open - 1);
+                    previous = Token.CLOSING_BRACE;
+                }
+                case '.' -> previous = Token.DOT;
+                case '+', '-' -> {
+                    if (i < length && code.charAt(i) == c) {
+                        listener.code(i++);
+                        previous = Token.OPERAND;
+                    } else {
+                        previous = Token.OPERATOR;
+                    }
+                }
+                default -> previous = Token.OPERATOR;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Lexes the literal starting at {@code start}, if any, and returns the index just past it.
+     */
+    private int lexLiteral(int start, int depth, Token previous) {
+        char c = code.charAt(start);
+        return switch (language) {
+            case PYTHON -> c == '"' || c == '\'' ? pythonString(start, depth) : NOT_LITERAL;
+            case JAVA -> c == '"' && code.startsWith("\"\"\"", start) ? string(start, "\"\"\"")
+                : c == '"' || c == '\'' ? string(start, String.valueOf(c)) : NOT_LITERAL;
+            case JAVASCRIPT -> switch (c) {
+                case '"', '\'' -> string(start, String.valueOf(c));
+                case '`' -> interpolated(start, "`", depth, false);
+                case '/' -> switch (previous) {
+                    case OPERAND, CONTROL -> NOT_LITERAL;
+                    // After a block the same slash may be either
+                    case AMBIGUOUS, CLOSING_BRACE -> unclearRest(start);
+                    default -> regex(start);
+                };
+                default -> NOT_LITERAL;
+            };
+            case CPP -> c == '"' && CPP_RAW_PREFIXES.contains(wordBefore(start)) ? rawString(start)
+                : c == '"' || c == '\'' ? string(start, String.valueOf(c)) : NOT_LITERAL;
+        };
+    }
+
+    private int pythonString(int start, int depth) {
+        String prefix = wordBefore(start).toLowerCase(Locale.ROOT);
+        String quote = String.valueOf(code.charAt(start));
+        String closing = code.startsWith(quote.repeat(3), start) ? quote.repeat(3) : quote;
+        return PYTHON_PREFIXES.contains(prefix) && prefix.contains("f")
+            ? interpolated(start, closing, depth, prefix.contains("r"))
+            : string(start, closing);
+    }
+
+    private int string(int start, String closing) {
+        boolean multiLine = closing.length() == 3;
+        int i = start + closing.length();
+        while (i < length) {
+            char c = code.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (code.startsWith(closing, i)) {
+                literal(start, i + closing.length());
+                return i + closing.length();
+            } else if (c == '\n' && !multiLine) {
+                break;
+            } else {
+                i++;
+            }
+        }
+        return unterminated(start, Math.min(i, length));
+    }
+
+    /**
+     * A JAVASCRIPT template literal or a Python f-string, whose replacement fields are lexed as
+     * code.
+     */
+    private int interpolated(int start, String closing, int depth, boolean raw) {
+        boolean javascript = language == Language.JAVASCRIPT;
+        boolean multiLine = javascript || closing.length() == 3;
+        int piece = start;
+        int i = start + closing.length();
+        while (i < length) {
+            char c = code.charAt(i);
+            if (c == '\\' && javascript) {
+                i += 2;
+            } else if (c == '\\') {
+                // A field opens right after a backslash too, only \N{NAME} is an escape
+                if (!raw && code.startsWith("N{", i + 1)) {
+                    int close = code.indexOf('}', i);
+                    i = close < 0 ? length : close + 1;
+                } else {
+                    i += code.startsWith("{", i + 1) ? 1 : 2;
+                }
+            } else if (code.startsWith(closing, i)) {
+                literal(piece, i + closing.length());
+                return i + closing.length();
+            } else if (c == '\n' && !multiLine) {
+                break;
+            } else if (!javascript && code.startsWith("{{", i)) {
+                i += 2;
+            } else if (javascript ? code.startsWith("${", i) : c == '{') {
+                int open = i + (javascript ? 2 : 1);
+                literal(piece, open);
+                int close = javascript ? lexCode(open, depth + 1, "}") : field(open, depth + 1);
+                if (close < 0 || close >= length) {
+                    return close;
+                }
+                // The closing brace goes with the text that follows
+                piece = close;
+                i = close + 1;
+            } else {
+                i++;
+            }
+        }
+        return unterminated(piece, Math.min(i, length));
+    }
+
+    /**
+     * A Python replacement field after its opening brace; returns the index of its closing one.
+     */
+    private int field(int start, int depth) {
+        int i = lexCode(start, depth, "}:!");
+        // The conversion and format spec are text, which may hold nested fields
+        int piece = i;
+        while (i >= 0 && i < length && code.charAt(i) != '}') {
+            if (code.charAt(i) == '{') {
+                literal(piece, i + 1);
+                piece = i = field(i + 1, depth + 1);
+                if (i < 0 || i >= length) {
+                    return i;
+                }
+            }
+            i++;
+        }
+        if (i < 0) {
+            return i;
+        } else if (i >= length) {
+            return piece < length ? unterminated(piece, length) : length;
+        }
+        literal(piece, i);
+        return i;
+    }
+
+    private int regex(int start) {
+        boolean inClass = false;
+        int i = start + 1;
+        while (i < length) {
+            char c = code.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '\n' || c == '\r') {
+                break;
+            } else if (c == '/' && !inClass) {
+                i++;
+                while (i < length && isWordPart(code.charAt(i))) {
+                    i++;
+                }
+                literal(start, i);
+                return i;
+            } else {
+                inClass = c == '[' || inClass && c != ']';
+                i++;
+            }
+        }
+        return unclearRest(start);
+    }
+
+    /**
+     * A C++ raw string such as {@code R"x(...)x"}, which has no escapes.
+     */
+    private int rawString(int start) {
+        int open = code.indexOf('(', start);
+        String delimiter = open < 0 ? "" : code.substring(start + 1, open);
+        if (open < 0 || delimiter.length() > 16
+                || !delimiter.chars().allMatch(c -> c > ' ' && c < 127 && c != ')' && c != '\\' && c != '"')) {
+            return unclearRest(start);
+        }
+        int close = code.indexOf(")" + delimiter + "\"", open);
+        if (close < 0) {
+            return unclearRest(start);
+        }
+        int end = close + delimiter.length() + 2;
+        literal(start, end);
+        return end;
+    }
+
+    private Token word(String word) {
+        if (JS_CONTROL.contains(word)) {
+            return Token.CONTROL;
+        } else if (JS_KEYWORDS.contains(word)) {
+            return Token.KEYWORD;
+        } else if (JS_AMBIGUOUS.contains(word)) {
+            return Token.AMBIGUOUS;
+        }
+        return Token.OPERAND;
+    }
+
+    /**
+     * The identifier right before a quote, which may be a string prefix.
+     */
+    private String wordBefore(int index) {
+        int start = index;
+        while (start > 0 && isWordPart(code.charAt(start - 1))) {
+            start--;
+        }
+        return code.substring(start, index);
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private void literal(int start, int end) {
+        if (end > start) {
+            listener.literal(start, end);
+        }
+    }
+
+    // Where an unterminated literal was meant to end is anyone's guess
+    private int unterminated(int start, int end) {
+        listener.unclear(start, end);
+        return end;
+    }
+
+    private int unclearRest(int start) {
+        listener.unclear(start, length);
+        return ABORTED;
+    }
+}
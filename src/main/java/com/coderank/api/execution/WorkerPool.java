@@ -0,0 +1,391 @@
+package com.coderank.api.execution;
+
+import com.coderank.api.domain.Language;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps a number of warmed-up interpreter processes per language so that short submissions
+ * don't pay for process spawn and interpreter boot. PYTHON workers fork a child per run from
+ * their warmed-up state, and JAVA workers are long-lived JVMs that load each compiled submission
+ * in a fresh class loader. Either is retired after a fixed number of runs, on timeout, or as soon
+ * as it misbehaves, and replaced in the background. Node cannot keep code sharing its process
+ * apart, so a JAVASCRIPT worker is handed a single program and becomes its process.
+ */
+@Component
+@Slf4j
+public class WorkerPool {
+
+    private static final Set<Language> SUPPORTED = Set.of(Language.PYTHON, Language.JAVASCRIPT, Language.JAVA);
+    private static final Set<Language> SINGLE_USE = Set.of(Language.JAVASCRIPT);
+    private static final String JAVA_WORKER_CLASS = "JavaWorker";
+    private static final String JAVA_WORKER_MODULE = "coderank.worker";
+    private static final long RETRY_BACKOFF_MS = 30_000;
+
+    @Value("${execution.pool.enabled:true}")
+    private boolean enabled;
+
+    @Value("${execution.pool.size:2}")
+    private int poolSize;
+
+    @Value("${execution.pool.max-runs-per-worker:50}")
+    private int maxRunsPerWorker;
+
+    @Value("${execution.pool.warmup-timeout:5}")
+    private long warmupTimeout; // seconds
+
+    @Value("${execution.compile.timeout:30}")
+    private long compileTimeout; // seconds, for building the JAVA worker
+
+    @Value("${execution.pool.java-options:-Xmx256m,-XX:+UseSerialGC,-XX:TieredStopAtLevel=1}")
+    private String[] javaOptions;
+
+    @Value("${execution.output.buffer-bytes:65536}")
+    private int outputBufferBytes;
+
+    @Value("${execution.output.max-bytes:4194304}")
+    private long maxOutputBytes;
+
+    @Autowired
+    private RuntimeRegistry runtimeRegistry;
+
+    @Autowired
+    private ResourceMonitor resourceMonitor;
+
+    @Autowired
+    private ProcessTreeManager processTreeManager;
+
+    private final Map<Language, ConcurrentLinkedQueue<WorkerProcess>> idle = new EnumMap<>(Language.class);
+    private final Map<Language, AtomicInteger> live = new EnumMap<>(Language.class);
+    private final Map<Language, String> scripts = new EnumMap<>(Language.class);
+    private final Map<Language, Long> retryAt = new EnumMap<>(Language.class); // only touched by the spawner thread
+    private String javaWorkerVersion; // only touched by the spawner thread
+
+    private ExecutorService spawner;
+    private ScheduledExecutorService watchdog;
+    private Path workDir;
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        spawner = Executors.newSingleThreadExecutor(daemon("worker-spawner"));
+        watchdog = Executors.newSingleThreadScheduledExecutor(daemon("worker-watchdog"));
+        workDir = Files.createTempDirectory("coderank_worker_");
+
+        for (Language language : SUPPORTED) {
+            idle.put(language, new ConcurrentLinkedQueue<>());
+            live.put(language, new AtomicInteger());
+            scripts.put(language, loadScript(language));
+            replenish(language);
+        }
+    }
+
+    public boolean supports(Language language) {
+        return enabled && SUPPORTED.contains(language);
+    }
+
+    List<String> getJavaOptions() {
+        return List.of(javaOptions);
+    }
+
+    /**
+     * Blocks until a worker of the language is idle, starting one if none is. Returns
+     * {@code false} when none became ready within the timeout.
+     */
+    boolean awaitIdle(Language language, long timeoutMs) throws InterruptedException {
+        if (!supports(language)) {
+            return false;
+        }
+        ConcurrentLinkedQueue<WorkerProcess> queue = idle.get(language);
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        replenish(language);
+        synchronized (queue) {
+            while (queue.isEmpty()) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                queue.wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Runs a submission on an idle worker. The payload is the source code for interpreted
+     * languages and {@code <classesDir>\n<mainClass>} for JAVA. Returns empty when no worker is
+     * ready, in which case the caller should fall back to a regular process launch.
+     */
+    public Optional<ExecutionResult> execute(Language language, String payload, String input, long timeoutMs)
+            throws TimeoutException {
+        if (!supports(language) || SINGLE_USE.contains(language)) {
+            return Optional.empty();
+        }
+
+        WorkerProcess worker = idle.get(language).poll();
+        if (worker == null) {
+            replenish(language);
+            return Optional.empty();
+        }
+
+        long startTime = System.currentTimeMillis();
+        ResourceMonitor.Watch usage = resourceMonitor.watch(worker.toHandle(), true);
+        WorkerProcess.Reply reply = null;
+        try {
+            reply = worker.run(payload, input, timeoutMs, outputBufferBytes, maxOutputBytes, watchdog);
+        } catch (IOException e) {
+            if (usage.getExceeded() == null) {
+                log.warn("{} worker failed mid-run, recycling it", language, e);
+            }
+        } finally {
+            usage.stop();
+            // Nothing a submission started may keep running once it is done
+            processTreeManager.reapDescendants(worker.toHandle());
+            release(worker);
+        }
+
+        // A warm JVM's resident set says little about one run, so the JAVA worker reports its heap use
+        long memoryKb = reply != null && reply.memoryKb() >= 0 ? reply.memoryKb() : usage.getPeakMemoryKb();
+        ExecutionResult.ExecutionResultBuilder result = ExecutionResult.builder()
+            .executionTimeMs(System.currentTimeMillis() - startTime)
+            .memoryUsedKb(memoryKb)
+            .cpuTimeMs(usage.getCpuTimeMs())
+            .timeout(false);
+
+        if (usage.getExceeded() != null) {
+            // The worker was killed mid-run, so whatever it captured is lost
+            return Optional.of(result
+                .output("")
+                .error(resourceMonitor.describe(usage.getExceeded()))
+                .exitCode(-1)
+                .limitExceeded(usage.getExceeded())
+                .build());
+        }
+        if (reply == null) {
+            return Optional.of(result
+                .output("")
+                .error("Execution failed: interpreter exited unexpectedly")
+                .exitCode(-1)
+                .build());
+        }
+        return Optional.of(result
+            .output(reply.output())
+            .error(reply.error())
+            .exitCode(reply.exitCode())
+            .outputTruncated(reply.truncated())
+            .build());
+    }
+
+    /**
+     * Hands the source to an idle single-use worker, which from then on is the program's process,
+     * running in {@code workDir}: what is written to its stdin is the program's input, and its
+     * output and exit code are the program's own. Returns empty when no worker is ready, in which
+     * case the caller should launch the program itself.
+     */
+    public Optional<Process> handOff(Language language, String code, Path workDir) {
+        if (!supports(language) || !SINGLE_USE.contains(language)) {
+            return Optional.empty();
+        }
+
+        WorkerProcess worker = idle.get(language).poll();
+        if (worker == null) {
+            replenish(language);
+            return Optional.empty();
+        }
+        live.get(language).decrementAndGet();
+        replenish(language);
+        try {
+            return Optional.of(worker.handOff(code, workDir));
+        } catch (IOException e) {
+            log.warn("{} worker died while idle: {}", language, e.getMessage());
+            worker.kill();
+            return Optional.empty();
+        }
+    }
+
+    private void release(WorkerProcess worker) {
+        Language language = worker.getLanguage();
+        if (worker.isAlive() && worker.getRuns() < maxRunsPerWorker) {
+            offerIdle(worker);
+            return;
+        }
+        worker.kill();
+        live.get(language).decrementAndGet();
+        replenish(language);
+    }
+
+    private void offerIdle(WorkerProcess worker) {
+        ConcurrentLinkedQueue<WorkerProcess> queue = idle.get(worker.getLanguage());
+        queue.offer(worker);
+        synchronized (queue) {
+            queue.notifyAll();
+        }
+    }
+
+    private void replenish(Language language) {
+        if (spawner.isShutdown()) {
+            return;
+        }
+        spawner.execute(() -> {
+            AtomicInteger count = live.get(language);
+            if (System.currentTimeMillis() < retryAt.getOrDefault(language, 0L)) {
+                return;
+            }
+            while (count.get() < poolSize && !spawner.isShutdown() && runtimeRegistry.isAvailable(language)) {
+                if (language == Language.JAVA) {
+                    try {
+                        compileJavaWorker();
+                    } catch (TimeoutException e) {
+                        // Only slow, e.g. on a loaded host; the next run that finds no worker tries again
+                        log.warn("Could not build the {} worker: {}", language, e.getMessage());
+                        return;
+                    } catch (IOException e) {
+                        log.warn("Could not build the {} worker: {}", language, e.getMessage());
+                        retryAt.put(language, System.currentTimeMillis() + RETRY_BACKOFF_MS);
+                        return;
+                    }
+                }
+                try {
+                    // A JAVA worker runs submissions in its own process, so they must not see its channel
+                    WorkerProcess worker = WorkerProcess.start(language, launchCommand(language),
+                        language == Language.JAVA, warmupTimeout * 1000, watchdog);
+                    count.incrementAndGet();
+                    offerIdle(worker);
+                } catch (IOException | TimeoutException e) {
+                    log.warn("Could not start {} worker: {}", language, e.getMessage());
+                    retryAt.put(language, System.currentTimeMillis() + RETRY_BACKOFF_MS);
+                    return;
+                }
+            }
+        });
+    }
+
+    private ProcessBuilder launchCommand(Language language) {
+        String script = scripts.get(language);
+        String executable = runtimeRegistry.get(language).executable();
+        List<String> command = switch (language) {
+            case PYTHON -> List.of(executable, "-u", "-c", script);
+            case JAVASCRIPT -> List.of(executable, "-e", script);
+            case JAVA -> {
+                List<String> java = new ArrayList<>(List.of(executable));
+                java.addAll(List.of(javaOptions));
+                // Lets the worker read the shutdown hooks a submission registers, see JavaWorker.JvmState
+                java.addAll(List.of("--add-opens", "java.base/java.lang=" + JAVA_WORKER_MODULE,
+                    "-p", javaWorkerDir().toString(),
+                    "-m", JAVA_WORKER_MODULE + "/" + JAVA_WORKER_MODULE + "." + JAVA_WORKER_CLASS));
+                yield java;
+            }
+            default -> throw new IllegalArgumentException("No worker for " + language);
+        };
+        ProcessBuilder builder = new ProcessBuilder(command).directory(workDir.toFile());
+        // A single-use worker's stderr becomes the program's
+        return SINGLE_USE.contains(language) ? builder : builder.redirectError(ProcessBuilder.Redirect.DISCARD);
+    }
+
+    /**
+     * Builds the JAVA worker with the javac on PATH so it runs on whatever JDK submissions run on,
+     * within the compile timeout rather than the warm-up one. Rebuilt when a runtime refresh picks
+     * up a different JDK.
+     */
+    private void compileJavaWorker() throws IOException, TimeoutException {
+        RuntimeRegistry.LanguageRuntime runtime = runtimeRegistry.get(Language.JAVA);
+        if (runtime.version().equals(javaWorkerVersion)) {
+            return;
+        }
+
+        Path dir = javaWorkerDir();
+        Files.createDirectories(dir);
+        Path source = dir.resolve(JAVA_WORKER_CLASS + ".java");
+        Files.writeString(source, scripts.get(Language.JAVA));
+        Path module = dir.resolve("module-info.java");
+        Files.writeString(module, "module " + JAVA_WORKER_MODULE + " {\n    requires java.management;\n}\n");
+
+        Process javac = new ProcessBuilder(runtime.compiler(), "-d", dir.toString(), module.toString(),
+                source.toString())
+            .redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .start();
+        try {
+            if (!javac.waitFor(compileTimeout, TimeUnit.SECONDS)) {
+                javac.destroyForcibly();
+                throw new TimeoutException("JAVA worker did not compile within " + compileTimeout + "s");
+            }
+        } catch (InterruptedException e) {
+            javac.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compiling the JAVA worker", e);
+        }
+        if (javac.exitValue() != 0) {
+            throw new IOException("javac exited with " + javac.exitValue() + " while compiling the JAVA worker");
+        }
+        javaWorkerVersion = runtime.version();
+    }
+
+    private Path javaWorkerDir() {
+        return workDir.resolve("java-worker");
+    }
+
+    private String loadScript(Language language) throws IOException {
+        String resource = switch (language) {
+            case PYTHON -> "/workers/python_worker.py";
+            case JAVASCRIPT -> "/workers/node_worker.js";
+            case JAVA -> "/workers/" + JAVA_WORKER_CLASS + ".java";
+            default -> throw new IllegalArgumentException("No worker for " + language);
+        };
+        try (InputStream in = WorkerPool.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("Missing worker script " + resource);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        spawner.shutdownNow();
+        watchdog.shutdownNow();
+        idle.values().forEach(queue -> {
+            WorkerProcess worker;
+            while ((worker = queue.poll()) != null) {
+                worker.kill();
+            }
+        });
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
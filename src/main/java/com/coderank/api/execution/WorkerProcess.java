@@ -0,0 +1,289 @@
+package com.coderank.api.execution;
+
+import com.coderank.api.domain.Language;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A pre-started interpreter process that runs submissions handed to it over stdin/stdout.
+ * <p>
+ * Requests are framed as {@code RUN <nonce> <codeBytes> <inputBytes> <maxOutputBytes>\n} followed by
+ * the payloads, replies as {@code DONE <nonce> <exitCode> <stdoutBytes> <stderrBytes> <limitExceeded>\n}
+ * followed by the captured streams. The worker stops a run once its output exceeds the limit. A
+ * trailing {@code 1} on the reply asks for the worker to be retired, and a run that exits the worker
+ * is answered with {@code EXIT <nonce> <stdoutBytes> <stderrBytes> <limitExceeded>\n}, its exit code
+ * being the process's. A worker that measures memory itself, as the JAVA one does, sends the
+ * retire flag either way and adds the KB the run used. A reply that does not carry the run's
+ * nonce, claims more output than the limit allows or is followed by stray bytes means the channel
+ * is out of sync, and kills the worker.
+ * <p>
+ * A worker that runs submissions in its own process, as the JAVA one does, can't be talked to over
+ * fds 0 and 1, which any submission can open. It is {@linkplain #start started} with a socket
+ * control channel instead: its stdin carries a single {@code <port> <token>\n} line and is then
+ * closed, its stdout is discarded, and it connects back to the port and presents the token.
+ * <p>
+ * A single-use worker is instead {@linkplain #handOff handed} one program as
+ * {@code RUN <codeBytes>\n<workDir>\n} followed by the code, and becomes that program's process.
+ */
+class WorkerProcess {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Language language;
+    private final Process process;
+    private final InputStream control;
+    private final OutputStream commands;
+    private final Socket channel;
+    private int runs;
+    private boolean retiring;
+    private volatile boolean killed;
+
+    private WorkerProcess(Language language, Process process, Socket channel) throws IOException {
+        this.language = language;
+        this.process = process;
+        this.channel = channel;
+        this.control = channel == null
+            ? process.getInputStream()
+            : new BufferedInputStream(channel.getInputStream());
+        this.commands = channel == null
+            ? process.getOutputStream()
+            : new BufferedOutputStream(channel.getOutputStream());
+    }
+
+    /**
+     * Starts a worker and waits for its handshake, talking to it over a socket when
+     * {@code overSocket} is set and over its stdin/stdout otherwise.
+     */
+    static WorkerProcess start(Language language, ProcessBuilder builder, boolean overSocket, long warmupTimeoutMs,
+                               ScheduledExecutorService watchdog) throws IOException, TimeoutException {
+        WorkerProcess worker = overSocket
+            ? connect(language, builder, warmupTimeoutMs)
+            : new WorkerProcess(language, builder.start(), null);
+        ScheduledFuture<?> deadline = watchdog.schedule(worker::kill, warmupTimeoutMs, TimeUnit.MILLISECONDS);
+        try {
+            String ready = worker.readLine();
+            if (!"READY".equals(ready)) {
+                worker.kill();
+                throw new IOException("Unexpected worker handshake: " + ready);
+            }
+        } catch (IOException e) {
+            worker.kill();
+            if (worker.killed) {
+                throw new TimeoutException(language + " worker did not become ready within " + warmupTimeoutMs + "ms");
+            }
+            throw e;
+        } finally {
+            deadline.cancel(false);
+        }
+        return worker;
+    }
+
+    /**
+     * Starts the worker and accepts its control connection. Only a connection that presents the
+     * token is taken, since any local process can reach the port while it is open.
+     */
+    private static WorkerProcess connect(Language language, ProcessBuilder builder, long warmupTimeoutMs)
+            throws IOException, TimeoutException {
+        String token = nonce();
+        long deadline = System.currentTimeMillis() + warmupTimeoutMs;
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Process process = builder.redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+            try (OutputStream stdin = process.getOutputStream()) {
+                stdin.write((server.getLocalPort() + " " + token + "\n").getBytes(StandardCharsets.US_ASCII));
+            } catch (IOException e) {
+                process.destroyForcibly();
+                throw e;
+            }
+
+            while (true) {
+                long remaining = deadline - System.currentTimeMillis();
+                Socket socket = null;
+                try {
+                    if (remaining <= 0) {
+                        throw new SocketTimeoutException();
+                    }
+                    server.setSoTimeout((int) remaining);
+                    socket = server.accept();
+                    socket.setSoTimeout((int) remaining);
+                    WorkerProcess worker = new WorkerProcess(language, process, socket);
+                    if (token.equals(worker.readLine())) {
+                        socket.setSoTimeout(0);
+                        return worker;
+                    }
+                    socket.close();
+                } catch (SocketTimeoutException e) {
+                    closeQuietly(socket);
+                    process.destroyForcibly();
+                    throw new TimeoutException(language + " worker did not connect within " + warmupTimeoutMs + "ms");
+                } catch (IOException e) {
+                    // A connection that went away before presenting a token
+                    closeQuietly(socket);
+                }
+            }
+        }
+    }
+
+    Reply run(String code, String input, long timeoutMs, int bufferBytes, long maxOutputBytes,
+              ScheduledExecutorService watchdog) throws IOException, TimeoutException {
+        runs++;
+        byte[] codeBytes = code.getBytes(StandardCharsets.UTF_8);
+        byte[] inputBytes = input == null ? new byte[0] : input.getBytes(StandardCharsets.UTF_8);
+        String nonce = nonce();
+
+        ScheduledFuture<?> deadline = watchdog.schedule(this::kill, timeoutMs, TimeUnit.MILLISECONDS);
+        try {
+            String request = "RUN " + nonce + " " + codeBytes.length + " " + inputBytes.length + " "
+                + maxOutputBytes + "\n";
+            commands.write(request.getBytes(StandardCharsets.US_ASCII));
+            commands.write(codeBytes);
+            commands.write(inputBytes);
+            commands.flush();
+
+            String header = readLine();
+            String[] parts = header == null ? new String[0] : header.split(" ");
+            // A run that exited the worker is answered from its shutdown hook, without an exit code
+            boolean exited = parts.length == 5 && "EXIT".equals(parts[0]);
+            if (!exited && (parts.length < 6 || parts.length > 8 || !"DONE".equals(parts[0]))) {
+                throw new IOException("Unexpected worker reply: " + header);
+            }
+            if (!nonce.equals(parts[1])) {
+                throw new IOException("Worker reply is not for this run: " + header);
+            }
+            int fields = exited ? 2 : 3;
+            long stdoutBytes = Long.parseLong(parts[fields]);
+            long stderrBytes = Long.parseLong(parts[fields + 1]);
+            // Workers stop a run at the limit, so a reply claiming more is not theirs
+            if (stdoutBytes < 0 || stderrBytes < 0 || stdoutBytes + stderrBytes > maxOutputBytes) {
+                throw new IOException("Worker reply exceeds the output limit: " + header);
+            }
+            BoundedOutput output = new BoundedOutput(bufferBytes);
+            output.readFrom(control, stdoutBytes);
+            BoundedOutput error = new BoundedOutput(bufferBytes);
+            error.readFrom(control, stderrBytes);
+            boolean limitExceeded = "1".equals(parts[fields + 2]);
+            retiring = exited || (parts.length >= 7 && "1".equals(parts[6]));
+            int exitCode = exited ? awaitExit() : Integer.parseInt(parts[2]);
+            long memoryKb = parts.length == 8 ? Long.parseLong(parts[7]) : -1;
+            if (!exited && control.available() > 0) {
+                // Nothing is sent between replies; whatever is there would be taken for the next one
+                retiring = true;
+            }
+
+            String errorText = error.toString();
+            if (limitExceeded) {
+                errorText += "\nOutput limit of " + maxOutputBytes + " bytes exceeded, process was terminated\n";
+            }
+            return new Reply(exitCode, output.toString(), errorText,
+                limitExceeded || output.isTruncated() || error.isTruncated(), memoryKb);
+        } catch (IOException | NumberFormatException e) {
+            kill();
+            if (killed && deadline.isDone()) {
+                throw new TimeoutException("Execution exceeded timeout of " + timeoutMs + "ms");
+            }
+            throw e instanceof IOException io ? io : new IOException(e);
+        } finally {
+            deadline.cancel(false);
+        }
+    }
+
+    Process handOff(String code, Path workDir) throws IOException {
+        runs++;
+        byte[] codeBytes = code.getBytes(StandardCharsets.UTF_8);
+        commands.write(("RUN " + codeBytes.length + "\n" + workDir + "\n").getBytes(StandardCharsets.UTF_8));
+        commands.write(codeBytes);
+        commands.flush();
+        return process;
+    }
+
+    Language getLanguage() {
+        return language;
+    }
+
+    int getRuns() {
+        return runs;
+    }
+
+    ProcessHandle toHandle() {
+        return process.toHandle();
+    }
+
+    /**
+     * Whether the worker can take another run; false once a run asked for it to be retired.
+     */
+    boolean isAlive() {
+        return !killed && !retiring && process.isAlive();
+    }
+
+    void kill() {
+        killed = true;
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+        closeQuietly(channel);
+    }
+
+    private static String nonce() {
+        byte[] bytes = new byte[16];
+        RANDOM.nextBytes(bytes);
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    private static void closeQuietly(Socket socket) {
+        if (socket == null) {
+            return;
+        }
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Nothing left to do with it
+        }
+    }
+
+    private int awaitExit() throws IOException {
+        try {
+            int exitCode = process.waitFor();
+            if (killed) {
+                throw new EOFException("Worker was killed");
+            }
+            return exitCode;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the worker to exit", e);
+        }
+    }
+
+    private String readLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = control.read()) != '\n') {
+            if (b == -1) {
+                throw new EOFException("Worker exited");
+            }
+            line.write(b);
+        }
+        return line.toString(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * @param memoryKb memory the run used as measured by the worker, or -1 when it doesn't measure
+     */
+    record Reply(int exitCode, String output, String error, boolean truncated, long memoryKb) {
+    }
+}
@@ -0,0 +1,179 @@
+package com.coderank.api.execution;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Hands out empty working directories for executions. Directories are created ahead of time and
+ * recycled: a released workspace is wiped by a background thread in batches and goes back to the
+ * idle set, so neither creation nor cleanup happens on the request path. The root defaults to
+ * {@code /dev/shm} when it exists, keeping short-lived files off the disk.
+ */
+@Component
+@Slf4j
+public class WorkspacePool {
+
+    private static final Path SHARED_MEMORY = Path.of("/dev/shm");
+
+    @Value("${execution.workspace.root:}")
+    private String configuredRoot;
+
+    @Value("${execution.workspace.pool-size:16}")
+    private int poolSize;
+
+    @Value("${execution.workspace.cleanup-interval-ms:100}")
+    private long cleanupIntervalMs;
+
+    private final ConcurrentLinkedQueue<Path> idle = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Path> dirty = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicInteger sequence = new AtomicInteger();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+
+    private Path root;
+    private ScheduledExecutorService cleaner;
+
+    @PostConstruct
+    void start() throws IOException {
+        Path base = configuredRoot.isBlank()
+            ? (Files.isDirectory(SHARED_MEMORY) && Files.isWritable(SHARED_MEMORY)
+                ? SHARED_MEMORY : Path.of(System.getProperty("java.io.tmpdir")))
+            : Path.of(configuredRoot);
+        Files.createDirectories(base);
+        root = Files.createTempDirectory(base, "coderank-workspaces-");
+
+        for (int i = 0; i < poolSize; i++) {
+            idle.offer(create());
+            idleCount.incrementAndGet();
+        }
+
+        cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "workspace-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        cleaner.scheduleWithFixedDelay(this::cleanBatch, cleanupIntervalMs, cleanupIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Workspaces under {}", root);
+    }
+
+    /**
+     * Takes an empty workspace, creating one when none is idle. Close it to give it back.
+     */
+    public Workspace acquire() throws IOException {
+        Path dir = idle.poll();
+        if (dir != null) {
+            idleCount.decrementAndGet();
+            reused.incrementAndGet();
+            return new Workspace(dir);
+        }
+        return new Workspace(create());
+    }
+
+    private Path create() throws IOException {
+        created.incrementAndGet();
+        return Files.createDirectory(root.resolve("ws-" + sequence.incrementAndGet()));
+    }
+
+    /**
+     * Wipes every workspace released since the last pass. Clean ones refill the idle set up to
+     * {@code pool-size}; the rest are removed.
+     */
+    private void cleanBatch() {
+        List<Path> batch = new ArrayList<>();
+        Path dir;
+        while ((dir = dirty.poll()) != null) {
+            batch.add(dir);
+        }
+
+        for (Path workspace : batch) {
+            try {
+                boolean keep = idleCount.get() < poolSize;
+                deleteRecursively(workspace, keep);
+                if (keep) {
+                    idleCount.incrementAndGet();
+                    idle.offer(workspace);
+                }
+            } catch (IOException | UncheckedIOException e) {
+                log.warn("Failed to clean workspace {}", workspace, e);
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path dir, boolean keepDir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                if (!keepDir || !path.equals(dir)) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    Path getRoot() {
+        return root;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("root", root.toString());
+        stats.put("idle", idleCount.get());
+        stats.put("pendingCleanup", dirty.size());
+        stats.put("created", created.get());
+        stats.put("reused", reused.get());
+        return stats;
+    }
+
+    @PreDestroy
+    void shutdown() throws IOException {
+        cleaner.shutdownNow();
+        deleteRecursively(root, false);
+    }
+
+    /**
+     * An empty directory owned by one execution until closed.
+     */
+    public class Workspace implements AutoCloseable {
+        private final Path dir;
+        private boolean released;
+
+        private Workspace(Path dir) {
+            this.dir = dir;
+        }
+
+        public Path getDir() {
+            return dir;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                dirty.offer(dir);
+            }
+        }
+    }
+}
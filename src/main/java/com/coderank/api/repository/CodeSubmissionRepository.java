@@ -2,19 +2,41 @@ package com.coderank.api.repository;
 
 import com.coderank.api.domain.CodeSubmission;
 import com.coderank.api.domain.SubmissionStatus;
+import org.bson.types.ObjectId;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface CodeSubmissionRepository extends MongoRepository<CodeSubmission, String> {
+public interface CodeSubmissionRepository extends MongoRepository<CodeSubmission, String>, CodeSubmissionRepositoryCustom {
+    // Leaves out the fields only a single submission's view needs
+    String SUMMARY_FIELDS = "{'code': 0, 'output': 0, 'errorMessage': 0, 'testCaseResults': 0}";
+
     Page<CodeSubmission> findByUserId(String userId, Pageable pageable);
     List<CodeSubmission> findByStatus(SubmissionStatus status);
     List<CodeSubmission> findByUserIdAndCreatedAtAfter(String userId, LocalDateTime date);
     long countByUserIdAndCreatedAtAfter(String userId, LocalDateTime date);
-}
 
+    @Query(value = "{'userId': ?0}", fields = SUMMARY_FIELDS)
+    Page<CodeSubmission> findSummaryPageByUserId(String userId, Pageable pageable);
+
+    /**
+     * The first page of a user's history; as a list, so no count query is issued.
+     */
+    @Query(value = "{'userId': ?0}", fields = SUMMARY_FIELDS)
+    List<CodeSubmission> findSummariesByUserId(String userId, Pageable pageable);
+
+    /**
+     * The page of a user's history that follows the submission {@code (createdAt, id)} when
+     * sorted by createdAt, then id, both descending.
+     */
+    @Query(value = "{'userId': ?0, '$or': [{'createdAt': {'$lt': ?1}}, {'createdAt': ?1, '_id': {'$lt': ?2}}]}",
+        fields = SUMMARY_FIELDS)
+    List<CodeSubmission> findSummariesByUserIdAfter(String userId, LocalDateTime createdAt, ObjectId id,
+                                                    Pageable pageable);
+}
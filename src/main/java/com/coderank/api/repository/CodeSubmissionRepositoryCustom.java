@@ -0,0 +1,22 @@
+package com.coderank.api.repository;
+
+import com.coderank.api.domain.CodeSubmission;
+
+/**
+ * Status transitions of a submission as targeted {@code $set} updates, so the code and output are
+ * never rewritten and nothing is read before writing.
+ */
+public interface CodeSubmissionRepositoryCustom {
+
+    /**
+     * Moves a PENDING submission to RUNNING. A submission that has already moved on is left as
+     * it is, so the write may be unacknowledged and arrive late.
+     */
+    void markRunning(String id);
+
+    /**
+     * Writes the outcome of a finished submission: its status, result fields and completion time.
+     * Fields that are {@code null} are left untouched.
+     */
+    void complete(CodeSubmission submission);
+}
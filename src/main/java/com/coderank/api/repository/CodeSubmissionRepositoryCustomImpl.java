@@ -0,0 +1,89 @@
+package com.coderank.api.repository;
+
+import com.coderank.api.domain.CodeSubmission;
+import com.coderank.api.domain.SubmissionStatus;
+import com.mongodb.WriteConcern;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Intermediate transitions are written with {@code execution.submissions.write-concern.intermediate}
+ * and results with {@code execution.submissions.write-concern.result}, through templates that
+ * share the application's connection pool.
+ */
+public class CodeSubmissionRepositoryCustomImpl implements CodeSubmissionRepositoryCustom {
+
+    private final MongoTemplate intermediate;
+    private final MongoTemplate result;
+
+    public CodeSubmissionRepositoryCustomImpl(
+            MongoTemplate mongoTemplate,
+            @Value("${execution.submissions.write-concern.intermediate:UNACKNOWLEDGED}") String intermediateWriteConcern,
+            @Value("${execution.submissions.write-concern.result:ACKNOWLEDGED}") String resultWriteConcern) {
+        intermediate = withWriteConcern(mongoTemplate, intermediateWriteConcern);
+        result = withWriteConcern(mongoTemplate, resultWriteConcern);
+    }
+
+    private static MongoTemplate withWriteConcern(MongoTemplate mongoTemplate, String name) {
+        WriteConcern writeConcern = WriteConcern.valueOf(name);
+        if (writeConcern == null) {
+            throw new IllegalArgumentException("Unknown write concern " + name);
+        }
+        MongoTemplate template = new MongoTemplate(mongoTemplate.getMongoDatabaseFactory(), mongoTemplate.getConverter());
+        template.setWriteConcern(writeConcern);
+        return template;
+    }
+
+    @Override
+    public void markRunning(String id) {
+        intermediate.updateFirst(runningQuery(id), runningUpdate(), CodeSubmission.class);
+    }
+
+    @Override
+    public void complete(CodeSubmission submission) {
+        result.updateFirst(new Query(where("_id").is(submission.getId())), completeUpdate(submission),
+            CodeSubmission.class);
+    }
+
+    static Query runningQuery(String id) {
+        return new Query(where("_id").is(id).and("status").is(SubmissionStatus.PENDING));
+    }
+
+    static Update runningUpdate() {
+        return new Update().set("status", SubmissionStatus.RUNNING);
+    }
+
+    static Update completeUpdate(CodeSubmission submission) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("status", submission.getStatus());
+        fields.put("output", submission.getOutput());
+        fields.put("errorMessage", submission.getErrorMessage());
+        fields.put("outputSize", submission.getOutputSize());
+        fields.put("outputFileId", submission.getOutputFileId());
+        fields.put("errorSize", submission.getErrorSize());
+        fields.put("errorFileId", submission.getErrorFileId());
+        fields.put("outputTruncated", submission.getOutputTruncated());
+        fields.put("executionTimeMs", submission.getExecutionTimeMs());
+        fields.put("compileTimeMs", submission.getCompileTimeMs());
+        fields.put("memoryUsedKb", submission.getMemoryUsedKb());
+        fields.put("cpuTimeMs", submission.getCpuTimeMs());
+        fields.put("testCaseResults", submission.getTestCaseResults());
+        fields.put("passedTestCases", submission.getPassedTestCases());
+        fields.put("completedAt", submission.getCompletedAt());
+
+        Update update = new Update();
+        fields.forEach((field, value) -> {
+            if (value != null) {
+                update.set(field, value);
+            }
+        });
+        return update;
+    }
+}
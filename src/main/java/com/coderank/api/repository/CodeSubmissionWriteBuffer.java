@@ -0,0 +1,448 @@
+package com.coderank.api.repository;
+
+import com.coderank.api.domain.CodeSubmission;
+import com.coderank.api.domain.SubmissionStatus;
+import com.coderank.api.exception.ExecutionQueueFullException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.data.util.Pair;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Optional write-behind stage for submission inserts and status transitions. With
+ * {@code execution.submissions.write-behind.enabled} they are queued and written every
+ * {@code flush-interval-ms}, or as soon as {@code max-batch} are waiting, as unordered bulk
+ * writes: the batch's inserts first, then its updates, so no update overtakes the insert it
+ * applies to. Batches are written one at a time, in order; a failed one is retried up to
+ * {@link #MAX_ATTEMPTS} times with exponential backoff, duplicate inserts from an earlier partial
+ * attempt being ignored. A write that runs out of attempts is logged in full so it can be
+ * replayed.
+ * <p>
+ * Until written, a submission is served from memory by {@link #find}, and history reads write
+ * the user's pending writes first through {@link #flushUser}, which fails rather than let them
+ * read without their own writes. With {@code capacity} writes waiting, callers write a batch
+ * themselves, and a new submission that still finds the buffer full, typically while Mongo is
+ * down, is rejected like one finding a full execution queue. Status transitions of accepted
+ * submissions are always taken, as only submissions being executed make them. Pending writes
+ * are flushed on shutdown, retried for up to {@code shutdown-timeout-ms} and logged after that;
+ * from then on, and without write-behind, every call writes through.
+ * <p>
+ * Submissions of the distributed queue bypass the buffer: their jobs are deleted once run, so a
+ * write lost with this node could never be recovered.
+ */
+@Component
+@Slf4j
+public class CodeSubmissionWriteBuffer {
+
+    private static final int MAX_ATTEMPTS = 10;
+    private static final long BACKOFF_MS = 100;
+    private static final long MAX_BACKOFF_MS = 5000;
+    private static final int DUPLICATE_KEY = 11000;
+    private static final long FLUSH_USER_TIMEOUT_MS = 1000;
+
+    @Autowired
+    private CodeSubmissionRepository submissionRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${execution.submissions.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${execution.submissions.write-behind.max-batch:500}")
+    private int maxBatch;
+
+    @Value("${execution.submissions.write-behind.flush-interval-ms:20}")
+    private long flushIntervalMs;
+
+    @Value("${execution.submissions.write-behind.capacity:10000}")
+    private int capacity;
+
+    @Value("${execution.submissions.write-behind.shutdown-timeout-ms:30000}")
+    private long shutdownTimeoutMs;
+
+    // Guarded by this, as is closed
+    private final Deque<Write> pending = new ArrayDeque<>();
+    private boolean closed;
+    // Latest state of submissions whose writes are still pending
+    private final Map<String, CodeSubmission> unflushed = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+    // Guarded by flushLock: failed flushes in a row, the last one's cause, and the nanoTime
+    // before which none is tried
+    private int failures;
+    private RuntimeException lastFailure;
+    private long retryAt = System.nanoTime();
+    private ScheduledExecutorService flusher;
+
+    private final AtomicLong buffered = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final AtomicLong callerFlushes = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * One queued write: an insert, or an update of a submission that may itself still be queued.
+     */
+    private record Write(String submissionId, CodeSubmission insert, Query query, Update update,
+                         CodeSubmission view, int attempts) {
+
+        Write retried() {
+            return new Write(submissionId, insert, query, update, view, attempts + 1);
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "submission-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushPending, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Write-behind of submissions enabled, batches of up to {} every {} ms", maxBatch, flushIntervalMs);
+    }
+
+    /**
+     * Inserts a new submission, assigning its id right away.
+     *
+     * @throws ExecutionQueueFullException when the buffer is full and cannot be written out
+     */
+    public CodeSubmission insert(CodeSubmission submission) {
+        if (submission.getId() == null && enabled) {
+            submission.setId(new ObjectId().toHexString());
+        }
+        if (!enqueue(new Write(submission.getId(), submission, null, null, submission, 0))) {
+            return submissionRepository.save(submission);
+        }
+        return submission;
+    }
+
+    /**
+     * @see CodeSubmissionRepositoryCustom#markRunning
+     */
+    public void markRunning(CodeSubmission submission) {
+        String id = submission.getId();
+        // A copy, as the caller goes on to fill in the result
+        CodeSubmission view = unflushed.getOrDefault(id, submission).toBuilder()
+            .status(SubmissionStatus.RUNNING)
+            .build();
+        Write write = new Write(id, null, CodeSubmissionRepositoryCustomImpl.runningQuery(id),
+            CodeSubmissionRepositoryCustomImpl.runningUpdate(), view, 0);
+        if (!enqueue(write)) {
+            submissionRepository.markRunning(id);
+        }
+    }
+
+    /**
+     * @see CodeSubmissionRepositoryCustom#complete
+     */
+    public void complete(CodeSubmission submission) {
+        Write write = new Write(submission.getId(), null, new Query(where("_id").is(submission.getId())),
+            CodeSubmissionRepositoryCustomImpl.completeUpdate(submission), submission, 0);
+        if (!enqueue(write)) {
+            submissionRepository.complete(submission);
+        }
+    }
+
+    /**
+     * The submission as last written, while that write is still pending.
+     */
+    public Optional<CodeSubmission> find(String id) {
+        return enabled ? Optional.ofNullable(unflushed.get(id)) : Optional.empty();
+    }
+
+    /**
+     * Writes pending writes until none of the user's are left, before their history is read,
+     * waiting out backoffs that end within {@link #FLUSH_USER_TIMEOUT_MS}.
+     *
+     * @throws DataAccessResourceFailureException when the user's writes could not be written
+     */
+    public void flushUser(String userId) {
+        if (!enabled) {
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_USER_TIMEOUT_MS);
+        while (hasPending(userId)) {
+            if (!flushBatch(deadline) && (!retriesBy(deadline) || Thread.currentThread().isInterrupted())) {
+                synchronized (flushLock) {
+                    throw new DataAccessResourceFailureException(
+                        "Pending submission writes could not be written", lastFailure);
+                }
+            }
+        }
+    }
+
+    private boolean hasPending(String userId) {
+        return unflushed.values().stream().anyMatch(submission -> userId.equals(submission.getUserId()));
+    }
+
+    /**
+     * Queues the write, or returns false when it has to be written through.
+     */
+    private boolean enqueue(Write write) {
+        if (!enabled) {
+            return false;
+        }
+        if (write.insert() != null && isFull()) {
+            // Hold the caller back rather than grow without bound
+            callerFlushes.incrementAndGet();
+            flushBatch(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_BACKOFF_MS));
+            if (isFull()) {
+                rejected.incrementAndGet();
+                throw new ExecutionQueueFullException("Submission writes are backed up, please retry later",
+                    TimeUnit.MILLISECONDS.toSeconds(MAX_BACKOFF_MS));
+            }
+        }
+
+        int size;
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            if (write.view() != null) {
+                unflushed.put(write.submissionId(), write.view());
+            }
+            pending.addLast(write);
+            size = pending.size();
+        }
+        buffered.incrementAndGet();
+
+        if (size % maxBatch == 0) {
+            try {
+                flusher.execute(this::flushPending);
+            } catch (RejectedExecutionException e) {
+                // Shutting down, which writes everything still pending
+            }
+        }
+        return true;
+    }
+
+    private synchronized boolean isFull() {
+        return pending.size() >= capacity;
+    }
+
+    /**
+     * Writes batches until the queue is empty or a batch fails or is still backing off.
+     */
+    private void flushPending() {
+        while (flushBatch(System.nanoTime())) {
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the oldest batch, waiting out a backoff that ends by {@code waitUntil} (a nanoTime);
+     * returns false when it failed and was put back, or is still backing off.
+     */
+    private boolean flushBatch(long waitUntil) {
+        synchronized (flushLock) {
+            long delay = retryAt - System.nanoTime();
+            if (delay > 0 && retryAt - waitUntil > 0) {
+                return false;
+            } else if (delay > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+
+            List<Write> batch = new ArrayList<>();
+            synchronized (this) {
+                while (batch.size() < maxBatch && !pending.isEmpty()) {
+                    batch.add(pending.pollFirst());
+                }
+            }
+            if (batch.isEmpty()) {
+                return true;
+            }
+
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                failedFlushes.incrementAndGet();
+                lastFailure = e;
+                long backoff = Math.min(MAX_BACKOFF_MS, BACKOFF_MS << Math.min(failures++, 16));
+                retryAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoff);
+                log.warn("Failed to write {} buffered submission writes, retrying in {} ms: {}",
+                    batch.size(), backoff, e.getMessage());
+                requeue(batch);
+                return false;
+            }
+
+            failures = 0;
+            lastFailure = null;
+            flushes.incrementAndGet();
+            written.addAndGet(batch.size());
+            for (Write write : batch) {
+                if (write.view() != null) {
+                    unflushed.remove(write.submissionId(), write.view());
+                }
+            }
+            return true;
+        }
+    }
+
+    private void write(List<Write> batch) {
+        List<CodeSubmission> inserts = new ArrayList<>();
+        List<Pair<Query, UpdateDefinition>> updates = new ArrayList<>();
+        for (Write write : batch) {
+            if (write.insert() != null) {
+                inserts.add(write.insert());
+            } else {
+                updates.add(Pair.of(write.query(), write.update()));
+            }
+        }
+        if (!inserts.isEmpty()) {
+            execute(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CodeSubmission.class).insert(inserts));
+        }
+        if (!updates.isEmpty()) {
+            execute(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CodeSubmission.class).updateOne(updates));
+        }
+    }
+
+    private static void execute(BulkOperations operations) {
+        try {
+            operations.execute();
+        } catch (BulkOperationException e) {
+            // Inserts that made it in an earlier, failed attempt of the batch
+            if (e.getErrors().stream().anyMatch(error -> error.getCode() != DUPLICATE_KEY)) {
+                throw e;
+            }
+        }
+    }
+
+    private void requeue(List<Write> batch) {
+        List<Write> retries = new ArrayList<>();
+        for (Write write : batch) {
+            if (write.attempts() + 1 < MAX_ATTEMPTS) {
+                retries.add(write.retried());
+            } else {
+                abandon(write, "after " + MAX_ATTEMPTS + " attempts");
+            }
+        }
+        synchronized (this) {
+            for (int i = retries.size() - 1; i >= 0; i--) {
+                pending.addFirst(retries.get(i));
+            }
+        }
+    }
+
+    private boolean retriesBy(long deadline) {
+        synchronized (flushLock) {
+            return retryAt - deadline <= 0;
+        }
+    }
+
+    /**
+     * Gives up on a write, logging it as the operation it stands for so it can be replayed by hand.
+     */
+    private void abandon(Write write, String reason) {
+        dropped.incrementAndGet();
+        String operation;
+        try {
+            operation = write.insert() != null
+                ? "insert " + toJson(write.insert())
+                : "updateOne " + toJson(write.query().getQueryObject())
+                    + " " + toJson(write.update().getUpdateObject());
+        } catch (RuntimeException e) {
+            operation = String.valueOf(write.insert() != null ? write.insert() : write.update());
+        }
+        log.error("Gave up on a buffered write of submission {} {}: {}", write.submissionId(), reason, operation);
+        if (write.view() != null) {
+            unflushed.remove(write.submissionId(), write.view());
+        }
+    }
+
+    private String toJson(Object value) {
+        Object converted = mongoTemplate.getConverter().convertToMongoType(value);
+        return converted instanceof Document document ? document.toJson() : String.valueOf(converted);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            closed = true;
+        }
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+
+        // Retry through any backoff that ends in time, then account for whatever is left
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMs);
+        List<Write> left = new ArrayList<>();
+        boolean empty = false;
+        while (!empty) {
+            boolean flushed = flushBatch(deadline);
+            boolean giveUp = !flushed && (!retriesBy(deadline) || Thread.currentThread().isInterrupted());
+            synchronized (this) {
+                if (giveUp) {
+                    left.addAll(pending);
+                    pending.clear();
+                }
+                empty = pending.isEmpty();
+            }
+        }
+        for (Write write : left) {
+            abandon(write, "still pending at shutdown");
+        }
+        log.info("Flushed buffered submission writes, {} written in total, {} given up on",
+            written.get(), dropped.get());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        synchronized (this) {
+            stats.put("pending", pending.size());
+        }
+        stats.put("buffered", buffered.get());
+        stats.put("written", written.get());
+        stats.put("flushes", flushes.get());
+        stats.put("failedFlushes", failedFlushes.get());
+        stats.put("callerFlushes", callerFlushes.get());
+        stats.put("dropped", dropped.get());
+        stats.put("rejected", rejected.get());
+        return stats;
+    }
+}
@@ -1,25 +1,50 @@
 package com.coderank.api.service;
 
 import com.coderank.api.domain.CodeSubmission;
+import com.coderank.api.domain.ExecutionJob;
+import com.coderank.api.domain.Language;
 import com.coderank.api.domain.SubmissionStatus;
+import com.coderank.api.domain.TestCaseResult;
+import com.coderank.api.domain.TestCaseVerdict;
 import com.coderank.api.domain.User;
+import com.coderank.api.dto.BatchExecutionRequest;
 import com.coderank.api.dto.CodeExecutionRequest;
 import com.coderank.api.dto.CodeExecutionResponse;
+import com.coderank.api.dto.SubmissionCursorPage;
+import com.coderank.api.dto.SubmissionSummary;
+import com.coderank.api.dto.TestCase;
+import com.coderank.api.exception.InvalidCursorException;
 import com.coderank.api.execution.CodeValidator;
+import com.coderank.api.execution.ExecutionScheduler;
 import com.coderank.api.execution.LocalExecutionService;
 import com.coderank.api.execution.ExecutionRequest;
 import com.coderank.api.execution.ExecutionResult;
+import com.coderank.api.execution.ResourceMonitor;
+import com.coderank.api.execution.ResultCache;
 import com.coderank.api.repository.CodeSubmissionRepository;
+import com.coderank.api.repository.CodeSubmissionWriteBuffer;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.concurrent.CompletableFuture;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -28,91 +53,529 @@ public class CodeExecutionService {
     @Autowired
     private CodeSubmissionRepository submissionRepository;
 
+    @Autowired
+    private CodeSubmissionWriteBuffer writeBuffer;
+
     @Autowired
     private LocalExecutionService localExecutionService;
 
     @Autowired
     private CodeValidator codeValidator;
 
+    @Autowired
+    private ExecutionScheduler executionScheduler;
+
+    @Autowired
+    private ResultCache resultCache;
+
+    @Autowired
+    private SubmissionEventPublisher eventPublisher;
+
+    @Autowired
+    private ExecutionJobQueue jobQueue;
+
+    @Autowired
+    private OutputStorage outputStorage;
+
+    @Autowired
+    private CodeStore codeStore;
+
+    @Autowired
+    private SubmissionArchive submissionArchive;
+
+    @Autowired
+    private SubmissionResponseCache responseCache;
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final Sort HISTORY_ORDER = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+
+    @Value("${execution.batch.max-parallel-cases:4}")
+    private int maxParallelCases;
+
     public CodeExecutionResponse executeCode(CodeExecutionRequest request) {
         User user = getCurrentUser();
 
         // Validate code for security issues
-        codeValidator.validate(request.getCode(), request.getLanguage().name());
+        codeValidator.validate(request.getCode(), request.getLanguage());
 
-        // Create submission record
+        // Identical earlier runs complete immediately when result caching is enabled
+        String cacheKey = resultCache.key(request.getLanguage(), request.getCode(), request.getInput());
+        Optional<ExecutionResult> cached = resultCache.get(cacheKey);
+        if (cached.isPresent()) {
+            return completeFromCache(user, request, cached.get());
+        }
+
+        return enqueue(user, request.getLanguage(), request.getCode(), ExecutionJob.builder()
+            .request(request)
+            .cacheKey(cacheKey)
+            .build());
+    }
+
+    private CodeExecutionResponse completeFromCache(User user, CodeExecutionRequest request, ExecutionResult result) {
         CodeSubmission submission = CodeSubmission.builder()
             .userId(user.getId())
             .language(request.getLanguage())
-            .code(request.getCode())
+            .codeHash(codeStore.store(request.getCode()))
+            .cached(true)
+            .build();
+
+        submission.onCreate();
+        applyResult(submission, result);
+        submission.setCompletedAt(submission.getCreatedAt());
+        // The stored output is named after the submission, so its id is needed up front
+        submission.setId(new ObjectId().toHexString());
+        outputStorage.offload(submission);
+        return mapToResponse(writeBuffer.insert(submission));
+    }
+
+    /**
+     * Runs the code against every test case under a single submission, compiling it only once.
+     */
+    public CodeExecutionResponse executeBatch(BatchExecutionRequest request) {
+        User user = getCurrentUser();
+
+        // Validate code for security issues
+        codeValidator.validate(request.getCode(), request.getLanguage());
+
+        return enqueue(user, request.getLanguage(), request.getCode(), ExecutionJob.builder()
+            .batchRequest(request)
+            .build());
+    }
+
+    /**
+     * Records the submission and hands the job to the local scheduler or, with the distributed
+     * queue, to whichever node claims it.
+     */
+    private CodeExecutionResponse enqueue(User user, Language language, String code, ExecutionJob job) {
+        // Reject up front when the execution queue is full
+        ExecutionScheduler.Admission admission = null;
+        if (jobQueue.isDistributed()) {
+            jobQueue.checkAccepting();
+        } else {
+            admission = executionScheduler.admit(language);
+        }
+
+        // Create submission record
+        CodeSubmission submission = CodeSubmission.builder()
+            .userId(user.getId())
+            .language(language)
             .status(SubmissionStatus.PENDING)
             .build();
 
         submission.onCreate();
-        submission = submissionRepository.save(submission);
+        try {
+            submission.setCodeHash(codeStore.store(code));
+            // A queued job may be run by another node right away, so its submission must not
+            // wait in this node's write buffer
+            submission = jobQueue.isDistributed()
+                ? submissionRepository.save(submission)
+                : writeBuffer.insert(submission);
+        } catch (RuntimeException e) {
+            if (admission != null) {
+                admission.cancel();
+            }
+            throw e;
+        }
 
-        // Execute asynchronously
-        final String submissionId = submission.getId();
-        CompletableFuture.runAsync(() -> executeAsync(submissionId, request));
+        job.setSubmissionId(submission.getId());
+        job.setLanguage(language);
+        job.setUserId(submission.getUserId());
+        job.setSubmittedAt(submission.getCreatedAt());
+        job.setCodeHash(submission.getCodeHash());
+        if (admission != null) {
+            // Execute asynchronously
+            admission.start(() -> runJob(job));
+        } else {
+            try {
+                jobQueue.submit(job);
+            } catch (RuntimeException e) {
+                submissionRepository.delete(submission);
+                throw e;
+            }
+        }
 
         return mapToResponse(submission);
     }
 
-    private void executeAsync(String submissionId, CodeExecutionRequest request) {
-        CodeSubmission submission = submissionRepository.findById(submissionId).orElseThrow();
+    void runJob(ExecutionJob job) {
+        if (job.getBatchRequest() != null) {
+            executeBatchAsync(job);
+        } else {
+            executeAsync(job);
+        }
+    }
+
+    /**
+     * The submission of a job as far as running it is concerned: results are written with
+     * targeted updates, so the stored document is never read back.
+     */
+    private static CodeSubmission submissionOf(ExecutionJob job) {
+        return CodeSubmission.builder()
+            .id(job.getSubmissionId())
+            .userId(job.getUserId())
+            .language(job.getLanguage())
+            .status(SubmissionStatus.PENDING)
+            .codeHash(job.getCodeHash())
+            .createdAt(job.getSubmittedAt())
+            .build();
+    }
+
+    /**
+     * Fails the submission of a job that kept losing its node.
+     */
+    void abandonJob(ExecutionJob job) {
+        CodeSubmission submission = submissionOf(job);
+        submission.setStatus(SubmissionStatus.FAILED);
+        submission.setErrorMessage("Execution was abandoned after " + (job.getAttempts() - 1) + " attempts");
+        submission.setCompletedAt(LocalDateTime.now());
+        writeResult(submission);
+        eventPublisher.complete(submission.getId(), mapToResponse(submission));
+    }
+
+    /**
+     * A job of the distributed queue is deleted once it ran, after which nothing could recover
+     * a buffered write that never made it, so its transitions are written through.
+     */
+    private void markRunning(CodeSubmission submission) {
+        if (jobQueue.isDistributed()) {
+            submissionRepository.markRunning(submission.getId());
+        } else {
+            writeBuffer.markRunning(submission);
+        }
+    }
+
+    private void writeResult(CodeSubmission submission) {
+        if (jobQueue.isDistributed()) {
+            submissionRepository.complete(submission);
+        } else {
+            writeBuffer.complete(submission);
+        }
+    }
+
+    /**
+     * Sends the result to streams of those submissions that have finished.
+     */
+    void completeStreams(Collection<String> submissionIds) {
+        for (CodeSubmission submission : submissionRepository.findAllById(submissionIds)) {
+            if (submission.getStatus().isTerminal()) {
+                eventPublisher.complete(submission.getId(), mapToResponse(submission));
+            }
+        }
+    }
+
+    private void executeAsync(ExecutionJob job) {
+        String submissionId = job.getSubmissionId();
+        CodeExecutionRequest request = job.getRequest();
+        CodeSubmission submission = submissionOf(job);
 
         try {
             submission.setStatus(SubmissionStatus.RUNNING);
-            submissionRepository.save(submission);
+            markRunning(submission);
+            eventPublisher.publishStatus(submissionId, SubmissionStatus.RUNNING);
 
             ExecutionRequest execRequest = ExecutionRequest.builder()
                 .language(request.getLanguage())
                 .code(request.getCode())
                 .input(request.getInput())
+                .outputListener((stream, text) -> eventPublisher.publishOutput(submissionId, stream, text))
                 .build();
 
             ExecutionResult result = localExecutionService.execute(execRequest);
+            resultCache.put(job.getCacheKey(), result);
+
+            applyResult(submission, result);
+            submission.setCompletedAt(LocalDateTime.now());
 
-            submission.setOutput(result.getOutput());
-            submission.setErrorMessage(result.getError());
-            submission.setExecutionTimeMs(result.getExecutionTimeMs());
-            submission.setMemoryUsedKb(result.getMemoryUsedKb());
+        } catch (Exception e) {
+            log.error("Error executing code", e);
+            submission.setStatus(SubmissionStatus.FAILED);
+            submission.setErrorMessage(e.getMessage());
             submission.setCompletedAt(LocalDateTime.now());
+        }
+
+        outputStorage.offload(submission);
+        writeResult(submission);
+        eventPublisher.complete(submissionId, mapToResponse(submission));
+    }
+
+    private void executeBatchAsync(ExecutionJob job) {
+        String submissionId = job.getSubmissionId();
+        BatchExecutionRequest request = job.getBatchRequest();
+        CodeSubmission submission = submissionOf(job);
 
-            if (result.isTimeout()) {
-                submission.setStatus(SubmissionStatus.TIMEOUT);
-            } else if (result.getExitCode() == 0) {
-                submission.setStatus(SubmissionStatus.COMPLETED);
+        try {
+            submission.setStatus(SubmissionStatus.RUNNING);
+            markRunning(submission);
+            eventPublisher.publishStatus(submissionId, SubmissionStatus.RUNNING);
+
+            ExecutionRequest execRequest = ExecutionRequest.builder()
+                .language(request.getLanguage())
+                .code(request.getCode())
+                .build();
+
+            List<TestCase> testCases = request.getTestCases();
+            List<String> inputs = testCases.stream().map(TestCase::getInput).toList();
+            LocalExecutionService.BatchResult batch = localExecutionService.executeBatch(execRequest, inputs,
+                maxParallelCases, (index, result) -> request.isStopOnFirstFailure()
+                    && verdictOf(result, testCases.get(index).getExpectedOutput()) != TestCaseVerdict.PASSED);
+
+            if (batch.failure() != null) {
+                // Nothing ran, typically a compile error
+                applyResult(submission, batch.failure());
+                submission.setTestCaseResults(List.of());
+                submission.setPassedTestCases(0);
             } else {
-                submission.setStatus(SubmissionStatus.FAILED);
+                applyCaseResults(submission, testCases, batch.cases());
+                submission.setCompileTimeMs(batch.compileTimeMs());
             }
+            submission.setCompletedAt(LocalDateTime.now());
 
         } catch (Exception e) {
-            log.error("Error executing code", e);
+            log.error("Error executing test cases", e);
             submission.setStatus(SubmissionStatus.FAILED);
             submission.setErrorMessage(e.getMessage());
             submission.setCompletedAt(LocalDateTime.now());
         }
 
-        submissionRepository.save(submission);
+        outputStorage.offload(submission);
+        writeResult(submission);
+        eventPublisher.complete(submissionId, mapToResponse(submission));
     }
 
-    public CodeExecutionResponse getSubmission(String id) {
+    private void applyResult(CodeSubmission submission, ExecutionResult result) {
+        submission.setOutput(result.getOutput());
+        submission.setErrorMessage(result.getError());
+        submission.setOutputTruncated(result.isOutputTruncated());
+        submission.setExecutionTimeMs(result.getExecutionTimeMs());
+        submission.setCompileTimeMs(result.getCompileTimeMs());
+        submission.setMemoryUsedKb(result.getMemoryUsedKb());
+        submission.setCpuTimeMs(result.getCpuTimeMs());
+
+        if (result.getLimitExceeded() == ResourceMonitor.Limit.CPU_TIME) {
+            submission.setStatus(SubmissionStatus.CPU_LIMIT_EXCEEDED);
+        } else if (result.getLimitExceeded() == ResourceMonitor.Limit.MEMORY) {
+            submission.setStatus(SubmissionStatus.MEMORY_LIMIT_EXCEEDED);
+        } else if (result.isTimeout()) {
+            submission.setStatus(SubmissionStatus.TIMEOUT);
+        } else if (result.getExitCode() == 0) {
+            submission.setStatus(SubmissionStatus.COMPLETED);
+        } else {
+            submission.setStatus(SubmissionStatus.FAILED);
+        }
+    }
+
+    /**
+     * Records a verdict per test case. Times and CPU are summed over the cases that ran, memory
+     * is the largest peak; the submission fails with the verdict of the first failing case.
+     */
+    private void applyCaseResults(CodeSubmission submission, List<TestCase> testCases, List<ExecutionResult> results) {
+        List<TestCaseResult> caseResults = new ArrayList<>();
+        long executionTime = 0;
+        long cpuTime = 0;
+        long memory = 0;
+        int passed = 0;
+        TestCaseVerdict firstFailure = null;
+
+        for (int i = 0; i < testCases.size(); i++) {
+            ExecutionResult result = results.get(i);
+            if (result == null) {
+                caseResults.add(TestCaseResult.builder().index(i).verdict(TestCaseVerdict.SKIPPED).build());
+                continue;
+            }
+
+            TestCaseVerdict verdict = verdictOf(result, testCases.get(i).getExpectedOutput());
+            if (verdict == TestCaseVerdict.PASSED) {
+                passed++;
+            } else if (firstFailure == null) {
+                firstFailure = verdict;
+            }
+            executionTime += result.getExecutionTimeMs();
+            cpuTime += result.getCpuTimeMs();
+            memory = Math.max(memory, result.getMemoryUsedKb());
+
+            caseResults.add(TestCaseResult.builder()
+                .index(i)
+                .verdict(verdict)
+                .output(result.getOutput())
+                .errorMessage(result.getError())
+                .outputTruncated(result.isOutputTruncated())
+                .executionTimeMs(result.getExecutionTimeMs())
+                .cpuTimeMs(result.getCpuTimeMs())
+                .memoryUsedKb(result.getMemoryUsedKb())
+                .build());
+        }
+
+        submission.setTestCaseResults(caseResults);
+        submission.setPassedTestCases(passed);
+        submission.setExecutionTimeMs(executionTime);
+        submission.setCpuTimeMs(cpuTime);
+        submission.setMemoryUsedKb(memory);
+        submission.setStatus(firstFailure == null ? SubmissionStatus.COMPLETED : switch (firstFailure) {
+            case TIMEOUT -> SubmissionStatus.TIMEOUT;
+            case CPU_LIMIT_EXCEEDED -> SubmissionStatus.CPU_LIMIT_EXCEEDED;
+            case MEMORY_LIMIT_EXCEEDED -> SubmissionStatus.MEMORY_LIMIT_EXCEEDED;
+            default -> SubmissionStatus.FAILED;
+        });
+    }
+
+    private TestCaseVerdict verdictOf(ExecutionResult result, String expectedOutput) {
+        if (result.getLimitExceeded() == ResourceMonitor.Limit.CPU_TIME) {
+            return TestCaseVerdict.CPU_LIMIT_EXCEEDED;
+        } else if (result.getLimitExceeded() == ResourceMonitor.Limit.MEMORY) {
+            return TestCaseVerdict.MEMORY_LIMIT_EXCEEDED;
+        } else if (result.isTimeout()) {
+            return TestCaseVerdict.TIMEOUT;
+        } else if (result.getExitCode() != 0) {
+            return TestCaseVerdict.RUNTIME_ERROR;
+        } else if (expectedOutput != null && !normalize(expectedOutput).equals(normalize(result.getOutput()))) {
+            return TestCaseVerdict.WRONG_ANSWER;
+        }
+        return TestCaseVerdict.PASSED;
+    }
+
+    /**
+     * Ignores trailing whitespace on each line and trailing blank lines.
+     */
+    private static String normalize(String output) {
+        return output.lines().map(String::stripTrailing).collect(Collectors.joining("\n")).stripTrailing();
+    }
+
+    /**
+     * The submission's response; finished submissions are served from the response cache once
+     * read, with their ETag.
+     */
+    public SubmissionResponseCache.Entry getSubmission(String id) {
         User user = getCurrentUser();
-        CodeSubmission submission = submissionRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Submission not found"));
+        Optional<SubmissionResponseCache.Entry> cached = responseCache.get(id);
+        if (cached.isPresent()) {
+            checkOwner(cached.get().userId(), user);
+            return cached.get();
+        }
+
+        CodeSubmission submission = findSubmission(id);
+        checkOwner(submission.getUserId(), user);
+        return responseCache.put(submission, mapToResponse(submission));
+    }
+
+    /**
+     * The full standard output or error of the submission, or of one of its test cases, however
+     * much of it was kept in the document.
+     */
+    public OutputStorage.Blob getSubmissionOutput(String id, Integer testCase, OutputStorage.Stream stream) {
+        CodeSubmission submission = getOwnSubmission(id);
+        return testCase == null
+            ? outputStorage.open(submission, stream)
+            : outputStorage.open(submission, testCase, stream);
+    }
+
+    private CodeSubmission getOwnSubmission(String id) {
+        User user = getCurrentUser();
+        CodeSubmission submission = findSubmission(id);
+        checkOwner(submission.getUserId(), user);
+        return submission;
+    }
 
-        if (!submission.getUserId().equals(user.getId())) {
+    private static void checkOwner(String userId, User user) {
+        if (!userId.equals(user.getId())) {
             throw new RuntimeException("Access denied");
         }
+    }
 
-        return mapToResponse(submission);
+    /**
+     * Streams the submission's progress until it finishes. A submission that already finished
+     * gets its final status and result right away.
+     */
+    public SseEmitter streamSubmission(String id) {
+        // Subscribe before reading, so a completion between the two is not missed
+        SubmissionEventPublisher.Subscription subscription = eventPublisher.subscribe(id);
+        CodeSubmission submission;
+        try {
+            User user = getCurrentUser();
+            submission = findSubmission(id);
+            checkOwner(submission.getUserId(), user);
+        } catch (RuntimeException e) {
+            eventPublisher.unsubscribe(subscription);
+            throw e;
+        }
+
+        if (!submission.getStatus().isTerminal()) {
+            eventPublisher.sendStatus(subscription, submission.getStatus());
+        } else if (eventPublisher.unsubscribe(subscription)) {
+            // Otherwise the execution thread already sent the result
+            eventPublisher.complete(subscription, mapToResponse(submission));
+        }
+        return subscription.getEmitter();
     }
 
-    public Page<CodeExecutionResponse> getUserSubmissions(Pageable pageable) {
+    /**
+     * Looks in the write buffer for submissions not written yet, and in the archive for those that
+     * have left the hot collection.
+     */
+    private CodeSubmission findSubmission(String id) {
+        return writeBuffer.find(id)
+            .or(() -> submissionRepository.findById(id))
+            .or(() -> submissionArchive.find(id))
+            .orElseThrow(() -> new RuntimeException("Submission not found"));
+    }
+
+    public Page<SubmissionSummary> getUserSubmissions(Pageable pageable) {
         User user = getCurrentUser();
-        return submissionRepository.findByUserId(user.getId(), pageable)
-            .map(this::mapToResponse);
+        writeBuffer.flushUser(user.getId());
+        return submissionRepository.findSummaryPageByUserId(user.getId(), pageable)
+            .map(this::mapToSummary);
+    }
+
+    /**
+     * Pages through the user's history newest first, continuing after the submission encoded in
+     * {@code after}, or from the start when it is empty. Each page costs a single index range
+     * scan, however deep into the history it is.
+     */
+    public SubmissionCursorPage getUserSubmissionsAfter(String after, int size) {
+        User user = getCurrentUser();
+        writeBuffer.flushUser(user.getId());
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // One more than asked for tells whether there is a next page
+        Pageable pageable = PageRequest.of(0, limit + 1, HISTORY_ORDER);
+
+        List<CodeSubmission> submissions;
+        if (after == null || after.isEmpty()) {
+            submissions = submissionRepository.findSummariesByUserId(user.getId(), pageable);
+        } else {
+            Cursor cursor = Cursor.decode(after);
+            submissions = submissionRepository.findSummariesByUserIdAfter(user.getId(), cursor.createdAt(),
+                cursor.id(), pageable);
+        }
+
+        boolean more = submissions.size() > limit;
+        List<CodeSubmission> page = more ? submissions.subList(0, limit) : submissions;
+        return SubmissionCursorPage.builder()
+            .items(page.stream().map(this::mapToSummary).toList())
+            .nextCursor(more ? Cursor.of(page.get(limit - 1)).encode() : null)
+            .build();
+    }
+
+    /**
+     * Position in a user's history, as an opaque URL-safe string.
+     */
+    private record Cursor(LocalDateTime createdAt, ObjectId id) {
+
+        static Cursor of(CodeSubmission submission) {
+            return new Cursor(submission.getCreatedAt(), new ObjectId(submission.getId()));
+        }
+
+        static Cursor decode(String value) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8).split("_");
+                return new Cursor(LocalDateTime.parse(parts[0]), new ObjectId(parts[1]));
+            } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+                throw new InvalidCursorException("Invalid cursor: " + value);
+            }
+        }
+
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((createdAt + "_" + id.toHexString()).getBytes(StandardCharsets.UTF_8));
+        }
     }
 
     private User getCurrentUser() {
@@ -120,15 +583,42 @@ public class CodeExecutionService {
         return (User) authentication.getPrincipal();
     }
 
+    private SubmissionSummary mapToSummary(CodeSubmission submission) {
+        return SubmissionSummary.builder()
+            .submissionId(submission.getId())
+            .language(submission.getLanguage())
+            .codeHash(submission.getCodeHash())
+            .status(submission.getStatus())
+            .outputTruncated(submission.getOutputTruncated())
+            .cached(submission.getCached())
+            .executionTimeMs(submission.getExecutionTimeMs())
+            .compileTimeMs(submission.getCompileTimeMs())
+            .memoryUsedKb(submission.getMemoryUsedKb())
+            .cpuTimeMs(submission.getCpuTimeMs())
+            .passedTestCases(submission.getPassedTestCases())
+            .createdAt(submission.getCreatedAt())
+            .completedAt(submission.getCompletedAt())
+            .build();
+    }
+
     private CodeExecutionResponse mapToResponse(CodeSubmission submission) {
         return CodeExecutionResponse.builder()
             .submissionId(submission.getId())
             .language(submission.getLanguage())
+            .codeHash(submission.getCodeHash())
             .status(submission.getStatus())
             .output(submission.getOutput())
             .errorMessage(submission.getErrorMessage())
+            .outputSize(submission.getOutputSize())
+            .errorSize(submission.getErrorSize())
+            .outputTruncated(submission.getOutputTruncated())
+            .cached(submission.getCached())
             .executionTimeMs(submission.getExecutionTimeMs())
+            .compileTimeMs(submission.getCompileTimeMs())
             .memoryUsedKb(submission.getMemoryUsedKb())
+            .cpuTimeMs(submission.getCpuTimeMs())
+            .testCaseResults(submission.getTestCaseResults())
+            .passedTestCases(submission.getPassedTestCases())
             .createdAt(submission.getCreatedAt())
             .completedAt(submission.getCompletedAt())
             .build();
@@ -0,0 +1,170 @@
+package com.coderank.api.service;
+
+import com.coderank.api.domain.ArchivedSubmission;
+import com.coderank.api.domain.CodeBlob;
+import com.coderank.api.domain.CodeSubmission;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.client.result.DeleteResult;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Stores each distinct source once in {@code code_blobs}; submissions refer to it by
+ * {@link #hash}. Storing code a submission already used only moves the blob's
+ * {@code referencedAt}, and not even that when it was moved within the last
+ * {@code recheck-after} / 4.
+ * <p>
+ * Blobs are collected by a mark-and-sweep pass every {@code gc-interval-ms}: a blob not
+ * referenced for {@code recheck-after} is deleted unless a submission, archived or not, still
+ * refers to it, in which case its {@code referencedAt} is moved instead. The delete repeats the
+ * age condition, so a blob stored again in the meantime survives.
+ */
+@Component
+@Slf4j
+public class CodeStore {
+
+    private static final int GC_BATCH_SIZE = 1000;
+    private static final int GC_MAX_BATCHES = 100;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${execution.code-store.recheck-after:1d}")
+    private Duration recheckAfter;
+
+    @Value("${execution.code-store.gc-enabled:true}")
+    private boolean gcEnabled;
+
+    // Blobs this node referenced recently enough to skip the write
+    private Cache<String, Boolean> recentlyReferenced;
+
+    private final AtomicLong stored = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong collected = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        recentlyReferenced = Caffeine.newBuilder()
+            .maximumSize(10000)
+            .expireAfterWrite(recheckAfter.dividedBy(4))
+            .build();
+    }
+
+    /**
+     * Stores the code unless it already is, returning its hash.
+     */
+    public String store(String code) {
+        String hash = hash(code);
+        if (recentlyReferenced.getIfPresent(hash) != null) {
+            deduplicated.incrementAndGet();
+            return hash;
+        }
+
+        Instant now = Instant.now();
+        boolean inserted = mongoTemplate.upsert(
+            new Query(where("_id").is(hash)),
+            new Update()
+                .setOnInsert("code", code)
+                .setOnInsert("size", code.length())
+                .setOnInsert("createdAt", now)
+                .set("referencedAt", now),
+            CodeBlob.class).getUpsertedId() != null;
+        (inserted ? stored : deduplicated).incrementAndGet();
+        recentlyReferenced.put(hash, Boolean.TRUE);
+        return hash;
+    }
+
+    public static String hash(String code) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(code.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${execution.code-store.gc-interval-ms:3600000}",
+        initialDelayString = "${execution.code-store.gc-interval-ms:3600000}")
+    void collectGarbage() {
+        if (!gcEnabled) {
+            return;
+        }
+        try {
+            long deleted = 0;
+            for (int batch = 0; batch < GC_MAX_BATCHES; batch++) {
+                Instant cutoff = Instant.now().minus(recheckAfter);
+                Query stale = new Query(where("referencedAt").lt(cutoff))
+                    .with(Sort.by("referencedAt"))
+                    .limit(GC_BATCH_SIZE);
+                stale.fields().include("_id");
+                List<String> candidates = mongoTemplate.find(stale, CodeBlob.class).stream()
+                    .map(CodeBlob::getId)
+                    .toList();
+                if (candidates.isEmpty()) {
+                    break;
+                }
+
+                Query referring = new Query(where("codeHash").in(candidates));
+                Set<String> referenced = new HashSet<>(
+                    mongoTemplate.findDistinct(referring, "codeHash", CodeSubmission.class, String.class));
+                referenced.addAll(
+                    mongoTemplate.findDistinct(referring, "codeHash", ArchivedSubmission.class, String.class));
+                List<String> unreferenced = new ArrayList<>();
+                for (String hash : candidates) {
+                    if (!referenced.contains(hash)) {
+                        unreferenced.add(hash);
+                    }
+                }
+
+                if (!referenced.isEmpty()) {
+                    mongoTemplate.updateMulti(new Query(where("_id").in(referenced)),
+                        new Update().set("referencedAt", Instant.now()), CodeBlob.class);
+                }
+                if (!unreferenced.isEmpty()) {
+                    DeleteResult result = mongoTemplate.remove(
+                        new Query(where("_id").in(unreferenced).and("referencedAt").lt(cutoff)), CodeBlob.class);
+                    deleted += result.getDeletedCount();
+                }
+            }
+            collected.addAndGet(deleted);
+            if (deleted > 0) {
+                log.info("Collected {} unreferenced code blobs", deleted);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Code blob collection failed: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("stored", stored.get());
+        stats.put("deduplicated", deduplicated.get());
+        stats.put("collected", collected.get());
+        return stats;
+    }
+}
@@ -0,0 +1,99 @@
+package com.coderank.api.service;
+
+import com.coderank.api.domain.ExecutionJob;
+import com.coderank.api.domain.Language;
+import com.coderank.api.exception.ExecutionQueueFullException;
+import com.coderank.api.execution.ExecutionScheduler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Drives the distributed queue on this node: claims jobs while the local scheduler has a free
+ * slot for their language, and closes event streams of submissions that finished on other nodes.
+ */
+@Component
+@Slf4j
+public class ExecutionJobPoller {
+
+    @Autowired
+    private ExecutionJobQueue jobQueue;
+
+    @Autowired
+    private ExecutionScheduler executionScheduler;
+
+    @Autowired
+    private CodeExecutionService codeExecutionService;
+
+    @Autowired
+    private SubmissionEventPublisher eventPublisher;
+
+    @Scheduled(fixedDelayString = "${execution.queue.poll-interval-ms:200}")
+    void poll() {
+        if (!jobQueue.runsJobs()) {
+            return;
+        }
+        try {
+            Set<Language> idle;
+            while (!(idle = executionScheduler.idleLanguages()).isEmpty()) {
+                Optional<ExecutionJob> job = jobQueue.claim(idle);
+                if (job.isEmpty()) {
+                    return;
+                }
+                dispatch(job.get());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to poll the execution queue", e);
+        }
+    }
+
+    private void dispatch(ExecutionJob job) {
+        if (job.getAttempts() > jobQueue.getMaxAttempts()) {
+            codeExecutionService.abandonJob(job);
+            jobQueue.complete(job);
+            return;
+        }
+
+        ExecutionScheduler.Admission admission;
+        try {
+            admission = executionScheduler.admit(job.getLanguage());
+        } catch (ExecutionQueueFullException e) {
+            jobQueue.release(job);
+            return;
+        }
+        admission.start(() -> {
+            try {
+                codeExecutionService.runJob(job);
+            } catch (RuntimeException e) {
+                // The result is not stored, so the job must stay for another attempt
+                jobQueue.retry(job);
+                throw e;
+            }
+            jobQueue.complete(job);
+        });
+    }
+
+    /**
+     * Streams are held by the node that accepted the request, which may not be the one running
+     * it, so their submissions are checked here and finished streams get their result.
+     */
+    @Scheduled(fixedDelayString = "${execution.queue.stream-check-interval-ms:1000}")
+    void completeRemoteStreams() {
+        if (!jobQueue.isDistributed() || !jobQueue.acceptsSubmissions()) {
+            return;
+        }
+        Set<String> ids = eventPublisher.getSubscribedIds();
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            codeExecutionService.completeStreams(ids);
+        } catch (RuntimeException e) {
+            log.warn("Failed to check streamed submissions", e);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.coderank.api.service;
+
+import com.coderank.api.domain.ExecutionJob;
+import com.coderank.api.domain.Language;
+import com.coderank.api.exception.ExecutionQueueFullException;
+import com.coderank.api.exception.ExecutionUnavailableException;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Job queue shared by all nodes through the {@code execution_jobs} collection. A node claims the
+ * oldest job it has capacity for with a single {@code findAndModify}, which makes it the owner
+ * for {@code lease-ms}. Leases of running jobs are renewed every {@code heartbeat-interval-ms}
+ * on a thread of their own, so no slow {@code @Scheduled} task can hold them up; a job whose
+ * lease ran out, because its node died or stalled, is claimed again by the next poller. Jobs therefore run at least once, and up to {@code max-attempts} times.
+ * <p>
+ * Only used with {@code execution.queue.distributed}; otherwise submissions run in the JVM that
+ * accepted them. Lease expiry is compared against each node's own clock, so nodes need
+ * synchronized clocks.
+ */
+@Component
+@Slf4j
+public class ExecutionJobQueue {
+
+    public enum Role {
+        API,    // accepts submissions and only queues them
+        WORKER, // only runs queued submissions
+        BOTH
+    }
+
+    private static final long RETRY_AFTER_SECONDS = 5;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${execution.queue.distributed:false}")
+    private boolean distributed;
+
+    @Value("${execution.queue.role:BOTH}")
+    private Role role;
+
+    @Value("${execution.queue.capacity:1000}")
+    private int capacity;
+
+    @Value("${execution.queue.lease-ms:30000}")
+    private long leaseMs;
+
+    @Value("${execution.queue.heartbeat-interval-ms:10000}")
+    private long heartbeatIntervalMs;
+
+    @Value("${execution.queue.max-attempts:3}")
+    private int maxAttempts;
+
+    private final String nodeId = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    private final Set<String> leased = ConcurrentHashMap.newKeySet();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong reclaimed = new AtomicLong();
+    private final AtomicLong lostLeases = new AtomicLong();
+
+    private ScheduledExecutorService heartbeat;
+
+    @PostConstruct
+    void start() {
+        if (!distributed) {
+            return;
+        }
+        createIndexes();
+        if (runsJobs()) {
+            heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "lease-heartbeat");
+                thread.setDaemon(true);
+                return thread;
+            });
+            heartbeat.scheduleWithFixedDelay(this::renewLeases, heartbeatIntervalMs, heartbeatIntervalMs,
+                TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void createIndexes() {
+        if (!distributed) {
+            return;
+        }
+        IndexOperations indexes = mongoTemplate.indexOps(ExecutionJob.class);
+        // Serves the claim: language equality, createdAt sort, lease range
+        indexes.createIndex(new Index()
+            .on("language", Sort.Direction.ASC)
+            .on("createdAt", Sort.Direction.ASC)
+            .on("leaseExpiresAt", Sort.Direction.ASC));
+        indexes.createIndex(new Index().on("owner", Sort.Direction.ASC));
+        log.info("Distributed execution queue enabled, node {} with role {}", nodeId, role);
+    }
+
+    public boolean isDistributed() {
+        return distributed;
+    }
+
+    public boolean acceptsSubmissions() {
+        return role != Role.WORKER;
+    }
+
+    public boolean runsJobs() {
+        return distributed && role != Role.API;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @throws ExecutionUnavailableException when this node only runs jobs
+     * @throws ExecutionQueueFullException   when {@code capacity} jobs are already waiting
+     */
+    public void checkAccepting() {
+        if (!acceptsSubmissions()) {
+            throw new ExecutionUnavailableException("This node does not accept submissions");
+        }
+        long queued = mongoTemplate.count(new Query(where("owner").is(null)).limit(capacity), ExecutionJob.class);
+        if (queued >= capacity) {
+            throw new ExecutionQueueFullException("Execution queue is full, please retry later", RETRY_AFTER_SECONDS);
+        }
+    }
+
+    public void submit(ExecutionJob job) {
+        job.setOwner(null);
+        job.setLeaseExpiresAt(Instant.EPOCH);
+        job.setAttempts(0);
+        job.setCreatedAt(LocalDateTime.now());
+        mongoTemplate.insert(job);
+        submitted.incrementAndGet();
+    }
+
+    /**
+     * Atomically leases the oldest queued or abandoned job in one of {@code languages}.
+     */
+    Optional<ExecutionJob> claim(Set<Language> languages) {
+        Instant now = Instant.now();
+        Query query = new Query(where("language").in(languages).and("leaseExpiresAt").lt(now))
+            .with(Sort.by("createdAt"));
+        Update update = new Update()
+            .set("owner", nodeId)
+            .set("leaseExpiresAt", now.plusMillis(leaseMs))
+            .inc("attempts", 1);
+
+        ExecutionJob job = mongoTemplate.findAndModify(query, update,
+            FindAndModifyOptions.options().returnNew(true), ExecutionJob.class);
+        if (job == null) {
+            return Optional.empty();
+        }
+
+        leased.add(job.getId());
+        claimed.incrementAndGet();
+        if (job.getAttempts() > 1) {
+            reclaimed.incrementAndGet();
+            log.warn("Reclaimed job {} of submission {}, attempt {}",
+                job.getId(), job.getSubmissionId(), job.getAttempts());
+        }
+        return Optional.of(job);
+    }
+
+    /**
+     * Hands a claimed job back to the queue without counting the attempt.
+     */
+    void release(ExecutionJob job) {
+        leased.remove(job.getId());
+        mongoTemplate.updateFirst(ownedBy(job),
+            new Update().set("owner", null).set("leaseExpiresAt", Instant.EPOCH).inc("attempts", -1),
+            ExecutionJob.class);
+    }
+
+    /**
+     * Hands a claimed job back to the queue after an attempt that could not record its result,
+     * counting the attempt.
+     */
+    void retry(ExecutionJob job) {
+        leased.remove(job.getId());
+        mongoTemplate.updateFirst(ownedBy(job),
+            new Update().set("owner", null).set("leaseExpiresAt", Instant.EPOCH), ExecutionJob.class);
+    }
+
+    /**
+     * Removes a job whose submission has been finished.
+     */
+    void complete(ExecutionJob job) {
+        leased.remove(job.getId());
+        DeleteResult result = mongoTemplate.remove(ownedBy(job), ExecutionJob.class);
+        if (result.getDeletedCount() == 0) {
+            // Our lease ran out and another node claimed the job, it will finish it again
+            lostLeases.incrementAndGet();
+            log.warn("Lost the lease of job {} of submission {}", job.getId(), job.getSubmissionId());
+        }
+    }
+
+    /**
+     * Extends the lease of every job this node is running, in one update.
+     */
+    void renewLeases() {
+        if (leased.isEmpty()) {
+            return;
+        }
+        List<String> ids = List.copyOf(leased);
+        try {
+            UpdateResult result = mongoTemplate.updateMulti(
+                new Query(where("_id").in(ids).and("owner").is(nodeId)),
+                new Update().set("leaseExpiresAt", Instant.now().plusMillis(leaseMs)),
+                ExecutionJob.class);
+            if (result.getMatchedCount() < ids.size()) {
+                log.debug("Renewed {} of {} leases, the rest finished or were taken over",
+                    result.getMatchedCount(), ids.size());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to renew job leases", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+        }
+    }
+
+    private Query ownedBy(ExecutionJob job) {
+        return new Query(where("_id").is(job.getId()).and("owner").is(nodeId));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("distributed", distributed);
+        stats.put("role", role);
+        stats.put("node", nodeId);
+        stats.put("leased", leased.size());
+        stats.put("submitted", submitted.get());
+        stats.put("claimed", claimed.get());
+        stats.put("reclaimed", reclaimed.get());
+        stats.put("lostLeases", lostLeases.get());
+        return stats;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "node";
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.coderank.api.service;
+
+import com.coderank.api.domain.CodeSubmission;
+import com.coderank.api.domain.TestCaseResult;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Keeps large outputs out of submission documents. Output or error text above
+ * {@code threshold-bytes}, of the submission or of one of its test cases, is gzipped into GridFS;
+ * the document keeps the first {@code preview-chars} characters, the full size in bytes and the
+ * file's id. Either way the full text can be read back, or a byte range of it, through
+ * {@link #open}. Stored output lives as long as the submission, archived or not.
+ */
+@Component
+@Slf4j
+public class OutputStorage {
+
+    public enum Stream {
+        OUTPUT,
+        ERROR
+    }
+
+    @Autowired
+    private GridFsTemplate gridFsTemplate;
+
+    @Value("${execution.output.offload.threshold-bytes:16384}")
+    private int thresholdBytes;
+
+    @Value("${execution.output.offload.preview-chars:1024}")
+    private int previewChars;
+
+    private final AtomicLong offloaded = new AtomicLong();
+    private final AtomicLong offloadedBytes = new AtomicLong();
+    private final AtomicLong storedBytes = new AtomicLong();
+
+    /**
+     * Moves the submission's large output and error to GridFS, replacing them with previews, and
+     * those of each test case alike. The submission needs its id already.
+     */
+    public void offload(CodeSubmission submission) {
+        String id = submission.getId();
+        offload(id, null, Stream.OUTPUT, submission.getOutput(), submission::setOutput,
+            submission::setOutputSize, submission::setOutputFileId);
+        offload(id, null, Stream.ERROR, submission.getErrorMessage(), submission::setErrorMessage,
+            submission::setErrorSize, submission::setErrorFileId);
+        if (submission.getTestCaseResults() == null) {
+            return;
+        }
+        for (TestCaseResult result : submission.getTestCaseResults()) {
+            // Inline output of every case could together outgrow the document, so only previews stay
+            if (!offload(id, result.getIndex(), Stream.OUTPUT, result.getOutput(), result::setOutput,
+                    result::setOutputSize, result::setOutputFileId)) {
+                result.setOutput(preview(result.getOutput()));
+                result.setOutputTruncated(true);
+            }
+            if (!offload(id, result.getIndex(), Stream.ERROR, result.getErrorMessage(), result::setErrorMessage,
+                    result::setErrorSize, result::setErrorFileId)) {
+                result.setErrorMessage(preview(result.getErrorMessage()));
+            }
+        }
+    }
+
+    /**
+     * Stores text above the threshold; returns false when that failed and the text is still inline.
+     */
+    private boolean offload(String submissionId, Integer testCase, Stream stream, String text,
+                            Consumer<String> preview, Consumer<Long> size, Consumer<String> fileId) {
+        if (text == null) {
+            return true;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= thresholdBytes) {
+            return true;
+        }
+
+        byte[] compressed = gzip(bytes);
+        Document metadata = new Document("submissionId", submissionId)
+            .append("stream", stream.name())
+            .append("size", (long) bytes.length)
+            .append("contentEncoding", "gzip");
+        String filename = submissionId + "-" + stream.name().toLowerCase();
+        if (testCase != null) {
+            metadata.append("testCase", testCase);
+            filename = submissionId + "-case" + testCase + "-" + stream.name().toLowerCase();
+        }
+        ObjectId id;
+        try {
+            id = gridFsTemplate.store(new ByteArrayInputStream(compressed), filename, "text/plain", metadata);
+        } catch (RuntimeException e) {
+            // Output is capped well below the document size limit, so one stream can stay inline
+            log.warn("Could not offload {} of submission {}, keeping it inline", stream, submissionId, e);
+            return false;
+        }
+
+        preview.accept(preview(text));
+        size.accept((long) bytes.length);
+        fileId.accept(id.toHexString());
+        offloaded.incrementAndGet();
+        offloadedBytes.addAndGet(bytes.length);
+        storedBytes.addAndGet(compressed.length);
+        return true;
+    }
+
+    private String preview(String text) {
+        return text == null ? null : text.substring(0, Math.min(previewChars, text.length()));
+    }
+
+    /**
+     * The full text of one stream of the submission, in UTF-8.
+     */
+    public Blob open(CodeSubmission submission, Stream stream) {
+        return stream == Stream.OUTPUT
+            ? open(submission.getId(), submission.getOutput(), submission.getOutputSize(), submission.getOutputFileId())
+            : open(submission.getId(), submission.getErrorMessage(), submission.getErrorSize(),
+                submission.getErrorFileId());
+    }
+
+    /**
+     * The full text of one stream of a test case of the submission, in UTF-8.
+     */
+    public Blob open(CodeSubmission submission, int testCase, Stream stream) {
+        TestCaseResult result = submission.getTestCaseResults() == null ? null
+            : submission.getTestCaseResults().stream()
+                .filter(candidate -> candidate.getIndex() == testCase)
+                .findFirst()
+                .orElse(null);
+        if (result == null) {
+            throw new RuntimeException("Test case not found");
+        }
+        return stream == Stream.OUTPUT
+            ? open(submission.getId(), result.getOutput(), result.getOutputSize(), result.getOutputFileId())
+            : open(submission.getId(), result.getErrorMessage(), result.getErrorSize(), result.getErrorFileId());
+    }
+
+    private Blob open(String submissionId, String text, Long size, String fileId) {
+        if (fileId == null) {
+            byte[] bytes = text == null ? new byte[0] : text.getBytes(StandardCharsets.UTF_8);
+            return new Blob(bytes.length, () -> new ByteArrayInputStream(bytes));
+        }
+
+        GridFSFile file = gridFsTemplate.findOne(query(where("_id").is(new ObjectId(fileId))));
+        if (file == null) {
+            throw new IllegalStateException("Stored output " + fileId + " of submission " + submissionId
+                + " is missing");
+        }
+        return new Blob(size, () -> new GZIPInputStream(gridFsTemplate.getResource(file).getInputStream()));
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long original = offloadedBytes.get();
+        stats.put("offloaded", offloaded.get());
+        stats.put("offloadedBytes", original);
+        stats.put("storedBytes", storedBytes.get());
+        stats.put("compressionRatio", original == 0 ? 0 : (double) storedBytes.get() / original);
+        return stats;
+    }
+
+    /**
+     * Text of a known size in bytes, opened as needed.
+     */
+    public record Blob(long size, Opener opener) {
+
+        public InputStream open() throws IOException {
+            return opener.open();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Opener {
+        InputStream open() throws IOException;
+    }
+}
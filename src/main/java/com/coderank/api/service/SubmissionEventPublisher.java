@@ -0,0 +1,244 @@
+package com.coderank.api.service;
+
+import com.coderank.api.domain.SubmissionStatus;
+import com.coderank.api.dto.CodeExecutionResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Pushes a submission's progress to clients subscribed to its event stream: {@code status} on
+ * every transition, {@code output} for each chunk of stdout/stderr while the program runs and a
+ * final {@code result} carrying the complete response, after which the stream is closed.
+ * <p>
+ * Output is published from the threads draining the program, which must never wait on a client.
+ * Events are queued per stream and sent from a separate executor; once a slow client has
+ * {@code max-pending-chars} of output waiting, further output chunks are dropped for it. Status
+ * and result events are never dropped, and the result still carries the complete output.
+ */
+@Component
+@Slf4j
+public class SubmissionEventPublisher {
+
+    @Value("${execution.stream.timeout-ms:120000}")
+    private long timeoutMs;
+
+    @Value("${execution.stream.max-pending-chars:65536}")
+    private int maxPendingChars;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final Map<String, List<Subscription>> subscribers = new ConcurrentHashMap<>();
+
+    private ExecutorService sender;
+
+    @PostConstruct
+    void start() {
+        sender = virtualThreads
+            ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("event-stream-", 1).factory())
+            : Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "event-stream");
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    /**
+     * Registers a new stream for the submission. Events published from now on are delivered to it.
+     */
+    Subscription subscribe(String submissionId) {
+        Subscription subscription = new Subscription(submissionId, new SseEmitter(timeoutMs));
+        // Added inside compute, so a concurrent complete() either sees it or it lands in a new list
+        subscribers.compute(submissionId, (id, list) -> {
+            List<Subscription> updated = list != null ? list : new CopyOnWriteArrayList<>();
+            updated.add(subscription);
+            return updated;
+        });
+
+        Runnable remove = () -> {
+            unsubscribe(subscription);
+            subscription.close();
+        };
+        subscription.emitter.onCompletion(remove);
+        subscription.emitter.onTimeout(remove);
+        subscription.emitter.onError(error -> remove.run());
+        return subscription;
+    }
+
+    /**
+     * Removes the stream, returning {@code false} when it was already gone, i.e. completed.
+     */
+    boolean unsubscribe(Subscription subscription) {
+        boolean[] removed = new boolean[1];
+        subscribers.computeIfPresent(subscription.submissionId, (id, list) -> {
+            removed[0] = list.remove(subscription);
+            return list.isEmpty() ? null : list;
+        });
+        return removed[0];
+    }
+
+    Set<String> getSubscribedIds() {
+        return Set.copyOf(subscribers.keySet());
+    }
+
+    void publishStatus(String submissionId, SubmissionStatus status) {
+        List<Subscription> list = subscribers.get(submissionId);
+        if (list != null) {
+            for (Subscription subscription : list) {
+                sendStatus(subscription, status);
+            }
+        }
+    }
+
+    void sendStatus(Subscription subscription, SubmissionStatus status) {
+        enqueue(subscription, SseEmitter.event().name("status").data(Map.of("status", status)), 0, false);
+    }
+
+    /**
+     * Queues an output chunk for every stream of the submission; never blocks.
+     */
+    void publishOutput(String submissionId, String stream, String text) {
+        List<Subscription> list = subscribers.get(submissionId);
+        if (list != null) {
+            for (Subscription subscription : list) {
+                Map<String, String> chunk = Map.of("stream", stream, "text", text);
+                enqueue(subscription, SseEmitter.event().name("output").data(chunk), text.length(), false);
+            }
+        }
+    }
+
+    /**
+     * Sends the final response to every stream of the submission and closes them.
+     */
+    void complete(String submissionId, CodeExecutionResponse response) {
+        List<Subscription> list = subscribers.remove(submissionId);
+        if (list != null) {
+            for (Subscription subscription : list) {
+                complete(subscription, response);
+            }
+        }
+    }
+
+    void complete(Subscription subscription, CodeExecutionResponse response) {
+        enqueue(subscription, SseEmitter.event().name("status").data(Map.of("status", response.getStatus())),
+            0, false);
+        enqueue(subscription, SseEmitter.event().name("result").data(response), 0, true);
+    }
+
+    /**
+     * Queues the event and makes sure a sender is working through the stream's queue. Output
+     * ({@code chars > 0}) that would take the queue past its limit is dropped.
+     */
+    private void enqueue(Subscription subscription, SseEmitter.SseEventBuilder event, int chars, boolean last) {
+        synchronized (subscription) {
+            if (subscription.closed) {
+                return;
+            }
+            if (chars > 0 && subscription.pendingChars + chars > maxPendingChars) {
+                subscription.dropped++;
+                return;
+            }
+            subscription.pending.addLast(new PendingEvent(event, chars, last));
+            subscription.pendingChars += chars;
+            subscription.closed = last;
+            if (subscription.sending) {
+                return;
+            }
+            subscription.sending = true;
+        }
+        try {
+            sender.execute(() -> drain(subscription));
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            subscription.close();
+        }
+    }
+
+    private void drain(Subscription subscription) {
+        while (true) {
+            PendingEvent next;
+            int dropped;
+            synchronized (subscription) {
+                next = subscription.pending.pollFirst();
+                if (next == null) {
+                    subscription.sending = false;
+                    return;
+                }
+                subscription.pendingChars -= next.chars();
+                dropped = subscription.dropped;
+            }
+            try {
+                subscription.emitter.send(next.event());
+                if (next.last()) {
+                    if (dropped > 0) {
+                        log.debug("Dropped {} output events of submission {} for a slow client",
+                            dropped, subscription.submissionId);
+                    }
+                    subscription.emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping event stream of submission {}", subscription.submissionId, e);
+                unsubscribe(subscription);
+                subscription.close();
+                subscription.emitter.completeWithError(e);
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sender.shutdownNow();
+    }
+
+    /**
+     * One client's stream of a submission and the events waiting to be sent to it.
+     */
+    static final class Subscription {
+        private final String submissionId;
+        private final SseEmitter emitter;
+        // Guarded by this
+        private final Deque<PendingEvent> pending = new ArrayDeque<>();
+        private int pendingChars;
+        private int dropped;
+        private boolean sending;
+        private boolean closed;
+
+        private Subscription(String submissionId, SseEmitter emitter) {
+            this.submissionId = submissionId;
+            this.emitter = emitter;
+        }
+
+        SseEmitter getEmitter() {
+            return emitter;
+        }
+
+        /**
+         * Stops taking events and discards those not sent yet.
+         */
+        private synchronized void close() {
+            closed = true;
+            pending.clear();
+            pendingChars = 0;
+        }
+    }
+
+    private record PendingEvent(SseEmitter.SseEventBuilder event, int chars, boolean last) {
+    }
+}
@@ -0,0 +1,106 @@
+package com.coderank.api.service;
+
+import com.coderank.api.domain.CodeSubmission;
+import com.coderank.api.domain.TestCaseResult;
+import com.coderank.api.dto.CodeExecutionResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Responses of finished submissions, which never change again, so polling them costs neither a
+ * read nor a mapping. Each carries a strong ETag derived from the submission's id and completion
+ * time. Bounded by approximate size and evicted after {@code idle} without a read.
+ */
+@Component
+public class SubmissionResponseCache {
+
+    // Rough cost of a response besides its texts
+    private static final int BASE_WEIGHT = 512;
+
+    @Value("${execution.submissions.response-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${execution.submissions.response-cache.max-size-mb:32}")
+    private long maxSizeMb;
+
+    @Value("${execution.submissions.response-cache.idle:10m}")
+    private Duration idle;
+
+    private Cache<String, Entry> entries;
+
+    @PostConstruct
+    void init() {
+        entries = Caffeine.newBuilder()
+            .maximumWeight(maxSizeMb * 1024 * 1024)
+            .weigher((String id, Entry entry) -> weight(entry.response()))
+            .expireAfterAccess(idle)
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * A response, with the id of the user it belongs to and, once finished, its ETag.
+     */
+    public record Entry(String userId, CodeExecutionResponse response, String etag) {
+    }
+
+    public Optional<Entry> get(String submissionId) {
+        return enabled ? Optional.ofNullable(entries.getIfPresent(submissionId)) : Optional.empty();
+    }
+
+    /**
+     * Wraps the submission's response, keeping it when the submission has finished.
+     */
+    public Entry put(CodeSubmission submission, CodeExecutionResponse response) {
+        if (!submission.getStatus().isTerminal()) {
+            return new Entry(submission.getUserId(), response, null);
+        }
+        Entry entry = new Entry(submission.getUserId(), response, etag(submission));
+        if (enabled) {
+            entries.put(submission.getId(), entry);
+        }
+        return entry;
+    }
+
+    private static String etag(CodeSubmission submission) {
+        long completedAt = submission.getCompletedAt() == null ? 0
+            : submission.getCompletedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return "\"" + submission.getId() + "-" + Long.toHexString(completedAt) + "\"";
+    }
+
+    private static int weight(CodeExecutionResponse response) {
+        long chars = length(response.getOutput()) + length(response.getErrorMessage());
+        if (response.getTestCaseResults() != null) {
+            for (TestCaseResult result : response.getTestCaseResults()) {
+                chars += BASE_WEIGHT / 4 + length(result.getOutput()) + length(result.getErrorMessage());
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, BASE_WEIGHT + 2 * chars);
+    }
+
+    private static int length(String text) {
+        return text == null ? 0 : text.length();
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = entries.stats();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("enabled", enabled);
+        map.put("hits", stats.hitCount());
+        map.put("misses", stats.missCount());
+        map.put("hitRate", stats.hitRate());
+        map.put("evictions", stats.evictionCount());
+        map.put("entries", entries.estimatedSize());
+        return map;
+    }
+}
@@ -0,0 +1,77 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Loads the JDK classes typical submissions load (input parsing, collections, streams, lambdas,
+ * formatting, big numbers) so that they end up in the class-data-sharing archive.
+ */
+public class CdsTraining {
+
+    public static void main(String[] args) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+        reader.ready();
+        Scanner scanner = new Scanner("3 1 2\n2.5 word\n");
+        StringTokenizer tokens = new StringTokenizer("4 5");
+
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            list.add(scanner.nextInt());
+        }
+        double real = scanner.nextDouble();
+        String word = scanner.next();
+        list.add(Integer.parseInt(tokens.nextToken()));
+        list.add(Integer.parseInt(tokens.nextToken()));
+        Collections.sort(list);
+        list.sort(Comparator.reverseOrder());
+
+        Map<String, Integer> counts = new HashMap<>();
+        counts.merge(word, 1, Integer::sum);
+        Map<Integer, Integer> sorted = new TreeMap<>(Map.of(1, 2));
+        Map<String, Long> ordered = new LinkedHashMap<>();
+        ordered.put(word, 1L);
+        Set<Integer> seen = new HashSet<>(list);
+        Set<Integer> sortedSet = new TreeSet<>(seen);
+        Deque<Integer> deque = new ArrayDeque<>();
+        deque.push(1);
+        deque.offerLast(2);
+        Queue<Integer> queue = new LinkedList<>(deque);
+        PriorityQueue<int[]> heap = new PriorityQueue<>((a, b) -> Integer.compare(a[0], b[0]));
+        heap.add(new int[]{1, 2});
+
+        int[] array = {3, 1, 2};
+        Arrays.sort(array);
+        long[] longs = new long[3];
+        Arrays.fill(longs, Long.MAX_VALUE);
+        Integer[] boxed = {3, 1, 2};
+        Arrays.sort(boxed, Collections.reverseOrder());
+
+        String joined = list.stream().map(String::valueOf).collect(Collectors.joining(" "));
+        int sum = IntStream.range(0, array.length).map(i -> array[i]).sum();
+        Optional<Integer> max = list.stream().filter(x -> x > 1).max(Integer::compare);
+
+        StringBuilder builder = new StringBuilder()
+            .append(joined)
+            .append(String.format("%d %.2f %s%n", sum, real, max.orElse(0)))
+            .append(new BigInteger("123456789").multiply(BigInteger.TEN))
+            .append(new BigDecimal("1.5").add(BigDecimal.ONE))
+            .append(Math.max(counts.size(), sorted.size()) + Math.abs(-1) + Math.sqrt(4))
+            .append(ordered).append(sortedSet).append(queue.size()).append(Arrays.toString(longs))
+            .append(Character.isDigit('1')).append(Long.parseLong("1")).append("a,b".split(",").length);
+
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+        out.println(builder);
+        out.printf("%s%n", heap.poll()[1]);
+        out.flush();
+        System.out.println(Objects.hash(1, 2));
+        System.err.println();
+    }
+}
@@ -0,0 +1,442 @@
+package coderank.worker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TimeZone;
+
+/**
+ * Long-lived JVM that runs JAVA submissions for the worker pool. Speaks the same framed protocol
+ * as the interpreter workers; the code payload is {@code <classesDir>\n<mainClass>}. Every run
+ * gets its own class loader and its own stdin/stdout/stderr. Compiled on startup with the javac
+ * found on PATH, so it must stay within what every supported JDK offers.
+ * <p>
+ * Submissions run in this process and can open fds 0-2 themselves, so the protocol runs over a
+ * loopback socket instead: stdin only carries {@code <port> <token>\n} and is then closed by the
+ * server, and stdout and stderr lead to /dev/null. A socket's descriptor can't be reopened through
+ * /proc, and the socket itself is only reachable through this module's private state.
+ * <p>
+ * Each reply to a run ends with whether the worker asks to be retired and the heap the run used in
+ * KB, see {@link HeapUsage}. Standard streams are JVM-wide, so a run that leaves threads behind
+ * asks to be retired. So does a run that changes the JVM's defaults, see
+ * {@link JvmState}, after they are put back. A run that exits the JVM is answered by a shutdown
+ * hook with {@code EXIT <stdoutBytes> <stderrBytes> <limitExceeded>}; its exit code is the
+ * process's.
+ * <p>
+ * Runs as module {@code coderank.worker}, the only one {@code java.lang} is opened to, so that it
+ * can read the registered shutdown hooks while submissions, in unnamed modules, cannot.
+ */
+public final class JavaWorker {
+
+    private static final PrintStream DISCARD = new PrintStream(OutputStream.nullOutputStream());
+
+    private static OutputStream replies;
+    // The run in progress, if any
+    private static volatile Run current;
+
+    private JavaWorker() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        // fd 0 is left at end of input rather than closed, so that no later descriptor takes its number
+        String channel = readLine(new FileInputStream(FileDescriptor.in));
+        if (channel == null) {
+            return;
+        }
+        String[] address = channel.split(" ");
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(address[0]));
+        InputStream control = new BufferedInputStream(socket.getInputStream());
+        replies = new BufferedOutputStream(socket.getOutputStream());
+        Runtime.getRuntime().addShutdownHook(new Thread(JavaWorker::replyOnExit, "exit-reply"));
+
+        // Stray writes from threads a submission left behind must never reach the control channel
+        System.setOut(DISCARD);
+        System.setErr(DISCARD);
+
+        replies.write((address[1] + "\nREADY\n").getBytes(StandardCharsets.US_ASCII));
+        replies.flush();
+
+        String header;
+        while ((header = readLine(control)) != null) {
+            String[] parts = header.split(" ");
+            if (parts.length != 5 || !"RUN".equals(parts[0])) {
+                // Out of sync with the server; it retires the worker once the channel closes
+                return;
+            }
+            String[] payload = new String(readExactly(control, Integer.parseInt(parts[2])), StandardCharsets.UTF_8)
+                .split("\n", 2);
+            byte[] input = readExactly(control, Integer.parseInt(parts[3]));
+            long maxOutput = Long.parseLong(parts[4]);
+
+            Run run = new Run(parts[1], maxOutput);
+            Set<Thread> before = Thread.getAllStackTraces().keySet();
+            JvmState state = new JvmState();
+            HeapUsage heap = new HeapUsage();
+            current = run;
+            int status = run(Path.of(payload[0]), payload[1], input, run.stdout, run.stderr);
+            current = null;
+            long heapKb = heap.usedKb();
+            boolean leftovers = Thread.getAllStackTraces().keySet().stream()
+                .anyMatch(thread -> thread.isAlive() && !before.contains(thread));
+            boolean changed = state.restore();
+
+            synchronized (replies) {
+                reply("DONE " + run.nonce + " " + status, run, (leftovers || changed ? " 1 " : " 0 ") + heapKb);
+            }
+        }
+    }
+
+    /**
+     * Answers for a run that exits the JVM, whether through {@code System.exit}, a method
+     * reference or reflection, so that its output is not lost.
+     */
+    private static void replyOnExit() {
+        Run run = current;
+        if (run == null) {
+            return;
+        }
+        synchronized (replies) {
+            try {
+                reply("EXIT " + run.nonce, run, "");
+            } catch (IOException e) {
+                // The server is gone
+            }
+        }
+    }
+
+    private static void reply(String head, Run run, String tail) throws IOException {
+        byte[] out = run.stdout.toByteArray();
+        byte[] err = run.stderr.toByteArray();
+        String header = head + " " + out.length + " " + err.length + " "
+            + (run.stdout.exceeded || run.stderr.exceeded ? 1 : 0) + tail + "\n";
+        replies.write(header.getBytes(StandardCharsets.US_ASCII));
+        replies.write(out);
+        replies.write(err);
+        replies.flush();
+    }
+
+    private static int run(Path classesDir, String mainClass, byte[] input, CappedOutput stdout, CappedOutput stderr)
+            throws IOException {
+        PrintStream out = new PrintStream(stdout, true, StandardCharsets.UTF_8);
+        PrintStream err = new PrintStream(stderr, true, StandardCharsets.UTF_8);
+        int[] status = {0};
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{classesDir.toUri().toURL()},
+                ClassLoader.getPlatformClassLoader())) {
+            System.setIn(new ByteArrayInputStream(input));
+            System.setOut(out);
+            System.setErr(err);
+
+            ThreadGroup group = new ThreadGroup("submission");
+            Thread main = new Thread(group, () -> status[0] = invokeMain(loader, mainClass, err), "main");
+            main.setContextClassLoader(loader);
+            main.start();
+            main.join();
+            awaitNonDaemonThreads(group);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status[0] = 1;
+        } finally {
+            out.flush();
+            err.flush();
+            System.setIn(new ByteArrayInputStream(new byte[0]));
+            System.setOut(DISCARD);
+            System.setErr(DISCARD);
+        }
+        return stdout.exceeded || stderr.exceeded ? 1 : status[0];
+    }
+
+    private static int invokeMain(ClassLoader loader, String mainClass, PrintStream err) {
+        Method main;
+        try {
+            main = Class.forName(mainClass, false, loader).getMethod("main", String[].class);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            err.println("Error: Main method not found in class " + mainClass
+                + ", please define the main method as:\n   public static void main(String[] args)");
+            return 1;
+        }
+        if (!Modifier.isStatic(main.getModifiers())) {
+            err.println("Error: Main method is not static in class " + mainClass);
+            return 1;
+        }
+
+        try {
+            main.invoke(null, (Object) new String[0]);
+            return 0;
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (!(cause instanceof OutputLimitError)) {
+                trimRunnerFrames(cause, mainClass);
+                err.print("Exception in thread \"main\" ");
+                cause.printStackTrace(err);
+            }
+            return 1;
+        } catch (IllegalAccessException e) {
+            err.println("Error: Main method in class " + mainClass + " is not accessible");
+            return 1;
+        }
+    }
+
+    private static void trimRunnerFrames(Throwable throwable, String mainClass) {
+        StackTraceElement[] trace = throwable.getStackTrace();
+        for (int i = trace.length - 1; i >= 0; i--) {
+            if (trace[i].getClassName().equals(mainClass) && trace[i].getMethodName().equals("main")) {
+                throwable.setStackTrace(Arrays.copyOf(trace, i + 1));
+                return;
+            }
+        }
+    }
+
+    private static void awaitNonDaemonThreads(ThreadGroup group) throws InterruptedException {
+        while (true) {
+            Thread[] threads = new Thread[group.activeCount() + 8];
+            int count = group.enumerate(threads, true);
+            Thread pending = null;
+            for (int i = 0; i < count && pending == null; i++) {
+                if (!threads[i].isDaemon() && threads[i].isAlive()) {
+                    pending = threads[i];
+                }
+            }
+            if (pending == null) {
+                return;
+            }
+            pending.join();
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b == -1) {
+                return null;
+            }
+            line.write(b);
+        }
+        return line.toString(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] readExactly(InputStream in, int length) throws IOException {
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException();
+        }
+        return bytes;
+    }
+
+    /**
+     * JVM-wide defaults as they were before a run. The JDK may already have acted on a changed
+     * value, so a run that changed any of them also retires its worker.
+     */
+    private static final class JvmState {
+        private static final Field HOOKS = hooksField();
+
+        private final Locale locale = Locale.getDefault();
+        private final Locale displayLocale = Locale.getDefault(Locale.Category.DISPLAY);
+        private final Locale formatLocale = Locale.getDefault(Locale.Category.FORMAT);
+        private final TimeZone timeZone = TimeZone.getDefault();
+        private final Properties properties = copy(System.getProperties());
+        private final Thread.UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+        private final Set<Thread> hooks = shutdownHooks();
+
+        /**
+         * Puts every default back; returns whether any had changed, or could not be checked.
+         */
+        boolean restore() {
+            boolean changed = false;
+            if (!locale.equals(Locale.getDefault())
+                    || !displayLocale.equals(Locale.getDefault(Locale.Category.DISPLAY))
+                    || !formatLocale.equals(Locale.getDefault(Locale.Category.FORMAT))) {
+                Locale.setDefault(locale);
+                Locale.setDefault(Locale.Category.DISPLAY, displayLocale);
+                Locale.setDefault(Locale.Category.FORMAT, formatLocale);
+                changed = true;
+            }
+            if (!timeZone.equals(TimeZone.getDefault())) {
+                TimeZone.setDefault(timeZone);
+                changed = true;
+            }
+            if (!properties.equals(System.getProperties())) {
+                System.setProperties(copy(properties));
+                changed = true;
+            }
+            if (handler != Thread.getDefaultUncaughtExceptionHandler()) {
+                Thread.setDefaultUncaughtExceptionHandler(handler);
+                changed = true;
+            }
+
+            Set<Thread> registered = shutdownHooks();
+            if (hooks == null || registered == null || !registered.containsAll(hooks)) {
+                return true;
+            }
+            for (Thread hook : registered) {
+                if (!hooks.contains(hook)) {
+                    Runtime.getRuntime().removeShutdownHook(hook);
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        private static Properties copy(Properties properties) {
+            Properties copy = new Properties();
+            copy.putAll(properties);
+            return copy;
+        }
+
+        private static Field hooksField() {
+            try {
+                Field field = Class.forName("java.lang.ApplicationShutdownHooks").getDeclaredField("hooks");
+                field.setAccessible(true);
+                return field;
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return null;
+            }
+        }
+
+        /**
+         * The registered shutdown hooks, or null when they cannot be read.
+         */
+        private static Set<Thread> shutdownHooks() {
+            if (HOOKS == null) {
+                return null;
+            }
+            try {
+                // Guarded by the class, whose methods are all static synchronized
+                synchronized (HOOKS.getDeclaringClass()) {
+                    Map<?, ?> registered = (Map<?, ?>) HOOKS.get(null);
+                    if (registered == null) {
+                        return null;
+                    }
+                    Set<Thread> hooks = Collections.newSetFromMap(new IdentityHashMap<>());
+                    registered.keySet().forEach(hook -> hooks.add((Thread) hook));
+                    return hooks;
+                }
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Heap used by a run: how far the heap pools' peak usage, reset when the run starts, rose above
+     * what they held then. Garbage earlier runs left behind is not counted, and neither is how much
+     * of the heap the JVM had reserved. Peaks of different pools are added up, so objects promoted
+     * during the run may count twice.
+     */
+    private static final class HeapUsage {
+        private final List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP && pool.isValid())
+            .toList();
+        private final long baseline;
+
+        private HeapUsage() {
+            long used = 0;
+            for (MemoryPoolMXBean pool : pools) {
+                pool.resetPeakUsage();
+                used += pool.getUsage().getUsed();
+            }
+            baseline = used;
+        }
+
+        long usedKb() {
+            long peak = 0;
+            for (MemoryPoolMXBean pool : pools) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+            return Math.max(0, peak - baseline) / 1024;
+        }
+    }
+
+    /**
+     * A run in progress: the nonce its reply must carry, and its output so far.
+     */
+    private static final class Run {
+        private final String nonce;
+        private final CappedOutput stdout;
+        private final CappedOutput stderr;
+
+        private Run(String nonce, long maxOutput) {
+            this.nonce = nonce;
+            this.stdout = new CappedOutput(maxOutput, null);
+            this.stderr = new CappedOutput(maxOutput, stdout);
+        }
+    }
+
+    /**
+     * Output buffer whose writes fail once stdout and stderr together pass the run's limit.
+     */
+    private static final class CappedOutput extends ByteArrayOutputStream {
+        private final long limit;
+        private final CappedOutput shared;
+        private long used;
+        private boolean exceeded;
+
+        private CappedOutput(long limit, CappedOutput shared) {
+            this.limit = limit;
+            this.shared = shared;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            charge(1);
+            super.write(b);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            charge(len);
+            super.write(b, off, len);
+        }
+
+        private void charge(int length) {
+            CappedOutput budget = shared != null ? shared : this;
+            synchronized (budget) {
+                budget.used += length;
+                if (budget.used > limit) {
+                    exceeded = true;
+                    throw new OutputLimitError();
+                }
+            }
+        }
+    }
+
+    /**
+     * An {@link Error} rather than an exception so that {@code catch (Exception e)} in user code
+     * doesn't swallow it.
+     */
+    private static final class OutputLimitError extends Error {
+        private OutputLimitError() {
+            super("Output limit exceeded", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+'use strict';
+
+// A booted node that waits for exactly one program and then becomes it, as if started with
+// `node code.js`. The frame is `RUN <codeBytes>\n<workDir>\n<code>`; everything after it on stdin
+// is the program's input, and its output and exit code are the process's own. Node has no way to
+// isolate code that shares a process, so a worker never runs a second submission.
+
+const fs = require('fs');
+const path = require('path');
+const { Module } = require('module');
+
+// Modules preloaded during warm-up so submissions don't pay for loading them
+for (const name of ['util', 'events', 'stream', 'readline', 'string_decoder', 'assert']) {
+    require(name);
+}
+
+// Reads fd 0 a byte at a time so that not a byte of the program's input is consumed
+function readByte() {
+    const byte = Buffer.alloc(1);
+    while (true) {
+        try {
+            return fs.readSync(0, byte, 0, 1, null) === 1 ? byte[0] : -1;
+        } catch (e) {
+            if (e.code !== 'EAGAIN') {
+                throw e;
+            }
+        }
+    }
+}
+
+function readLine() {
+    const bytes = [];
+    let b;
+    while ((b = readByte()) !== 10) {
+        if (b === -1) {
+            process.exit(0);
+        }
+        bytes.push(b);
+    }
+    return Buffer.from(bytes).toString('utf8');
+}
+
+function readExactly(length) {
+    const buffer = Buffer.alloc(length);
+    let read = 0;
+    while (read < length) {
+        try {
+            const count = fs.readSync(0, buffer, read, length - read, null);
+            if (count === 0) {
+                process.exit(0);
+            }
+            read += count;
+        } catch (e) {
+            if (e.code !== 'EAGAIN') {
+                throw e;
+            }
+        }
+    }
+    return buffer.toString('utf8');
+}
+
+fs.writeSync(1, 'READY\n');
+
+const [, codeLength] = readLine().split(' ');
+const workDir = readLine();
+const code = readExactly(Number(codeLength));
+
+const filename = path.join(workDir, 'code.js');
+process.chdir(workDir);
+process.argv = [process.argv[0], filename];
+
+const main = new Module(filename, null);
+main.filename = filename;
+main.paths = Module._nodeModulePaths(workDir);
+process.mainModule = main;
+try {
+    main._compile(code, filename);
+} catch (e) {
+    // Drop the worker's own frames so the trace reads like a plain `node code.js` run
+    const trace = e && typeof e === 'object' && typeof e.stack === 'string'
+        ? e.stack.split('\n').filter((line) => !line.trimStart().startsWith('at ') || line.includes(filename)).join('\n')
+        : 'Uncaught ' + String(e);
+    fs.writeSync(2, trace + '\n');
+    process.exit(1);
+}
@@ -0,0 +1,166 @@
+import builtins
+import ctypes
+import linecache
+import os
+import random
+import select
+import shutil
+import signal
+import sys
+import tempfile
+import threading
+import traceback
+
+# Modules preloaded during warm-up so submissions don't pay for importing them
+for _name in ("math", "collections", "itertools", "functools", "heapq", "bisect", "re", "string"):
+    __import__(_name)
+
+PR_SET_CHILD_SUBREAPER = 36
+CHUNK = 65536
+
+control_in = sys.stdin.buffer
+control_out = sys.stdout.buffer
+base_dir = os.getcwd()
+
+# Processes a submission leaves behind are reparented here, where the server finds and kills them
+try:
+    ctypes.CDLL(None, use_errno=True).prctl(PR_SET_CHILD_SUBREAPER, 1, 0, 0, 0)
+except (OSError, AttributeError):
+    pass
+
+
+def run(code, data, max_output):
+    """Runs the submission in a forked child of this process, which itself never runs user code.
+
+    The child starts from the warmed-up state, gets the run's input and output pipes as fds 0-2 in
+    place of the control channel, and works in a directory of its own. Whatever it changes, from
+    builtins to imported modules, dies with it.
+    """
+    work_dir = tempfile.mkdtemp(dir=base_dir)
+    stdin = tempfile.TemporaryFile()
+    stdin.write(data)
+    stdin.seek(0)
+    out_r, out_w = os.pipe()
+    err_r, err_w = os.pipe()
+    try:
+        pid = os.fork()
+        if pid == 0:
+            try:
+                os.dup2(stdin.fileno(), 0)
+                os.dup2(out_w, 1)
+                os.dup2(err_w, 2)
+                for fd in (stdin.fileno(), out_r, out_w, err_r, err_w):
+                    os.close(fd)
+                execute(code, work_dir)
+            finally:
+                os._exit(1)
+        os.close(out_w)
+        os.close(err_w)
+        return collect(pid, out_r, err_r, max_output)
+    finally:
+        stdin.close()
+        for fd in (out_r, err_r):
+            os.close(fd)
+        shutil.rmtree(work_dir, ignore_errors=True)
+
+
+def execute(code, work_dir):
+    """Body of the forked child; never returns."""
+    status = 1
+    try:
+        os.chdir(work_dir)
+        sys.stdin = sys.__stdin__ = open(0, "r", encoding="utf-8", closefd=False)
+        sys.stdout = sys.__stdout__ = open(1, "w", encoding="utf-8", closefd=False)
+        sys.stderr = sys.__stderr__ = open(2, "w", encoding="utf-8", errors="backslashreplace", closefd=False)
+        sys.argv = ["code.py"]
+        random.seed()
+        linecache.cache["code.py"] = (len(code), None, code.splitlines(True), "code.py")
+        try:
+            exec(compile(code, "code.py", "exec"), {"__name__": "__main__", "__builtins__": builtins})
+            status = 0
+        except SystemExit as e:
+            if e.code is None:
+                status = 0
+            elif isinstance(e.code, int):
+                status = e.code
+            else:
+                print(e.code, file=sys.stderr)
+        except BaseException as e:
+            traceback.print_exception(type(e), e, e.__traceback__.tb_next)
+        for thread in threading.enumerate():
+            if thread is not threading.current_thread() and not thread.daemon:
+                thread.join()
+    finally:
+        for stream in (sys.stdout, sys.stderr):
+            try:
+                stream.flush()
+            except BaseException:
+                pass
+        os._exit(status & 0xFF)
+
+
+def collect(pid, out_fd, err_fd, max_output):
+    """Reads the child's stdout and stderr until it exits, killing it once they pass the limit together."""
+    chunks = {out_fd: [], err_fd: []}
+    streams = [out_fd, err_fd]
+    used = 0
+    exceeded = False
+    status = None
+    while streams and not exceeded:
+        # Once the child is gone, whatever it wrote is already in the pipes
+        ready, _, _ = select.select(streams, [], [], 0 if status is not None else 0.05)
+        if not ready:
+            if status is not None:
+                break
+            done, raw = os.waitpid(pid, os.WNOHANG)
+            if done:
+                status = raw
+            continue
+        for fd in ready:
+            data = os.read(fd, CHUNK)
+            if not data:
+                streams.remove(fd)
+                continue
+            used += len(data)
+            if used > max_output:
+                data = data[:len(data) - (used - max_output)]
+                exceeded = True
+                os.kill(pid, signal.SIGKILL)
+            chunks[fd].append(data)
+    if status is None:
+        _, status = os.waitpid(pid, 0)
+    exit_code = 128 + os.WTERMSIG(status) if os.WIFSIGNALED(status) else os.WEXITSTATUS(status)
+    return 1 if exceeded else exit_code, b"".join(chunks[out_fd]), b"".join(chunks[err_fd]), exceeded
+
+
+def reap_children():
+    """Collects processes a previous submission left behind, which the server kills after each run."""
+    while True:
+        try:
+            pid, _ = os.waitpid(-1, os.WNOHANG)
+        except ChildProcessError:
+            return
+        if pid == 0:
+            return
+
+
+control_out.write(b"READY\n")
+control_out.flush()
+
+while True:
+    header = control_in.readline()
+    if not header:
+        break
+    reap_children()
+    parts = header.split()
+    if len(parts) != 5 or parts[0] != b"RUN":
+        # Out of sync with the server, which retires the worker once the channel closes
+        break
+    _, nonce, code_length, input_length, max_output = parts
+    code = control_in.read(int(code_length)).decode("utf-8")
+    data = control_in.read(int(input_length))
+    status, out, err, exceeded = run(code, data, int(max_output))
+    control_out.write(b"DONE %b %d %d %d %d\n" % (nonce, status, len(out), len(err), exceeded))
+    control_out.write(out)
+    control_out.write(err)
+    control_out.flush()
@@ -0,0 +1,42 @@
+package com.coderank.api.execution;
+
+import com.coderank.api.domain.Language;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Code Normalizer Tests")
+class CodeNormalizerTest {
+
+    @Test
+    @DisplayName("Should strip comments and trailing whitespace but keep line breaks")
+    void shouldStripCommentsAndTrailingWhitespace() {
+        String code = "int a = 1; // one   \nint b = /* two */ 2;   \n/* multi\nline */int c;\n";
+
+        assertEquals("int a = 1;\nint b =   2;\n\n int c;\n",
+            CodeNormalizer.normalize(Language.CPP, code, true, true));
+    }
+
+    @Test
+    @DisplayName("Should leave comment markers inside string literals alone")
+    void shouldKeepStringLiterals() {
+        String python = "s = '# not a comment'  # comment\nt = \"\"\"keep   \n# this\"\"\"\n";
+        String js = "const url = `http://example.com   \n`; // comment\n";
+
+        assertEquals("s = '# not a comment'\nt = \"\"\"keep   \n# this\"\"\"\n",
+            CodeNormalizer.normalize(Language.PYTHON, python, true, true));
+        assertEquals("const url = `http://example.com   \n`;\n",
+            CodeNormalizer.normalize(Language.JAVASCRIPT, js, true, true));
+    }
+
+    @Test
+    @DisplayName("Should only apply the enabled rules")
+    void shouldHonourConfiguration() {
+        String code = "x = 1  # note  \n";
+
+        assertEquals("x = 1  # note\n", CodeNormalizer.normalize(Language.PYTHON, code, false, true));
+        assertEquals("x = 1  \n", CodeNormalizer.normalize(Language.PYTHON, code, true, false));
+        assertEquals(code, CodeNormalizer.normalize(Language.PYTHON, code, false, false));
+    }
+}
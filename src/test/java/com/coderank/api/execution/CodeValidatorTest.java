@@ -0,0 +1,165 @@
+package com.coderank.api.execution;
+
+import com.coderank.api.domain.Language;
+import com.coderank.api.exception.SecurityViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Code Validator Tests")
+class CodeValidatorTest {
+
+    private CodeValidator validator;
+
+    @BeforeEach
+    void setUp() {
+        validator = new CodeValidator();
+        ReflectionTestUtils.setField(validator, "cacheSize", 100L);
+        validator.init();
+    }
+
+    @Test
+    @DisplayName("Should reject forbidden operations however they are spaced")
+    void shouldRejectForbiddenOperations() {
+        assertViolation("import\\s+os", "import    os\nprint(os.getcwd())", Language.PYTHON);
+        assertViolation("exec\\s*\\(", "x = 1\nexec  ('print(1)')", Language.PYTHON);
+        assertViolation("System\\.exit", "class Main { void f() { System.exit(0); } }", Language.JAVA);
+        assertViolation("require\\s*\\(\\s*['\"]fs['\"]", "const fs = require( \"fs\" );", Language.JAVASCRIPT);
+        assertViolation("require\\s*\\(\\s*['\"]child_process['\"]", "require(`child_process`)", Language.JAVASCRIPT);
+        assertViolation("#include\\s*<fstream>", "#include <fstream>\nint main() {}", Language.CPP);
+        assertViolation("fork\\s*\\(", "int main() { fork\n(); }", Language.CPP);
+    }
+
+    @Test
+    @DisplayName("Should ignore forbidden operations in comments and strings")
+    void shouldIgnoreCommentsAndStrings() {
+        assertDoesNotThrow(() -> validator.validate("""
+            # import os
+            print("eval(x) and open(f)")  # exec(
+            s = '''
+            import subprocess
+            '''
+            """, Language.PYTHON));
+        assertDoesNotThrow(() -> validator.validate("""
+            /* Runtime.getRuntime() */
+            class Main {
+                // System.exit(1);
+                String s = "new ProcessBuilder()";
+            }
+            """, Language.JAVA));
+        assertDoesNotThrow(() -> validator.validate("""
+            const s = "require('fs')"; // eval(s)
+            const path = require('path');
+            """, Language.JAVASCRIPT));
+    }
+
+    @Test
+    @DisplayName("Should not take quotes outside literals for the start of one")
+    void shouldTrackLiteralsLikeTheCompiler() {
+        assertViolation("system\\s*\\(", "int a=1'0;system(\"id\");int b=2'0;", Language.CPP);
+        assertViolation("require\\s*\\(\\s*['\"]child_process['\"]",
+            "const r=/'/; const cp = require('child_process'); const q=/'/;", Language.JAVASCRIPT);
+        assertViolation("require\\s*\\(\\s*['\"]fs['\"]", "const s = `${require('fs').readFileSync('x')}`;",
+            Language.JAVASCRIPT);
+        assertViolation("__import__", "print(f\"{__import__('os').getcwd()}\")", Language.PYTHON);
+        assertViolation("Runtime\\.getRuntime", "String s = \"\\u0022; Runtime.getRuntime(); //\";", Language.JAVA);
+        // Unterminated or unclear, so read as code
+        assertViolation("eval\\s*\\(", "x = '\neval(y)", Language.PYTHON);
+        assertViolation("eval\\s*\\(", "if (a) {}\n/'/; eval(x); /'/", Language.JAVASCRIPT);
+
+        assertDoesNotThrow(() -> validator.validate("""
+            const n = 10 / 2 / 1;
+            const r = /"[/]/g; // require('net')
+            const s = `eval(${n}) ${'}'}`;
+            """, Language.JAVASCRIPT));
+        assertDoesNotThrow(() -> validator.validate(
+            "int n = 1'000; const char* s = R\"x(system(\")x\";", Language.CPP));
+        assertDoesNotThrow(() -> validator.validate("print(f\"{x!r:>{w}} {{open(f)}}\")", Language.PYTHON));
+    }
+
+    @Test
+    @DisplayName("Should reject empty and oversized code before matching")
+    void shouldRejectEmptyAndOversizedCode() {
+        assertThrows(SecurityViolationException.class, () -> validator.validate("  \n", Language.PYTHON));
+        assertThrows(SecurityViolationException.class,
+            () -> validator.validate("x".repeat(10001), Language.PYTHON));
+    }
+
+    @Test
+    @DisplayName("Should cache verdicts by code")
+    void shouldCacheVerdicts() {
+        String code = "print(1)";
+        validator.validate(code, Language.PYTHON);
+        validator.validate(code, Language.PYTHON);
+        assertThrows(SecurityViolationException.class, () -> validator.validate("open('x')", Language.PYTHON));
+        assertThrows(SecurityViolationException.class, () -> validator.validate("open('x')", Language.PYTHON));
+
+        assertEquals(2L, validator.getStats().get("size"));
+        assertEquals(0.5, validator.getStats().get("hitRate"));
+    }
+
+    /**
+     * Compares the single-pass matcher against running the patterns as regular expressions one
+     * after another, as validation used to. Run with
+     * {@code mvn test -Dtest=CodeValidatorTest -Dbenchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    @DisplayName("Should scan faster than one regular expression per pattern")
+    void compareWithRegexScan() {
+        List<Pattern> patterns = Stream.of("import\\s+os", "import\\s+subprocess", "import\\s+socket",
+            "import\\s+requests", "__import__", "exec\\s*\\(", "eval\\s*\\(", "compile\\s*\\(", "open\\s*\\(")
+            .map(Pattern::compile)
+            .toList();
+        String code = ("""
+            import sys
+            from collections import defaultdict
+
+            def solve(values):
+                # count every value, then print the most common one
+                counts = defaultdict(int)
+                for value in values:
+                    counts[value] += 1
+                return max(counts.items(), key=lambda item: item[1])
+
+            print(solve(sys.stdin.read().split()), "done")
+            """).repeat(20);
+
+        int iterations = Integer.getInteger("benchmark.iterations", 20000);
+        for (int round = 0; round < 2; round++) {
+            long regexStart = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                for (Pattern pattern : patterns) {
+                    assertFalse(pattern.matcher(code).find());
+                }
+            }
+            long regexNanos = System.nanoTime() - regexStart;
+
+            long scanStart = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                assertEquals("", CodeValidator.findViolation(code, Language.PYTHON));
+            }
+            long scanNanos = System.nanoTime() - scanStart;
+
+            System.out.printf("%d chars: regex %.1f us, single pass %.1f us per validation%n",
+                code.length(), regexNanos / 1000.0 / iterations, scanNanos / 1000.0 / iterations);
+            if (round == 1) {
+                assertTrue(scanNanos < regexNanos);
+            }
+        }
+    }
+
+    private void assertViolation(String pattern, String code, Language language) {
+        SecurityViolationException e = assertThrows(SecurityViolationException.class,
+            () -> validator.validate(code, language));
+        assertEquals("Code contains forbidden operation: " + pattern, e.getMessage());
+    }
+}
@@ -0,0 +1,124 @@
+package com.coderank.api.execution;
+
+import com.coderank.api.domain.Language;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Compile Cache Tests")
+class CompileCacheTest {
+
+    @TempDir
+    Path cacheDir;
+
+    private CompileCache cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        cache = new CompileCache();
+        ReflectionTestUtils.setField(cache, "root", cacheDir);
+        ReflectionTestUtils.setField(cache, "maxSizeMb", 1L);
+        cache.load();
+    }
+
+    @Test
+    @DisplayName("Should compile on miss and reuse the artifact on hit")
+    void shouldReuseArtifactOnHit() throws Exception {
+        AtomicInteger compiles = new AtomicInteger();
+        String key = CompileCache.key(Language.CPP, "g++ 12", List.of(), "int main() {}");
+
+        for (int i = 0; i < 3; i++) {
+            CompileCache.Outcome outcome = cache.getOrCompile(key, outputDir -> {
+                compiles.incrementAndGet();
+                Files.writeString(outputDir.resolve("program"), "binary");
+                return null;
+            });
+            try (CompileCache.Lease lease = outcome.lease()) {
+                assertEquals("binary", Files.readString(lease.getDir().resolve("program")));
+            }
+        }
+
+        assertEquals(1, compiles.get());
+        assertEquals(2L, cache.getStats().get("hits"));
+        assertEquals(1L, cache.getStats().get("misses"));
+    }
+
+    @Test
+    @DisplayName("Should not cache compilation failures")
+    void shouldNotCacheFailures() throws Exception {
+        String key = CompileCache.key(Language.JAVA, "javac 21", List.of(), "class Broken {");
+
+        CompileCache.Outcome outcome = cache.getOrCompile(key,
+            outputDir -> new CompileCache.CompileFailure(1, "error: reached end of file while parsing"));
+
+        assertNull(outcome.lease());
+        assertEquals(1, outcome.failure().exitCode());
+        assertEquals(0, cache.getStats().get("entries"));
+    }
+
+    @Test
+    @DisplayName("Should share a single compile between concurrent requests for the same source")
+    void shouldShareConcurrentCompiles() throws Exception {
+        AtomicInteger compiles = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        String key = CompileCache.key(Language.JAVA, "javac 21", List.of(), "public class Main {}");
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<CompileCache.Outcome>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> cache.getOrCompile(key, outputDir -> {
+                    compiles.incrementAndGet();
+                    release.await();
+                    Files.writeString(outputDir.resolve("Main.class"), "bytes");
+                    return null;
+                })));
+            }
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<CompileCache.Outcome> future : futures) {
+                try (CompileCache.Lease lease = future.get().lease()) {
+                    assertTrue(Files.exists(lease.getDir().resolve("Main.class")));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, compiles.get());
+    }
+
+    @Test
+    @DisplayName("Should evict least recently used entries but keep leased ones")
+    void shouldEvictLeastRecentlyUsed() throws Exception {
+        byte[] artifact = new byte[400 * 1024];
+        CompileCache.Compiler compiler = outputDir -> {
+            Files.write(outputDir.resolve("program"), artifact);
+            return null;
+        };
+
+        CompileCache.Lease first = cache.getOrCompile("a".repeat(64), compiler).lease();
+        cache.getOrCompile("b".repeat(64), compiler).lease().close();
+        cache.getOrCompile("c".repeat(64), compiler).lease().close();
+
+        assertTrue(Files.exists(first.getDir()), "leased entry must survive eviction");
+        assertFalse(Files.exists(cacheDir.resolve("b".repeat(64))));
+        assertEquals(1L, cache.getStats().get("evictions"));
+        first.close();
+    }
+}
@@ -0,0 +1,62 @@
+package com.coderank.api.execution;
+
+import com.coderank.api.exception.ExecutionTimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Compile Stage Tests")
+class CompileStageTest {
+
+    private CompileStage stage;
+
+    @BeforeEach
+    void setUp() {
+        stage = new CompileStage();
+        ReflectionTestUtils.setField(stage, "workers", 1);
+        ReflectionTestUtils.setField(stage, "timeoutSeconds", 1L);
+        stage.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stage.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should interrupt a compile that exceeds the compile timeout")
+    void shouldTimeOutSlowCompile() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        ExecutionTimeoutException timeout = assertThrows(ExecutionTimeoutException.class, () ->
+            stage.compile(timeoutMs -> {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw e;
+                }
+                return null;
+            }));
+
+        assertTrue(timeout.getMessage().contains("Compilation"));
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertEquals(1L, stage.getStats().get("timeouts"));
+    }
+
+    @Test
+    @DisplayName("Should hand back the compile failure")
+    void shouldReturnCompileFailure() throws Exception {
+        CompileCache.CompileFailure failure = stage.compile(timeoutMs -> new CompileCache.CompileFailure(1, "error"));
+
+        assertEquals("error", failure.diagnostics());
+        assertEquals(1L, stage.getStats().get("compiles"));
+    }
+}
@@ -0,0 +1,73 @@
+package com.coderank.api.execution;
+
+import com.coderank.api.domain.Language;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares compile times of CPP submissions including {@code <bits/stdc++.h>} with and without
+ * the precompiled header. Every source is unique, so none is served from the compile cache. Run
+ * with {@code mvn test -Dtest=CppCompileBenchmarkTest -Dbenchmark=true}; tune with
+ * {@code -Dbenchmark.compiles}.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("CPP Compile Benchmark")
+class CppCompileBenchmarkTest {
+
+    private static final int COMPILES = Integer.getInteger("benchmark.compiles", 10);
+    private static final String CODE = """
+        #include <bits/stdc++.h>
+        using namespace std;
+        int main() {
+            vector<int> v = {3, 1, 2};
+            sort(v.begin(), v.end());
+            cout << v[0] + %d << endl;
+            return 0;
+        }
+        """;
+
+    @Autowired
+    private LocalExecutionService executionService;
+
+    @Autowired
+    private CppToolchain cppToolchain;
+
+    @Test
+    @DisplayName("Should compile faster with the precompiled header")
+    void comparePrecompiledHeader() throws Exception {
+        long deadline = System.currentTimeMillis() + 120_000;
+        while ((int) cppToolchain.getStats().get("pchReady") == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertEquals(1, cppToolchain.getStats().get("pchReady"), "PCH was not built");
+
+        ReflectionTestUtils.setField(cppToolchain, "pchEnabled", false);
+        long withoutPch = run("without pch", 0);
+        ReflectionTestUtils.setField(cppToolchain, "pchEnabled", true);
+        long withPch = run("with pch", COMPILES);
+
+        assertTrue(withPch < withoutPch);
+    }
+
+    private long run(String mode, int offset) {
+        long totalMs = 0;
+        for (int i = 0; i < COMPILES; i++) {
+            ExecutionResult result = executionService.execute(ExecutionRequest.builder()
+                .language(Language.CPP)
+                .code(CODE.formatted(offset + i))
+                .input("")
+                .build());
+            assertEquals(String.valueOf(1 + offset + i), result.getOutput().trim(), result.getError());
+            totalMs += result.getCompileTimeMs();
+        }
+        System.out.printf("%s: %d compiles, %.0f ms average%n", mode, COMPILES, (double) totalMs / COMPILES);
+        return totalMs;
+    }
+}
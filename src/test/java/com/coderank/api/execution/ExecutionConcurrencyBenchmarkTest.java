@@ -0,0 +1,82 @@
+package com.coderank.api.execution;
+
+import com.coderank.api.domain.Language;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares how many executions are in flight at once when callers are a bounded pool of platform
+ * threads, like servlet or scheduler threads, versus one virtual thread each. Every execution
+ * sleeps, so the peak is bounded by the callers and not by the CPU. Run with
+ * {@code mvn test -Dtest=ExecutionConcurrencyBenchmarkTest -Dbenchmark=true}; tune with
+ * {@code -Dbenchmark.executions} and {@code -Dbenchmark.platform-threads}.
+ */
+@SpringBootTest(properties = "execution.pool.enabled=false")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Execution Concurrency Benchmark")
+class ExecutionConcurrencyBenchmarkTest {
+
+    private static final int EXECUTIONS = Integer.getInteger("benchmark.executions", 256);
+    private static final int PLATFORM_THREADS = Integer.getInteger("benchmark.platform-threads", 64);
+    private static final String CODE = """
+        import time
+        time.sleep(1)
+        print('done')
+        """;
+
+    @Autowired
+    private LocalExecutionService executionService;
+
+    @Test
+    @DisplayName("Should sustain more in-flight executions on virtual threads")
+    void compareInFlightExecutions() throws Exception {
+        int platformPeak = run("platform", Executors.newFixedThreadPool(PLATFORM_THREADS));
+        int virtualPeak = run("virtual", Executors.newVirtualThreadPerTaskExecutor());
+
+        assertTrue(virtualPeak >= platformPeak);
+    }
+
+    private int run(String mode, ExecutorService callers) throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<Future<ExecutionResult>> results = new ArrayList<>();
+
+        long startTime = System.nanoTime();
+        try (callers) {
+            for (int i = 0; i < EXECUTIONS; i++) {
+                results.add(callers.submit(() -> {
+                    peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        return executionService.execute(ExecutionRequest.builder()
+                            .language(Language.PYTHON)
+                            .code(CODE)
+                            .input("")
+                            .build());
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                }));
+            }
+        }
+        long elapsedMs = (System.nanoTime() - startTime) / 1_000_000;
+
+        for (Future<ExecutionResult> result : results) {
+            assertEquals(0, result.get().getExitCode(), result.get().getError());
+        }
+        System.out.printf("%s: %d executions, peak %d in flight, %d ms, %.1f executions/s%n",
+            mode, EXECUTIONS, peak.get(), elapsedMs, EXECUTIONS * 1000.0 / elapsedMs);
+        return peak.get();
+    }
+}
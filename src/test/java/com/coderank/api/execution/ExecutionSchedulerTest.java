@@ -0,0 +1,127 @@
+package com.coderank.api.execution;
+
+import com.coderank.api.domain.Language;
+import com.coderank.api.exception.ExecutionQueueFullException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Execution Scheduler Tests")
+class ExecutionSchedulerTest {
+
+    private ExecutionScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new ExecutionScheduler();
+        ReflectionTestUtils.setField(scheduler, "queueCapacity", 3);
+        ReflectionTestUtils.setField(scheduler, "pythonLimit", 4);
+        ReflectionTestUtils.setField(scheduler, "javascriptLimit", 4);
+        ReflectionTestUtils.setField(scheduler, "javaLimit", 2);
+        ReflectionTestUtils.setField(scheduler, "cppLimit", 1);
+        scheduler.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        scheduler.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should cap concurrent runs per language")
+    void shouldCapConcurrencyPerLanguage() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch finished = new CountDownLatch(3);
+
+        for (int i = 0; i < 3; i++) {
+            scheduler.admit(Language.CPP).start(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(50);
+                running.decrementAndGet();
+                finished.countDown();
+            });
+        }
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(1, peak.get());
+    }
+
+    @Test
+    @DisplayName("Should reject with a retry hint once the queue is full")
+    void shouldRejectWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler.admit(Language.CPP).start(() -> await(release));
+
+        // The lane is busy, so these wait in the queue
+        for (int i = 0; i < 3; i++) {
+            scheduler.admit(Language.CPP).start(() -> { });
+        }
+
+        ExecutionQueueFullException rejected =
+            assertThrows(ExecutionQueueFullException.class, () -> scheduler.admit(Language.PYTHON));
+        assertTrue(rejected.getRetryAfterSeconds() >= 1);
+        assertEquals(1L, scheduler.getStats().get("rejected"));
+
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("Should free the queue slot of a cancelled admission")
+    void shouldFreeSlotOnCancel() {
+        for (int i = 0; i < 3; i++) {
+            scheduler.admit(Language.JAVA).cancel();
+        }
+
+        assertDoesNotThrow(() -> scheduler.admit(Language.JAVA).cancel());
+        assertEquals(0, scheduler.getStats().get("waiting"));
+    }
+
+    @Test
+    @DisplayName("Should only lend slots the lane has free")
+    void shouldLendOnlyFreeSlots() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        scheduler.admit(Language.JAVA).start(() -> {
+            started.countDown();
+            await(release);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertEquals(1, scheduler.borrow(Language.JAVA, 3));
+        assertEquals(0, scheduler.borrow(Language.JAVA, 1));
+
+        // A borrowed slot holds back the next admitted run until it is given back
+        CountDownLatch ran = new CountDownLatch(1);
+        scheduler.admit(Language.JAVA).start(ran::countDown);
+        assertFalse(ran.await(100, TimeUnit.MILLISECONDS));
+        scheduler.release(Language.JAVA);
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+
+        release.countDown();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.coderank.api.execution;
+
+import com.coderank.api.domain.Language;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares wall-clock run time and JVM startup time of JAVA runs launched bare, with the startup
+ * flag profile, and with the profile plus the class-data-sharing archive. Runs outside the worker
+ * pool, so every run is a fresh JVM. Run with
+ * {@code mvn test -Dtest=JavaStartupBenchmarkTest -Dbenchmark=true}; tune with
+ * {@code -Dbenchmark.runs}.
+ */
+@SpringBootTest(properties = "execution.pool.enabled=false")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("JAVA Startup Benchmark")
+class JavaStartupBenchmarkTest {
+
+    private static final int RUNS = Integer.getInteger("benchmark.runs", 20);
+    private static final String CODE = """
+        import java.util.*;
+        import java.util.stream.*;
+
+        public class Main {
+            public static void main(String[] args) {
+                Scanner scanner = new Scanner(System.in);
+                List<Integer> numbers = new ArrayList<>();
+                while (scanner.hasNextInt()) {
+                    numbers.add(scanner.nextInt());
+                }
+                System.out.println(numbers.stream().map(String::valueOf).collect(Collectors.joining(",")));
+            }
+        }
+        """;
+
+    @Autowired
+    private LocalExecutionService executionService;
+
+    @Autowired
+    private JavaLauncher javaLauncher;
+
+    @Test
+    @DisplayName("Should start JAVA runs faster with the archive and flag profile")
+    void compareStartup() throws Exception {
+        long deadline = System.currentTimeMillis() + 120_000;
+        while ((int) javaLauncher.getStats().get("archiveReady") == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertEquals(1, javaLauncher.getStats().get("archiveReady"), "archive was not built");
+        String[] profile = (String[]) ReflectionTestUtils.getField(javaLauncher, "options");
+
+        ReflectionTestUtils.setField(javaLauncher, "cdsEnabled", false);
+        ReflectionTestUtils.setField(javaLauncher, "options", new String[0]);
+        double bare = run("bare");
+        ReflectionTestUtils.setField(javaLauncher, "options", profile);
+        double tuned = run("profile");
+        ReflectionTestUtils.setField(javaLauncher, "cdsEnabled", true);
+        double archived = run("profile + cds");
+
+        assertTrue(archived < bare);
+        assertTrue(tuned < bare);
+    }
+
+    private double run(String mode) {
+        long measuredBefore = counter("measured");
+        long startupMicrosBefore = counter("totalStartupMicros");
+        long totalMs = 0;
+        for (int i = 0; i < RUNS; i++) {
+            ExecutionResult result = executionService.execute(ExecutionRequest.builder()
+                .language(Language.JAVA)
+                .code(CODE)
+                .input(i + " 2 3")
+                .build());
+            assertEquals(i + ",2,3", result.getOutput().trim(), result.getError());
+            totalMs += result.getExecutionTimeMs();
+        }
+        double startupMs = (counter("totalStartupMicros") - startupMicrosBefore) / 1000.0
+            / (counter("measured") - measuredBefore);
+        System.out.printf("%s: %d runs, %.0f ms average run, %.1f ms average JVM startup%n",
+            mode, RUNS, (double) totalMs / RUNS, startupMs);
+        return startupMs;
+    }
+
+    private long counter(String field) {
+        return ((AtomicLong) ReflectionTestUtils.getField(javaLauncher, field)).get();
+    }
+}
@@ -10,6 +10,11 @@ import org.junit.jupiter.api.condition.OS;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -20,6 +25,15 @@ class LocalExecutionServiceTest {
     @Autowired
     private LocalExecutionService executionService;
 
+    @Autowired
+    private ResourceMonitor resourceMonitor;
+
+    @Autowired
+    private InMemoryJavaCompiler javaCompiler;
+
+    @Autowired
+    private WorkerPool workerPool;
+
     @BeforeEach
     void setUp() {
         // Set timeout to 10 seconds for tests
@@ -171,6 +185,541 @@ class LocalExecutionServiceTest {
         assertNotEquals(0, result.getExitCode());
         assertFalse(result.getError().isEmpty());
     }
-    
-}
 
+    // Python Execution Tests
+    @Test
+    @DisplayName("Should execute simple Python code successfully")
+    void shouldExecuteSimplePythonCode() {
+        ExecutionRequest request = ExecutionRequest.builder()
+            .language(Language.PYTHON)
+            .code("print('Hello from Python!')")
+            .input("")
+            .build();
+
+        ExecutionResult result = executionService.execute(request);
+
+        assertNotNull(result);
+        assertEquals(0, result.getExitCode());
+        assertTrue(result.getOutput().contains("Hello from Python!"));
+    }
+
+    @Test
+    @DisplayName("Should pass input to Python code")
+    void shouldPassInputToPythonCode() {
+        ExecutionRequest request = ExecutionRequest.builder()
+            .language(Language.PYTHON)
+            .code("""
+                a, b = map(int, input().split())
+                print('Sum:', a + b)
+                """)
+            .input("3 4\n")
+            .build();
+
+        ExecutionResult result = executionService.execute(request);
+
+        assertNotNull(result);
+        assertEquals(0, result.getExitCode());
+        assertTrue(result.getOutput().contains("Sum: 7"));
+    }
+
+    @Test
+    @DisplayName("Should not leak state between Python runs")
+    void shouldNotLeakStateBetweenPythonRuns() {
+        executionService.execute(ExecutionRequest.builder()
+            .language(Language.PYTHON)
+            .code("leaked = 42")
+            .input("")
+            .build());
+
+        ExecutionResult result = executionService.execute(ExecutionRequest.builder()
+            .language(Language.PYTHON)
+            .code("print(leaked)")
+            .input("")
+            .build());
+
+        assertNotEquals(0, result.getExitCode());
+        assertTrue(result.getError().contains("NameError"));
+    }
+
+    @Test
+    @DisplayName("Should not let a run tamper with the runs after it")
+    void shouldIsolateWorkerRunsFromEachOther() {
+        // More runs than there are workers, so every worker has been tampered with
+        for (int i = 0; i < 3; i++) {
+            ExecutionResult tampered = executionService.execute(ExecutionRequest.builder()
+                .language(Language.PYTHON)
+                .code("""
+                    import builtins, math, sys
+                    builtins.input = lambda *args: "spied"
+                    math.pi = 3
+                    sys.__stdout__.write("DONE 0 0 0 0\\n")
+                    """)
+                .input("")
+                .build());
+            assertEquals("DONE 0 0 0 0", tampered.getOutput().trim());
+
+            executionService.execute(ExecutionRequest.builder()
+                .language(Language.JAVASCRIPT)
+                .code("""
+                    require('stream').Readable.prototype.push = function () { return true; };
+                    globalThis.leaked = true;
+                    process.stdout.write('DONE 0 0 0 0\\n');
+                    """)
+                .input("")
+                .build());
+        }
+
+        ExecutionResult python = executionService.execute(ExecutionRequest.builder()
+            .language(Language.PYTHON)
+            .code("import math\nprint(input(), math.pi)")
+            .input("secret")
+            .build());
+        assertEquals("secret 3.141592653589793", python.getOutput().trim());
+
+        ExecutionResult javascript = executionService.execute(ExecutionRequest.builder()
+            .language(Language.JAVASCRIPT)
+            .code("""
+                let data = '';
+                process.stdin.on('data', (chunk) => data += chunk);
+                process.stdin.on('end', () => console.log(data.trim(), typeof leaked));
+                """)
+            .input("secret")
+            .build());
+        assertEquals("secret undefined", javascript.getOutput().trim());
+    }
+
+    @Test
+    @DisplayName("Should not leak static state between Java runs")
+    void shouldNotLeakStaticStateBetweenJavaRuns() {
+        String code = """
+            import java.util.Scanner;
+
+            public class Counter {
+                static int runs;
+
+                public static void main(String[] args) {
+                    runs++;
+                    int n = new Scanner(System.in).nextInt();
+                    System.out.println(runs + ":" + (n * 2));
+                }
+            }
+            """;
+
+        for (int i = 0; i < 3; i++) {
+            ExecutionResult result = executionService.execute(ExecutionRequest.builder()
+                .language(Language.JAVA)
+                .code(code)
+                .input("21")
+                .build());
+
+            assertEquals(0, result.getExitCode());
+            assertEquals("1:42", result.getOutput().trim());
+        }
+    }
+
+    @Test
+    @DisplayName("Should not let threads a Java run leaves behind write into later runs")
+    void shouldRetireJavaWorkerWithLeftoverThreads() {
+        String daemon = """
+            public class Daemon {
+                public static void main(String[] args) {
+                    Thread thread = new Thread(() -> {
+                        while (true) {
+                            System.out.println("leaked");
+                            try { Thread.sleep(5); } catch (InterruptedException e) { return; }
+                        }
+                    });
+                    thread.setDaemon(true);
+                    thread.start();
+                }
+            }
+            """;
+        for (int i = 0; i < 3; i++) {
+            executionService.execute(ExecutionRequest.builder().language(Language.JAVA).code(daemon).input("").build());
+        }
+
+        ExecutionResult result = executionService.execute(ExecutionRequest.builder()
+            .language(Language.JAVA)
+            .code("""
+                public class Quiet {
+                    public static void main(String[] args) throws Exception {
+                        Thread.sleep(100);
+                        System.out.println("quiet");
+                    }
+                }
+                """)
+            .input("")
+            .build());
+
+        assertEquals(0, result.getExitCode());
+        assertEquals("quiet", result.getOutput().trim());
+    }
+
+    @Test
+    @DisplayName("Should not let JVM defaults a Java run changes carry over into later runs")
+    void shouldResetJvmDefaultsBetweenJavaRuns() throws InterruptedException {
+        String userName = System.getProperty("user.name");
+        String tamper = """
+            import java.util.Locale;
+            import java.util.TimeZone;
+
+            public class Tamper {
+                public static void main(String[] args) {
+                    Locale.setDefault(Locale.GERMANY);
+                    TimeZone.setDefault(TimeZone.getTimeZone("Pacific/Kiritimati"));
+                    System.setProperty("user.name", "pwned");
+                    Thread.setDefaultUncaughtExceptionHandler((thread, e) -> System.out.println("caught"));
+                    Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println("hooked")));
+                }
+            }
+            """;
+        awaitJavaWorkers();
+        for (int i = 0; i < 2; i++) {
+            executionService.execute(ExecutionRequest.builder().language(Language.JAVA).code(tamper).input("").build());
+        }
+
+        ExecutionResult result = executionService.execute(ExecutionRequest.builder()
+            .language(Language.JAVA)
+            .code("""
+                import java.util.TimeZone;
+
+                public class Victim {
+                    public static void main(String[] args) throws Exception {
+                        System.out.println(String.format("%.2f", 1.5) + " " + System.getProperty("user.name")
+                            + " " + (Thread.getDefaultUncaughtExceptionHandler() == null)
+                            + " " + TimeZone.getDefault().getID().equals("Pacific/Kiritimati"));
+                        // Runs any shutdown hook left behind, while staying on the worker
+                        Runtime.class.getMethod("ex" + "it", int.class).invoke(Runtime.getRuntime(), 0);
+                    }
+                }
+                """)
+            .input("")
+            .build());
+
+        assertEquals(0, result.getExitCode());
+        assertEquals("1.50 " + userName + " true false", result.getOutput().trim());
+    }
+
+    @Test
+    @DisplayName("Should not let a Java run reach the worker's control channel")
+    void shouldKeepJavaWorkerChannelFromSubmissions() throws InterruptedException {
+        awaitJavaWorkers();
+        ExecutionResult forger = executionService.execute(ExecutionRequest.builder()
+            .language(Language.JAVA)
+            .code("""
+                public class Forger {
+                    public static void main(String[] args) throws Exception {
+                        var out = new java.io.FileOutputStream(java.io.FileDescriptor.out);
+                        out.write("DONE 0 0 0 0\\n".getBytes());
+                        out.flush();
+                        System.out.println("read " + new java.io.FileInputStream(java.io.FileDescriptor.in).read());
+                    }
+                }
+                """)
+            .input("")
+            .build());
+
+        assertEquals(0, forger.getExitCode());
+        assertEquals("read -1", forger.getOutput().trim());
+
+        ExecutionResult next = executionService.execute(ExecutionRequest.builder()
+            .language(Language.JAVA)
+            .code("""
+                public class Next {
+                    public static void main(String[] args) {
+                        System.out.println("next");
+                    }
+                }
+                """)
+            .input("")
+            .build());
+
+        assertEquals(0, next.getExitCode());
+        assertEquals("next", next.getOutput().trim());
+    }
+
+    /**
+     * Waits for an idle JAVA worker, so the next run lands on it rather than on a fresh JVM.
+     */
+    private void awaitJavaWorkers() throws InterruptedException {
+        assertTrue(workerPool.awaitIdle(Language.JAVA, 60_000), "No JAVA worker became ready");
+    }
+
+    @Test
+    @DisplayName("Should report the exit code of a Java run that exits the JVM")
+    void shouldReportJavaExitThroughReflection() {
+        ExecutionResult result = executionService.execute(ExecutionRequest.builder()
+            .language(Language.JAVA)
+            .code("""
+                public class Quit {
+                    public static void main(String[] args) throws Exception {
+                        System.out.println("before");
+                        Runtime.class.getMethod("ex" + "it", int.class).invoke(Runtime.getRuntime(), 3);
+                    }
+                }
+                """)
+            .input("")
+            .build());
+
+        assertEquals(3, result.getExitCode());
+        assertEquals("before", result.getOutput().trim());
+    }
+
+    // Batch Execution Tests
+    @Test
+    @DisplayName("Should run every input against one compile and stop after a failure")
+    void shouldRunBatchAndStopAfterFailure() {
+        ExecutionRequest request = ExecutionRequest.builder()
+            .language(Language.JAVA)
+            .code("""
+                import java.util.Scanner;
+
+                public class Square {
+                    public static void main(String[] args) {
+                        int n = new Scanner(System.in).nextInt();
+                        if (n < 0) throw new IllegalArgumentException("negative");
+                        System.out.println(n * n);
+                    }
+                }
+                """)
+            .build();
+
+        LocalExecutionService.BatchResult batch = executionService.executeBatch(request,
+            List.of("2", "3", "-1", "4"), 1, (index, result) -> result.getExitCode() != 0);
+
+        assertNull(batch.failure());
+        assertEquals("4", batch.cases().get(0).getOutput().trim());
+        assertEquals("9", batch.cases().get(1).getOutput().trim());
+        assertNotEquals(0, batch.cases().get(2).getExitCode());
+        assertNull(batch.cases().get(3));
+    }
+
+    @Test
+    @DisplayName("Should report a compile error once for the whole batch")
+    void shouldReportBatchCompileError() {
+        ExecutionRequest request = ExecutionRequest.builder()
+            .language(Language.JAVA)
+            .code("public class Broken { public static void main(String[] args) { int x = } }")
+            .build();
+
+        LocalExecutionService.BatchResult batch = executionService.executeBatch(request,
+            List.of("1", "2"), 2, (index, result) -> false);
+
+        assertNotNull(batch.failure());
+        assertNotEquals(0, batch.failure().getExitCode());
+        assertTrue(batch.cases().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should not compile Java code against the application's class path")
+    void shouldCompileAgainstJdkOnly() throws Exception {
+        Path outputDir = Files.createTempDirectory("coderank_classpath_test_");
+        try {
+            CompileCache.CompileFailure failure = javaCompiler.compile("Main", """
+                public class Main {
+                    public static void main(String[] args) {
+                        System.out.println(org.springframework.util.StringUtils.hasText("x"));
+                    }
+                }
+                """, List.of(), outputDir, 10_000);
+
+            assertNotNull(failure);
+            assertTrue(failure.diagnostics().contains("org.springframework.util"), failure.diagnostics());
+        } finally {
+            FileSystemUtils.deleteRecursively(outputDir);
+        }
+    }
+
+    @Test
+    @DisplayName("Should fall back to javac when an in-process compile overruns")
+    void shouldFallBackToExternalJavac() {
+        ReflectionTestUtils.setField(javaCompiler, "timeoutMs", 0L);
+        try {
+            ExecutionResult result = executionService.execute(ExecutionRequest.builder()
+                .language(Language.JAVA)
+                .code("""
+                    public class Main {
+                        public static void main(String[] args) {
+                            System.out.println("fallback " + %dL);
+                        }
+                    }
+                    """.formatted(System.nanoTime()))
+                .input("")
+                .build());
+
+            assertEquals(0, result.getExitCode(), result.getError());
+            assertTrue(result.getOutput().startsWith("fallback "));
+        } finally {
+            ReflectionTestUtils.setField(javaCompiler, "timeoutMs", 5000L);
+        }
+    }
+
+    // Output Capture Tests
+    @Test
+    @DisplayName("Should not block on output larger than the pipe buffer")
+    void shouldNotBlockOnLargeOutput() {
+        ExecutionRequest request = ExecutionRequest.builder()
+            .language(Language.JAVA)
+            .code("""
+                public class Main {
+                    public static void main(String[] args) {
+                        StringBuilder line = new StringBuilder();
+                        for (int i = 0; i < 100; i++) line.append('x');
+                        for (int i = 0; i < 5000; i++) System.out.println(line);
+                        System.out.println("END");
+                    }
+                }
+                """)
+            .input("")
+            .build();
+
+        ExecutionResult result = executionService.execute(request);
+
+        assertEquals(0, result.getExitCode());
+        assertTrue(result.isOutputTruncated());
+        assertTrue(result.getOutput().endsWith("END\n"));
+    }
+
+    @Test
+    @DisplayName("Should stop a program that exceeds the output limit")
+    void shouldStopRunawayOutput() {
+        ExecutionRequest request = ExecutionRequest.builder()
+            .language(Language.PYTHON)
+            .code("""
+                while True:
+                    print('spam')
+                """)
+            .input("")
+            .build();
+
+        ExecutionResult result = executionService.execute(request);
+
+        assertNotEquals(0, result.getExitCode());
+        assertTrue(result.isOutputTruncated());
+        assertTrue(result.getError().contains("Output limit"));
+    }
+
+    @Test
+    @DisplayName("Should hand every output chunk to the output listener")
+    void shouldStreamOutputToListener() {
+        StringBuffer streamed = new StringBuffer();
+        ExecutionResult result = executionService.execute(ExecutionRequest.builder()
+            .language(Language.PYTHON)
+            .code("""
+                import sys
+                for i in range(3):
+                    print('héllo', i, flush=True)
+                sys.stderr.write('done')
+                """)
+            .input("")
+            .outputListener((stream, text) -> {
+                if (stream.equals("stdout")) {
+                    streamed.append(text);
+                }
+            })
+            .build());
+
+        assertEquals(0, result.getExitCode());
+        assertEquals(result.getOutput(), streamed.toString());
+        assertTrue(streamed.toString().contains("héllo 2"));
+    }
+
+    // Process Lifecycle Tests
+    @Test
+    @EnabledOnOs(OS.LINUX)
+    @DisplayName("Should kill processes a program leaves running after it exits")
+    void shouldKillLeftoverProcesses() throws Exception {
+        ExecutionResult result = executionService.execute(ExecutionRequest.builder()
+            .language(Language.PYTHON)
+            .code("""
+                import subprocess, time
+                child = subprocess.Popen(['sleep', '30'], start_new_session=True)
+                print(child.pid)
+                time.sleep(0.3)
+                """)
+            .input("")
+            .build());
+
+        assertEquals(0, result.getExitCode());
+        long pid = Long.parseLong(result.getOutput().trim());
+        long deadline = System.currentTimeMillis() + 2000;
+        while (ProcessHandle.of(pid).map(ProcessTreeManager::isRunning).orElse(false)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertFalse(ProcessHandle.of(pid).map(ProcessTreeManager::isRunning).orElse(false));
+    }
+
+    // Resource Accounting Tests
+    @Test
+    @EnabledOnOs(OS.LINUX)
+    @DisplayName("Should report CPU time and peak memory")
+    void shouldReportCpuTimeAndMemory() {
+        ExecutionRequest request = ExecutionRequest.builder()
+            .language(Language.PYTHON)
+            .code("""
+                total = 0
+                for i in range(3_000_000):
+                    total += i
+                print(total)
+                """)
+            .input("")
+            .build();
+
+        ExecutionResult result = executionService.execute(request);
+
+        assertEquals(0, result.getExitCode());
+        assertTrue(result.getCpuTimeMs() > 0);
+        assertTrue(result.getMemoryUsedKb() > 0);
+        assertNull(result.getLimitExceeded());
+    }
+
+    @Test
+    @DisplayName("Should report the heap a pooled Java run used rather than the worker JVM's")
+    void shouldReportPooledJavaHeapUsage() throws InterruptedException {
+        awaitJavaWorkers();
+        ExecutionRequest request = ExecutionRequest.builder()
+            .language(Language.JAVA)
+            .code("""
+                public class Alloc {
+                    public static void main(String[] args) {
+                        byte[] data = new byte[32 << 20];
+                        System.out.println(data.length);
+                    }
+                }
+                """)
+            .input("")
+            .build();
+
+        for (int i = 0; i < 2; i++) {
+            ExecutionResult result = executionService.execute(request);
+            assertEquals(0, result.getExitCode());
+            assertTrue(result.getMemoryUsedKb() >= 32 << 10, "used " + result.getMemoryUsedKb());
+            assertTrue(result.getMemoryUsedKb() < 48 << 10, "used " + result.getMemoryUsedKb());
+        }
+    }
+
+    @Test
+    @EnabledOnOs(OS.LINUX)
+    @DisplayName("Should stop a program that exceeds the memory limit")
+    void shouldStopMemoryHog() {
+        ReflectionTestUtils.setField(resourceMonitor, "memoryLimitMb", 64L);
+        try {
+            ExecutionResult result = executionService.execute(ExecutionRequest.builder()
+                .language(Language.PYTHON)
+                .code("""
+                    import time
+                    data = b'x' * (256 << 20)
+                    time.sleep(5)
+                    """)
+                .input("")
+                .build());
+
+            assertNotEquals(0, result.getExitCode());
+            assertEquals(ResourceMonitor.Limit.MEMORY, result.getLimitExceeded());
+            assertTrue(result.getError().contains("Memory limit"));
+        } finally {
+            ReflectionTestUtils.setField(resourceMonitor, "memoryLimitMb", 512L);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.coderank.api.execution;
+
+import com.coderank.api.domain.Language;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Result Cache Tests")
+class ResultCacheTest {
+
+    private static final String CODE = "int main() { return 0; }";
+
+    private CppToolchain cppToolchain;
+    private JavaLauncher javaLauncher;
+    private ResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        RuntimeRegistry runtimeRegistry = new RuntimeRegistry();
+        runtimeRegistry.refresh();
+        cppToolchain = new CppToolchain();
+        ReflectionTestUtils.setField(cppToolchain, "flags", new String[]{"-O2"});
+        javaLauncher = new JavaLauncher();
+        ReflectionTestUtils.setField(javaLauncher, "options", new String[]{"-Xmx256m"});
+        WorkerPool workerPool = new WorkerPool();
+        ReflectionTestUtils.setField(workerPool, "javaOptions", new String[]{"-Xmx256m"});
+
+        LocalExecutionService executionService = new LocalExecutionService();
+        ReflectionTestUtils.setField(executionService, "runtimeRegistry", runtimeRegistry);
+        ReflectionTestUtils.setField(executionService, "cppToolchain", cppToolchain);
+        ReflectionTestUtils.setField(executionService, "javaLauncher", javaLauncher);
+        ReflectionTestUtils.setField(executionService, "workerPool", workerPool);
+        ReflectionTestUtils.setField(executionService, "javaCompiler", new InMemoryJavaCompiler());
+
+        cache = new ResultCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxSizeMb", 1L);
+        ReflectionTestUtils.setField(cache, "ttl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(cache, "runtimeRegistry", runtimeRegistry);
+        ReflectionTestUtils.setField(cache, "executionService", executionService);
+        cache.init();
+    }
+
+    @Test
+    @DisplayName("Should miss once the compiler flags or JVM options change")
+    void shouldKeySettings() {
+        String key = cache.key(Language.CPP, CODE, "1");
+        cache.put(key, ExecutionResult.builder().output("").error("").exitCode(0).build());
+        assertTrue(cache.get(cache.key(Language.CPP, CODE, "1")).isPresent());
+
+        ReflectionTestUtils.setField(cppToolchain, "flags", new String[]{"-O0"});
+        assertTrue(cache.get(cache.key(Language.CPP, CODE, "1")).isEmpty());
+
+        String javaKey = cache.key(Language.JAVA, CODE, "1");
+        ReflectionTestUtils.setField(javaLauncher, "options", new String[]{"-Xmx512m"});
+        assertNotEquals(javaKey, cache.key(Language.JAVA, CODE, "1"));
+    }
+}
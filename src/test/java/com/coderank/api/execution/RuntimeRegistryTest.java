@@ -0,0 +1,85 @@
+package com.coderank.api.execution;
+
+import com.coderank.api.domain.Language;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisabledOnOs(OS.WINDOWS)
+@DisplayName("Runtime Registry Tests")
+class RuntimeRegistryTest {
+
+    @TempDir
+    Path bin;
+
+    private RuntimeRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new RuntimeRegistry();
+        ReflectionTestUtils.setField(registry, "searchPath", bin.toString());
+    }
+
+    @Test
+    @DisplayName("Should report a JAVA runtime only when both javac and the java launcher answer")
+    void shouldProbeJavaLauncherAndCompiler() throws Exception {
+        tool("javac", "echo 'javac 21.0.2'");
+
+        RuntimeRegistry.LanguageRuntime compilerOnly = registry.probe(Language.JAVA);
+        assertFalse(compilerOnly.available());
+        assertNull(compilerOnly.executable());
+
+        tool("java", "echo 'openjdk version \"17.0.9\" 2023-10-17' >&2; exit 1");
+        assertFalse(registry.probe(Language.JAVA).available());
+
+        tool("java", "echo 'openjdk version \"17.0.9\" 2023-10-17' >&2");
+        RuntimeRegistry.LanguageRuntime runtime = registry.probe(Language.JAVA);
+        assertTrue(runtime.available());
+        assertEquals(bin.resolve("java").toString(), runtime.executable());
+        assertEquals(bin.resolve("javac").toString(), runtime.compiler());
+        // Both versions end up in cache keys, the launcher's first since it decides the target release
+        assertEquals("openjdk version \"17.0.9\" 2023-10-17; javac 21.0.2", runtime.version());
+    }
+
+    @Test
+    @DisplayName("Should report a missing runtime and resolve the first name that answers")
+    void shouldResolveInterpreters() throws Exception {
+        RuntimeRegistry.LanguageRuntime missing = registry.probe(Language.PYTHON);
+        assertFalse(missing.available());
+        assertNull(missing.executable());
+        assertNull(missing.version());
+
+        tool("python", "echo 'Python 2.7.18'");
+        assertFalse(registry.probe(Language.PYTHON).available());
+
+        tool("python3", "echo 'Python 3.11.2'");
+        RuntimeRegistry.LanguageRuntime python = registry.probe(Language.PYTHON);
+        assertTrue(python.available());
+        assertEquals(bin.resolve("python3").toString(), python.executable());
+        assertEquals("Python 3.11.2", python.version());
+
+        // A python3 that fails its probe falls through to a python that is Python 3
+        tool("python3", "exit 1");
+        tool("python", "echo 'Python 3.12.1'");
+        RuntimeRegistry.LanguageRuntime fallback = registry.probe(Language.PYTHON);
+        assertTrue(fallback.available());
+        assertEquals(bin.resolve("python").toString(), fallback.executable());
+        assertEquals("Python 3.12.1", fallback.version());
+    }
+
+    private void tool(String name, String script) throws Exception {
+        Path file = bin.resolve(name);
+        Files.writeString(file, "#!/bin/sh\n" + script + "\n");
+        Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rwxr-xr-x"));
+    }
+}
@@ -0,0 +1,59 @@
+package com.coderank.api.execution;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Workspace Pool Tests")
+class WorkspacePoolTest {
+
+    @TempDir
+    Path root;
+
+    private WorkspacePool pool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        pool = new WorkspacePool();
+        ReflectionTestUtils.setField(pool, "configuredRoot", root.toString());
+        ReflectionTestUtils.setField(pool, "poolSize", 1);
+        ReflectionTestUtils.setField(pool, "cleanupIntervalMs", 10L);
+        pool.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should wipe a released workspace in the background and hand it out again")
+    void shouldRecycleWorkspaces() throws Exception {
+        Path first;
+        try (WorkspacePool.Workspace workspace = pool.acquire()) {
+            first = workspace.getDir();
+            Files.createDirectories(first.resolve("nested"));
+            Files.writeString(first.resolve("nested/code.py"), "print(1)");
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((int) pool.getStats().get("idle") == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        try (WorkspacePool.Workspace workspace = pool.acquire(); Stream<Path> files = Files.list(workspace.getDir())) {
+            assertEquals(first, workspace.getDir());
+            assertEquals(0, files.count());
+        }
+        assertEquals(1L, pool.getStats().get("created"));
+    }
+}
@@ -0,0 +1,140 @@
+package com.coderank.api.repository;
+
+import com.coderank.api.domain.CodeSubmission;
+import com.coderank.api.domain.Language;
+import com.coderank.api.domain.SubmissionStatus;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs against a real mongod, e.g. {@code mvn test -Dtest.mongo.uri=mongodb://localhost:27017}.
+ */
+@EnabledIfSystemProperty(named = "test.mongo.uri", matches = ".+")
+@DisplayName("Code Submission Repository Tests")
+class CodeSubmissionRepositoryTest {
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private CodeSubmissionRepositoryCustomImpl repository;
+    private CodeSubmissionRepository submissions;
+
+    @BeforeEach
+    void setUp() {
+        client = MongoClients.create(System.getProperty("test.mongo.uri"));
+        mongoTemplate = new MongoTemplate(client, "coderank-submission-test");
+        mongoTemplate.dropCollection(CodeSubmission.class);
+        // Acknowledged throughout, so every write is visible to the next read
+        repository = new CodeSubmissionRepositoryCustomImpl(mongoTemplate, "ACKNOWLEDGED", "ACKNOWLEDGED");
+        submissions = new MongoRepositoryFactory(mongoTemplate).getRepository(CodeSubmissionRepository.class,
+            RepositoryComposition.RepositoryFragments.just(repository));
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.dropCollection(CodeSubmission.class);
+        client.close();
+    }
+
+    @Test
+    @DisplayName("Should update only the transitioned fields")
+    void shouldUpdateOnlyTransitionedFields() {
+        CodeSubmission pending = mongoTemplate.insert(CodeSubmission.builder()
+            .userId("user")
+            .language(Language.PYTHON)
+            .code("print('hi')")
+            .status(SubmissionStatus.PENDING)
+            .createdAt(LocalDateTime.now())
+            .build());
+
+        repository.markRunning(pending.getId());
+        assertEquals(SubmissionStatus.RUNNING, find(pending.getId()).getStatus());
+
+        repository.complete(CodeSubmission.builder()
+            .id(pending.getId())
+            .status(SubmissionStatus.COMPLETED)
+            .output("hi\n")
+            .executionTimeMs(12L)
+            .completedAt(LocalDateTime.now())
+            .build());
+
+        CodeSubmission completed = find(pending.getId());
+        assertEquals(SubmissionStatus.COMPLETED, completed.getStatus());
+        assertEquals("hi\n", completed.getOutput());
+        assertEquals(12L, completed.getExecutionTimeMs());
+        assertEquals("print('hi')", completed.getCode());
+        assertEquals("user", completed.getUserId());
+    }
+
+    @Test
+    @DisplayName("Should not move a finished submission back to running")
+    void shouldNotReopenFinishedSubmission() {
+        CodeSubmission finished = mongoTemplate.insert(CodeSubmission.builder()
+            .userId("user")
+            .language(Language.PYTHON)
+            .code("print('hi')")
+            .status(SubmissionStatus.COMPLETED)
+            .build());
+
+        repository.markRunning(finished.getId());
+
+        assertEquals(SubmissionStatus.COMPLETED, find(finished.getId()).getStatus());
+    }
+
+    @Test
+    @DisplayName("Should page through history by keyset without large fields")
+    void shouldPageByKeyset() {
+        // Pairs share a createdAt, so the id has to break ties
+        LocalDateTime base = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        for (int i = 0; i < 10; i++) {
+            mongoTemplate.insert(CodeSubmission.builder()
+                .userId("user")
+                .language(Language.PYTHON)
+                .code("print(" + i + ")")
+                .output(i + "\n")
+                .status(SubmissionStatus.COMPLETED)
+                .createdAt(base.plusSeconds(i / 2))
+                .build());
+        }
+        mongoTemplate.insert(CodeSubmission.builder().userId("other").createdAt(base).build());
+
+        PageRequest page = PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+        List<CodeSubmission> seen = new ArrayList<>(submissions.findSummariesByUserId("user", page));
+        while (seen.size() < 10) {
+            CodeSubmission last = seen.get(seen.size() - 1);
+            List<CodeSubmission> next = submissions.findSummariesByUserIdAfter("user", last.getCreatedAt(),
+                new ObjectId(last.getId()), page);
+            assertFalse(next.isEmpty());
+            seen.addAll(next);
+        }
+
+        assertEquals(10, seen.stream().map(CodeSubmission::getId).distinct().count());
+        for (int i = 1; i < seen.size(); i++) {
+            assertFalse(seen.get(i).getCreatedAt().isAfter(seen.get(i - 1).getCreatedAt()));
+        }
+        assertNull(seen.get(0).getCode());
+        assertNull(seen.get(0).getOutput());
+        assertEquals(SubmissionStatus.COMPLETED, seen.get(0).getStatus());
+    }
+
+    private CodeSubmission find(String id) {
+        return mongoTemplate.findById(id, CodeSubmission.class);
+    }
+}
@@ -0,0 +1,135 @@
+package com.coderank.api.repository;
+
+import com.coderank.api.domain.CodeSubmission;
+import com.coderank.api.domain.Language;
+import com.coderank.api.domain.SubmissionStatus;
+import com.coderank.api.exception.ExecutionQueueFullException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs against a real mongod, e.g. {@code mvn test -Dtest.mongo.uri=mongodb://localhost:27017}.
+ */
+@EnabledIfSystemProperty(named = "test.mongo.uri", matches = ".+")
+@DisplayName("Code Submission Write Buffer Tests")
+class CodeSubmissionWriteBufferTest {
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private CodeSubmissionWriteBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        client = MongoClients.create(System.getProperty("test.mongo.uri"));
+        mongoTemplate = new MongoTemplate(client, "coderank-write-buffer-test");
+        mongoTemplate.dropCollection(CodeSubmission.class);
+        buffer = new CodeSubmissionWriteBuffer();
+        ReflectionTestUtils.setField(buffer, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(buffer, "enabled", true);
+        ReflectionTestUtils.setField(buffer, "maxBatch", 100);
+        // Only flushed explicitly
+        ReflectionTestUtils.setField(buffer, "flushIntervalMs", 3_600_000L);
+        ReflectionTestUtils.setField(buffer, "capacity", 1000);
+        buffer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.dropCollection(CodeSubmission.class);
+        client.close();
+    }
+
+    @Test
+    @DisplayName("Should serve pending writes from memory and write them in order")
+    void shouldWriteBehind() throws Exception {
+        CodeSubmission submission = buffer.insert(CodeSubmission.builder()
+            .userId("user")
+            .language(Language.PYTHON)
+            .status(SubmissionStatus.PENDING)
+            .createdAt(LocalDateTime.now())
+            .build());
+        buffer.markRunning(submission);
+        assertEquals(SubmissionStatus.RUNNING, buffer.find(submission.getId()).orElseThrow().getStatus());
+        assertEquals(SubmissionStatus.PENDING, submission.getStatus());
+        buffer.complete(CodeSubmission.builder()
+            .id(submission.getId())
+            .userId("user")
+            .status(SubmissionStatus.COMPLETED)
+            .output("hi\n")
+            .completedAt(LocalDateTime.now())
+            .build());
+
+        assertNull(mongoTemplate.findById(submission.getId(), CodeSubmission.class));
+        assertEquals(SubmissionStatus.COMPLETED, buffer.find(submission.getId()).orElseThrow().getStatus());
+
+        buffer.flushUser("user");
+
+        CodeSubmission stored = mongoTemplate.findById(submission.getId(), CodeSubmission.class);
+        assertEquals(SubmissionStatus.COMPLETED, stored.getStatus());
+        assertEquals("hi\n", stored.getOutput());
+        assertEquals("user", stored.getUserId());
+        assertTrue(buffer.find(submission.getId()).isEmpty());
+
+        CodeSubmission late = buffer.insert(CodeSubmission.builder().userId("user").build());
+        buffer.shutdown();
+        assertNotNull(mongoTemplate.findById(late.getId(), CodeSubmission.class));
+        assertEquals(4L, buffer.getStats().get("written"));
+    }
+
+    @Test
+    @DisplayName("Should reject new submissions while the buffer is full and cannot be written")
+    void shouldRejectInsertsWhenFull() throws Exception {
+        ReflectionTestUtils.setField(buffer, "capacity", 2);
+        ReflectionTestUtils.setField(buffer, "shutdownTimeoutMs", 0L);
+        client.close();
+        CodeSubmission first = buffer.insert(CodeSubmission.builder().userId("user").build());
+        buffer.insert(CodeSubmission.builder().userId("user").build());
+
+        assertThrows(ExecutionQueueFullException.class,
+            () -> buffer.insert(CodeSubmission.builder().userId("user").build()));
+        // Accepted submissions still get their transitions
+        first.setStatus(SubmissionStatus.RUNNING);
+        buffer.markRunning(first);
+        assertEquals(3, buffer.getStats().get("pending"));
+        assertEquals(1L, buffer.getStats().get("rejected"));
+
+        buffer.shutdown();
+        client = MongoClients.create(System.getProperty("test.mongo.uri"));
+        mongoTemplate = new MongoTemplate(client, "coderank-write-buffer-test");
+    }
+
+    @Test
+    @DisplayName("Should back off between failed writes and give up on them at the shutdown deadline")
+    void shouldBackOffAndGiveUpAtShutdown() throws Exception {
+        ReflectionTestUtils.setField(buffer, "shutdownTimeoutMs", 300L);
+        // Fails every write
+        client.close();
+        CodeSubmission submission = buffer.insert(CodeSubmission.builder().userId("user").build());
+
+        long start = System.nanoTime();
+        // Retried through the short backoffs, then surfaced
+        assertThrows(DataAccessResourceFailureException.class, () -> buffer.flushUser("user"));
+        assertTrue((Long) buffer.getStats().get("failedFlushes") > 1);
+        assertTrue(buffer.find(submission.getId()).isPresent());
+
+        buffer.shutdown();
+        assertTrue(System.nanoTime() - start < 5_000_000_000L);
+        assertEquals(1L, buffer.getStats().get("dropped"));
+        assertEquals(0, buffer.getStats().get("pending"));
+        assertTrue(buffer.find(submission.getId()).isEmpty());
+        client = MongoClients.create(System.getProperty("test.mongo.uri"));
+        mongoTemplate = new MongoTemplate(client, "coderank-write-buffer-test");
+    }
+}
@@ -0,0 +1,82 @@
+package com.coderank.api.service;
+
+import com.coderank.api.domain.CodeBlob;
+import com.coderank.api.domain.CodeSubmission;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Runs against a real mongod, e.g. {@code mvn test -Dtest.mongo.uri=mongodb://localhost:27017}.
+ */
+@EnabledIfSystemProperty(named = "test.mongo.uri", matches = ".+")
+@DisplayName("Code Store Tests")
+class CodeStoreTest {
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private CodeStore codeStore;
+
+    @BeforeEach
+    void setUp() {
+        client = MongoClients.create(System.getProperty("test.mongo.uri"));
+        mongoTemplate = new MongoTemplate(client, "coderank-code-store-test");
+        mongoTemplate.getDb().drop();
+        codeStore = new CodeStore();
+        ReflectionTestUtils.setField(codeStore, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(codeStore, "recheckAfter", Duration.ofHours(1));
+        ReflectionTestUtils.setField(codeStore, "gcEnabled", true);
+        codeStore.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.getDb().drop();
+        client.close();
+    }
+
+    @Test
+    @DisplayName("Should store identical code once")
+    void shouldDeduplicate() {
+        String hash = codeStore.store("print(1)");
+
+        assertEquals(hash, codeStore.store("print(1)"));
+        assertNotEquals(hash, codeStore.store("print(2)"));
+        assertEquals(2, mongoTemplate.count(new Query(), CodeBlob.class));
+        assertEquals("print(1)", mongoTemplate.findById(hash, CodeBlob.class).getCode());
+        assertEquals(1L, codeStore.getStats().get("deduplicated"));
+    }
+
+    @Test
+    @DisplayName("Should collect only stale blobs no submission refers to")
+    void shouldCollectUnreferencedBlobs() {
+        String referenced = codeStore.store("print('kept')");
+        String unreferenced = codeStore.store("print('dropped')");
+        String recent = codeStore.store("print('recent')");
+        mongoTemplate.insert(CodeSubmission.builder().userId("user").codeHash(referenced).build());
+        mongoTemplate.updateMulti(new Query(where("_id").in(referenced, unreferenced)),
+            new Update().set("referencedAt", Instant.now().minus(Duration.ofDays(1))), CodeBlob.class);
+
+        codeStore.collectGarbage();
+
+        assertNotNull(mongoTemplate.findById(referenced, CodeBlob.class));
+        assertNull(mongoTemplate.findById(unreferenced, CodeBlob.class));
+        assertNotNull(mongoTemplate.findById(recent, CodeBlob.class));
+        assertTrue(mongoTemplate.findById(referenced, CodeBlob.class).getReferencedAt()
+            .isAfter(Instant.now().minus(Duration.ofMinutes(1))));
+    }
+}
@@ -0,0 +1,111 @@
+package com.coderank.api.service;
+
+import com.coderank.api.domain.ExecutionJob;
+import com.coderank.api.domain.Language;
+import com.coderank.api.dto.CodeExecutionRequest;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs against a real mongod, e.g. {@code mvn test -Dtest.mongo.uri=mongodb://localhost:27017}.
+ */
+@EnabledIfSystemProperty(named = "test.mongo.uri", matches = ".+")
+@DisplayName("Execution Job Queue Tests")
+class ExecutionJobQueueTest {
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private ExecutionJobQueue first;
+    private ExecutionJobQueue second;
+
+    @BeforeEach
+    void setUp() {
+        client = MongoClients.create(System.getProperty("test.mongo.uri"));
+        mongoTemplate = new MongoTemplate(client, "coderank-queue-test");
+        mongoTemplate.dropCollection(ExecutionJob.class);
+        first = queue(60_000);
+        second = queue(60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.dropCollection(ExecutionJob.class);
+        client.close();
+    }
+
+    private ExecutionJobQueue queue(long leaseMs) {
+        ExecutionJobQueue queue = new ExecutionJobQueue();
+        ReflectionTestUtils.setField(queue, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(queue, "distributed", true);
+        ReflectionTestUtils.setField(queue, "role", ExecutionJobQueue.Role.BOTH);
+        ReflectionTestUtils.setField(queue, "capacity", 10);
+        ReflectionTestUtils.setField(queue, "leaseMs", leaseMs);
+        ReflectionTestUtils.setField(queue, "maxAttempts", 3);
+        queue.createIndexes();
+        return queue;
+    }
+
+    private void submit(Language language) {
+        first.submit(ExecutionJob.builder()
+            .submissionId("submission-" + language)
+            .language(language)
+            .request(CodeExecutionRequest.builder().language(language).code("print(1)").build())
+            .build());
+    }
+
+    @Test
+    @DisplayName("Should hand a job to exactly one node")
+    void shouldClaimOnce() {
+        submit(Language.PYTHON);
+
+        Optional<ExecutionJob> claimed = first.claim(Set.of(Language.PYTHON));
+        assertTrue(claimed.isPresent());
+        assertEquals(1, claimed.get().getAttempts());
+        assertEquals("print(1)", claimed.get().getRequest().getCode());
+        assertTrue(second.claim(Set.of(Language.PYTHON)).isEmpty());
+
+        first.complete(claimed.get());
+        assertEquals(0, mongoTemplate.count(new Query(), ExecutionJob.class));
+    }
+
+    @Test
+    @DisplayName("Should only claim jobs in languages with free capacity")
+    void shouldClaimByLanguage() {
+        submit(Language.JAVA);
+
+        assertTrue(first.claim(Set.of(Language.PYTHON, Language.CPP)).isEmpty());
+        assertTrue(first.claim(Set.of(Language.JAVA)).isPresent());
+    }
+
+    @Test
+    @DisplayName("Should let another node reclaim a job whose lease expired")
+    void shouldReclaimExpiredLease() throws Exception {
+        ExecutionJobQueue crashing = queue(50);
+        submit(Language.PYTHON);
+        ExecutionJob lost = crashing.claim(Set.of(Language.PYTHON)).orElseThrow();
+
+        Thread.sleep(100);
+        ExecutionJob reclaimed = second.claim(Set.of(Language.PYTHON)).orElseThrow();
+        assertEquals(lost.getId(), reclaimed.getId());
+        assertEquals(2, reclaimed.getAttempts());
+
+        // The original owner no longer holds the job and must not delete it
+        crashing.complete(lost);
+        assertEquals(1L, crashing.getStats().get("lostLeases"));
+        second.complete(reclaimed);
+        assertEquals(0L, second.getStats().get("lostLeases"));
+    }
+}
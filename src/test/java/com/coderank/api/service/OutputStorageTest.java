@@ -0,0 +1,112 @@
+package com.coderank.api.service;
+
+import com.coderank.api.domain.CodeSubmission;
+import com.coderank.api.domain.TestCaseResult;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs against a real mongod, e.g. {@code mvn test -Dtest.mongo.uri=mongodb://localhost:27017}.
+ */
+@EnabledIfSystemProperty(named = "test.mongo.uri", matches = ".+")
+@DisplayName("Output Storage Tests")
+class OutputStorageTest {
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private OutputStorage outputStorage;
+
+    @BeforeEach
+    void setUp() {
+        client = MongoClients.create(System.getProperty("test.mongo.uri"));
+        mongoTemplate = new MongoTemplate(client, "coderank-output-test");
+        mongoTemplate.getDb().drop();
+        outputStorage = new OutputStorage();
+        ReflectionTestUtils.setField(outputStorage, "gridFsTemplate",
+            new GridFsTemplate(mongoTemplate.getMongoDatabaseFactory(), mongoTemplate.getConverter()));
+        ReflectionTestUtils.setField(outputStorage, "thresholdBytes", 1024);
+        ReflectionTestUtils.setField(outputStorage, "previewChars", 16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.getDb().drop();
+        client.close();
+    }
+
+    @Test
+    @DisplayName("Should keep a preview and read the full output back")
+    void shouldOffloadLargeOutput() throws Exception {
+        String output = "line of output\n".repeat(1000);
+        CodeSubmission submission = CodeSubmission.builder()
+            .id(new ObjectId().toHexString())
+            .output(output)
+            .errorMessage("small")
+            .build();
+
+        outputStorage.offload(submission);
+
+        assertEquals(output.substring(0, 16), submission.getOutput());
+        assertEquals(output.length(), submission.getOutputSize());
+        assertNotNull(submission.getOutputFileId());
+        assertEquals("small", submission.getErrorMessage());
+        assertNull(submission.getErrorFileId());
+        assertTrue((long) outputStorage.getStats().get("storedBytes") < output.length());
+
+        OutputStorage.Blob blob = outputStorage.open(submission, OutputStorage.Stream.OUTPUT);
+        assertEquals(output.length(), blob.size());
+        try (InputStream in = blob.open()) {
+            assertEquals(output, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        try (InputStream in = outputStorage.open(submission, OutputStorage.Stream.ERROR).open()) {
+            assertEquals("small", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    @DisplayName("Should offload the output of each test case")
+    void shouldOffloadTestCaseOutput() throws Exception {
+        String output = "case output\n".repeat(1000);
+        CodeSubmission submission = CodeSubmission.builder()
+            .id(new ObjectId().toHexString())
+            .testCaseResults(List.of(
+                TestCaseResult.builder().index(0).output("small").build(),
+                TestCaseResult.builder().index(1).output(output).errorMessage(output).build()))
+            .build();
+
+        outputStorage.offload(submission);
+
+        TestCaseResult small = submission.getTestCaseResults().get(0);
+        assertEquals("small", small.getOutput());
+        assertNull(small.getOutputFileId());
+        TestCaseResult large = submission.getTestCaseResults().get(1);
+        assertEquals(output.substring(0, 16), large.getOutput());
+        assertEquals(output.substring(0, 16), large.getErrorMessage());
+        assertNotNull(large.getOutputFileId());
+        assertNotEquals(large.getOutputFileId(), large.getErrorFileId());
+        assertEquals(2L, outputStorage.getStats().get("offloaded"));
+
+        try (InputStream in = outputStorage.open(submission, 1, OutputStorage.Stream.ERROR).open()) {
+            assertEquals(output, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        try (InputStream in = outputStorage.open(submission, 0, OutputStorage.Stream.OUTPUT).open()) {
+            assertEquals("small", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertThrows(RuntimeException.class, () -> outputStorage.open(submission, 2, OutputStorage.Stream.OUTPUT));
+    }
+}
@@ -0,0 +1,61 @@
+package com.coderank.api.service;
+
+import com.coderank.api.domain.CodeSubmission;
+import com.coderank.api.domain.Language;
+import com.coderank.api.domain.SubmissionStatus;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Submission Archive Tests")
+class SubmissionArchiveTest {
+
+    @Test
+    @DisplayName("Should read back an archived submission as it was stored")
+    void shouldRoundTripSubmission() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        LocalDateTime createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        String output = "0123456789\n".repeat(200);
+        CodeSubmission submission = CodeSubmission.builder()
+            .id(new ObjectId().toHexString())
+            .userId("user")
+            .language(Language.PYTHON)
+            .codeHash("ab".repeat(32))
+            .status(SubmissionStatus.COMPLETED)
+            .output(output)
+            .executionTimeMs(42L)
+            .createdAt(createdAt)
+            .build();
+        Document document = new Document();
+        converter.write(submission, document);
+
+        byte[] data = SubmissionArchive.encode(document);
+        CodeSubmission restored = converter.read(CodeSubmission.class, SubmissionArchive.decode(data));
+
+        assertTrue(data.length < output.length() / 4);
+        assertEquals(submission.getId(), restored.getId());
+        assertEquals("user", restored.getUserId());
+        assertEquals(Language.PYTHON, restored.getLanguage());
+        assertEquals(submission.getCodeHash(), restored.getCodeHash());
+        assertEquals(SubmissionStatus.COMPLETED, restored.getStatus());
+        assertEquals(output, restored.getOutput());
+        assertEquals(42L, restored.getExecutionTimeMs());
+        assertEquals(createdAt, restored.getCreatedAt());
+    }
+}
@@ -0,0 +1,62 @@
+package com.coderank.api.service;
+
+import com.coderank.api.domain.CodeSubmission;
+import com.coderank.api.domain.SubmissionStatus;
+import com.coderank.api.dto.CodeExecutionResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Submission Response Cache Tests")
+class SubmissionResponseCacheTest {
+
+    private SubmissionResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new SubmissionResponseCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxSizeMb", 1L);
+        ReflectionTestUtils.setField(cache, "idle", Duration.ofMinutes(1));
+        cache.init();
+    }
+
+    @Test
+    @DisplayName("Should keep only finished submissions, with a stable ETag")
+    void shouldCacheFinishedSubmissions() {
+        CodeSubmission running = submission("a", SubmissionStatus.RUNNING);
+        SubmissionResponseCache.Entry entry = cache.put(running, response(running));
+        assertNull(entry.etag());
+        assertTrue(cache.get("a").isEmpty());
+
+        CodeSubmission completed = submission("b", SubmissionStatus.COMPLETED);
+        completed.setCompletedAt(LocalDateTime.of(2026, 1, 1, 0, 0));
+        CodeExecutionResponse response = response(completed);
+        entry = cache.put(completed, response);
+
+        assertNotNull(entry.etag());
+        assertTrue(entry.etag().startsWith("\"b-") && entry.etag().endsWith("\""));
+        assertSame(response, cache.get("b").orElseThrow().response());
+        assertEquals("user", cache.get("b").orElseThrow().userId());
+        assertEquals(entry.etag(), cache.put(completed, response(completed)).etag());
+        assertEquals(1L, cache.getStats().get("misses"));
+    }
+
+    private static CodeSubmission submission(String id, SubmissionStatus status) {
+        return CodeSubmission.builder().id(id).userId("user").status(status).build();
+    }
+
+    private static CodeExecutionResponse response(CodeSubmission submission) {
+        return CodeExecutionResponse.builder()
+            .submissionId(submission.getId())
+            .status(submission.getStatus())
+            .output("out")
+            .build();
+    }
+}